@@ -17,6 +17,7 @@ public class Event {
   private String usermeta;
   private String sysmeta;
   private LocalDateTime expiresAt;
+  private int attendeeCount;
   private LocalDateTime createdAt;
   private LocalDateTime updatedAt;
 
@@ -104,4 +105,12 @@ public class Event {
   public void setUpdatedAt(LocalDateTime updatedAt) {
     this.updatedAt = updatedAt;
   }
+
+  public int getAttendeeCount() {
+    return attendeeCount;
+  }
+
+  public void setAttendeeCount(int attendeeCount) {
+    this.attendeeCount = attendeeCount;
+  }
 }
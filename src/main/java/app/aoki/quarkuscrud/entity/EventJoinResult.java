@@ -0,0 +1,55 @@
+package app.aoki.quarkuscrud.entity;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * Result of the single-statement join-by-code.
+ *
+ * <p>{@link #getAttendee()} is only set when the outcome is {@link Outcome#JOINED}; {@link
+ * #getEventId()} is set whenever the code resolved to an active event.
+ */
+@RegisterForReflection
+public class EventJoinResult {
+
+  /** Why the join did or did not insert an attendee. */
+  public enum Outcome {
+    /** The attendee was inserted. */
+    JOINED,
+
+    /** The user already attends the event the code points to. */
+    ALREADY_JOINED,
+
+    /** The code does not belong to an active event. */
+    NO_ACTIVE_EVENT
+  }
+
+  private Outcome outcome;
+  private Long eventId;
+  private EventAttendee attendee;
+
+  public EventJoinResult() {}
+
+  public Outcome getOutcome() {
+    return outcome;
+  }
+
+  public void setOutcome(Outcome outcome) {
+    this.outcome = outcome;
+  }
+
+  public Long getEventId() {
+    return eventId;
+  }
+
+  public void setEventId(Long eventId) {
+    this.eventId = eventId;
+  }
+
+  public EventAttendee getAttendee() {
+    return attendee;
+  }
+
+  public void setAttendee(EventAttendee attendee) {
+    this.attendee = attendee;
+  }
+}
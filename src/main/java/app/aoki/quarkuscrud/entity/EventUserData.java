@@ -8,6 +8,10 @@ import java.time.LocalDateTime;
  *
  * <p>Each record represents an immutable user data revision for a specific event. The latest
  * revision for an event-user pair is their current data. Revisions are accumulated over time.
+ *
+ * <p>In storage a revision is either a full snapshot or a merge patch against an earlier snapshot.
+ * {@code baseId} names that snapshot for a delta and {@code deltaSeq} counts the revisions since
+ * it. {@code userData} as read through the mapper is always the full document.
  */
 @RegisterForReflection
 public class EventUserData {
@@ -15,6 +19,8 @@ public class EventUserData {
   private Long eventId;
   private Long userId;
   private String userData;
+  private Long baseId;
+  private Integer deltaSeq;
   private String usermeta;
   private String sysmeta;
   private LocalDateTime createdAt;
@@ -73,6 +79,22 @@ public class EventUserData {
     this.userData = userData;
   }
 
+  public Long getBaseId() {
+    return baseId;
+  }
+
+  public void setBaseId(Long baseId) {
+    this.baseId = baseId;
+  }
+
+  public Integer getDeltaSeq() {
+    return deltaSeq;
+  }
+
+  public void setDeltaSeq(Integer deltaSeq) {
+    this.deltaSeq = deltaSeq;
+  }
+
   public String getUsermeta() {
     return usermeta;
   }
@@ -7,8 +7,8 @@ import java.time.LocalDateTime;
  * User entity representing all users in the system.
  *
  * <p>Users track account lifecycle and flexible metadata. Authentication is handled separately in
- * the authn_providers table. Profile revisions are stored in user_profiles and the latest is always
- * retrieved via query (ORDER BY created_at DESC LIMIT 1).
+ * the authn_providers table. Profile revisions are stored in user_profiles, and
+ * user_profile_current points at the latest one.
  */
 @RegisterForReflection
 public class User {
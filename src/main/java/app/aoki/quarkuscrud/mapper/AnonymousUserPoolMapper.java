@@ -0,0 +1,48 @@
+package app.aoki.quarkuscrud.mapper;
+
+import app.aoki.quarkuscrud.entity.AuthMethod;
+import app.aoki.quarkuscrud.entity.AuthnProvider;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Result;
+import org.apache.ibatis.annotations.Results;
+import org.apache.ibatis.annotations.Select;
+
+@Mapper
+public interface AnonymousUserPoolMapper {
+
+  @Insert("INSERT INTO anonymous_user_pool (user_id, created_at) VALUES (#{userId}, #{createdAt})")
+  void insert(@Param("userId") Long userId, @Param("createdAt") LocalDateTime createdAt);
+
+  @Select("SELECT COUNT(*) FROM anonymous_user_pool")
+  long countAvailable();
+
+  /**
+   * Atomically removes one entry from the pool, stamps the user with the claim time and returns its
+   * authentication provider. Concurrent claims skip rows locked by each other.
+   */
+  @Select("WITH claimed AS (DELETE FROM anonymous_user_pool WHERE user_id = (SELECT user_id FROM anonymous_user_pool ORDER BY user_id LIMIT 1 FOR UPDATE SKIP LOCKED) RETURNING user_id) UPDATE users u SET created_at = #{claimedAt}, updated_at = #{claimedAt} FROM claimed c JOIN authn_providers ap ON ap.user_id = c.user_id WHERE u.id = c.user_id RETURNING ap.id, ap.user_id, ap.auth_method, ap.auth_identifier, ap.external_subject, ap.usermeta::text as usermeta, ap.sysmeta::text as sysmeta, ap.created_at, ap.updated_at")
+  @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+  @Results(
+      id = "claimedAuthnProviderResultMap",
+      value = {
+        @Result(property = "id", column = "id", id = true),
+        @Result(property = "userId", column = "user_id"),
+        @Result(
+            property = "authMethod",
+            column = "auth_method",
+            javaType = AuthMethod.class,
+            typeHandler = AuthMethodTypeHandler.class),
+        @Result(property = "authIdentifier", column = "auth_identifier"),
+        @Result(property = "externalSubject", column = "external_subject"),
+        @Result(property = "usermeta", column = "usermeta"),
+        @Result(property = "sysmeta", column = "sysmeta"),
+        @Result(property = "createdAt", column = "created_at"),
+        @Result(property = "updatedAt", column = "updated_at")
+      })
+  Optional<AuthnProvider> claim(@Param("claimedAt") LocalDateTime claimedAt);
+}
@@ -1,11 +1,14 @@
 package app.aoki.quarkuscrud.mapper;
 
 import app.aoki.quarkuscrud.entity.EventAttendee;
+import app.aoki.quarkuscrud.entity.EventJoinResult;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.One;
 import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Result;
@@ -13,6 +16,7 @@ import org.apache.ibatis.annotations.ResultMap;
 import org.apache.ibatis.annotations.Results;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.type.EnumTypeHandler;
 
 @Mapper
 public interface EventAttendeeMapper {
@@ -35,14 +39,57 @@ public interface EventAttendeeMapper {
       })
   Optional<EventAttendee> findById(@Param("id") Long id);
 
+  /**
+   * Adds the user to an event in one statement, provided the event is still active. Always returns
+   * one row: the outcome, the event ID if the event is active, and the inserted attendee (columns
+   * prefixed with {@code a_}) when the outcome is JOINED. A concurrent duplicate join waits on the
+   * unique pair index and then reports ALREADY_JOINED instead of failing. The event's attendee
+   * count is bumped only when a row was inserted.
+   */
+  @Select("WITH ev AS (SELECT e.id FROM events e WHERE e.id = #{eventId} AND LOWER(e.status) NOT IN ('expired', 'deleted') AND (e.expires_at IS NULL OR e.expires_at > #{now})), ins AS (INSERT INTO event_attendees (event_id, attendee_user_id, created_at, updated_at) SELECT ev.id, #{attendeeUserId}, #{now}, #{now} FROM ev ON CONFLICT (event_id, attendee_user_id) DO NOTHING RETURNING id, event_id, attendee_user_id, usermeta, sysmeta, created_at, updated_at), counted AS (UPDATE events SET attendee_count = attendee_count + 1 WHERE id IN (SELECT event_id FROM ins)) SELECT CASE WHEN ins.id IS NOT NULL THEN 'JOINED' WHEN ev.id IS NOT NULL THEN 'ALREADY_JOINED' ELSE 'NO_ACTIVE_EVENT' END AS outcome, ev.id AS event_id, ins.id AS a_id, ins.event_id AS a_event_id, ins.attendee_user_id AS a_attendee_user_id, ins.usermeta::text AS a_usermeta, ins.sysmeta::text AS a_sysmeta, ins.created_at AS a_created_at, ins.updated_at AS a_updated_at FROM (SELECT 1) base LEFT JOIN ev ON true LEFT JOIN ins ON true")
+  @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+  @Results(
+      id = "eventJoinResultMap",
+      value = {
+        @Result(
+            property = "outcome",
+            column = "outcome",
+            javaType = EventJoinResult.Outcome.class,
+            typeHandler = EnumTypeHandler.class),
+        @Result(property = "eventId", column = "event_id"),
+        @Result(
+            property = "attendee",
+            one = @One(resultMap = "eventAttendeeResultMap", columnPrefix = "a_"))
+      })
+  EventJoinResult joinActiveEvent(
+      @Param("eventId") Long eventId,
+      @Param("attendeeUserId") Long attendeeUserId,
+      @Param("now") LocalDateTime now);
+
   @Select("SELECT id, event_id, attendee_user_id, usermeta::text as usermeta, sysmeta::text as sysmeta, created_at, updated_at FROM event_attendees WHERE event_id = #{eventId}")
   @ResultMap("eventAttendeeResultMap")
   List<EventAttendee> findByEventId(@Param("eventId") Long eventId);
 
+  @Select("SELECT id, event_id, attendee_user_id, usermeta::text as usermeta, sysmeta::text as sysmeta, created_at, updated_at FROM event_attendees WHERE event_id = #{eventId} AND (created_at, id) < (#{afterCreatedAt}, #{afterId}) ORDER BY created_at DESC, id DESC LIMIT #{limit}")
+  @ResultMap("eventAttendeeResultMap")
+  List<EventAttendee> findPageByEventId(
+      @Param("eventId") Long eventId,
+      @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+      @Param("afterId") Long afterId,
+      @Param("limit") int limit);
+
   @Select("SELECT id, event_id, attendee_user_id, usermeta::text as usermeta, sysmeta::text as sysmeta, created_at, updated_at FROM event_attendees WHERE attendee_user_id = #{attendeeUserId}")
   @ResultMap("eventAttendeeResultMap")
   List<EventAttendee> findByAttendeeUserId(@Param("attendeeUserId") Long attendeeUserId);
 
+  @Select("SELECT id, event_id, attendee_user_id, usermeta::text as usermeta, sysmeta::text as sysmeta, created_at, updated_at FROM event_attendees WHERE attendee_user_id = #{attendeeUserId} AND (created_at, id) < (#{afterCreatedAt}, #{afterId}) ORDER BY created_at DESC, id DESC LIMIT #{limit}")
+  @ResultMap("eventAttendeeResultMap")
+  List<EventAttendee> findPageByAttendeeUserId(
+      @Param("attendeeUserId") Long attendeeUserId,
+      @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+      @Param("afterId") Long afterId,
+      @Param("limit") int limit);
+
   @Select("SELECT id, event_id, attendee_user_id, usermeta::text as usermeta, sysmeta::text as sysmeta, created_at, updated_at FROM event_attendees WHERE event_id = #{eventId} AND attendee_user_id = #{attendeeUserId}")
   @ResultMap("eventAttendeeResultMap")
   Optional<EventAttendee> findByEventAndAttendee(
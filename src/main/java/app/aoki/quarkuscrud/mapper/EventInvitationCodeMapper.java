@@ -42,11 +42,18 @@ public interface EventInvitationCodeMapper {
   @ResultMap("eventInvitationCodeResultMap")
   List<EventInvitationCode> findByEventId(@Param("eventId") Long eventId);
 
+  @Select("SELECT id, event_id, invitation_code, usermeta::text as usermeta, sysmeta::text as sysmeta, created_at, updated_at FROM event_invitation_codes WHERE event_id = ANY(#{eventIds, typeHandler=org.apache.ibatis.type.ArrayTypeHandler}) ORDER BY event_id, id")
+  @ResultMap("eventInvitationCodeResultMap")
+  List<EventInvitationCode> findByEventIds(@Param("eventIds") Long[] eventIds);
+
   @Select("SELECT id, event_id, invitation_code, usermeta::text as usermeta, sysmeta::text as sysmeta, created_at, updated_at FROM event_invitation_codes WHERE invitation_code = #{invitationCode}")
   @ResultMap("eventInvitationCodeResultMap")
   Optional<EventInvitationCode> findByInvitationCode(
       @Param("invitationCode") String invitationCode);
 
+  @Select("SELECT c.invitation_code FROM event_invitation_codes c JOIN events e ON e.id = c.event_id WHERE LOWER(e.status) NOT IN ('expired', 'deleted')")
+  List<String> findActiveInvitationCodes();
+
   @Update("UPDATE event_invitation_codes SET event_id = #{eventId}, invitation_code = #{invitationCode}, usermeta = #{usermeta}::jsonb, sysmeta = #{sysmeta}::jsonb, updated_at = #{updatedAt} WHERE id = #{id}")
   void update(EventInvitationCode eventInvitationCode);
 
@@ -2,6 +2,7 @@ package app.aoki.quarkuscrud.mapper;
 
 import app.aoki.quarkuscrud.entity.Event;
 import app.aoki.quarkuscrud.entity.EventStatus;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import org.apache.ibatis.annotations.Delete;
@@ -22,11 +23,11 @@ public interface EventMapper {
   @Update("SET TRANSACTION ISOLATION LEVEL SERIALIZABLE")
   void ensureSerializableIsolationLevel();
 
-  @Insert("INSERT INTO events (initiator_id, status, usermeta, sysmeta, expires_at, created_at, updated_at) VALUES (#{initiatorId}, #{status, typeHandler=org.apache.ibatis.type.EnumTypeHandler}, #{usermeta}::jsonb, #{sysmeta}::jsonb, #{expiresAt}, #{createdAt}, #{updatedAt})")
+  @Insert("INSERT INTO events (initiator_id, status, usermeta, sysmeta, expires_at, attendee_count, created_at, updated_at) VALUES (#{initiatorId}, #{status, typeHandler=org.apache.ibatis.type.EnumTypeHandler}, #{usermeta}::jsonb, #{sysmeta}::jsonb, #{expiresAt}, #{attendeeCount}, #{createdAt}, #{updatedAt})")
   @Options(useGeneratedKeys = true, keyProperty = "id")
   void insert(Event event);
 
-  @Select("SELECT id, initiator_id, status, usermeta::text as usermeta, sysmeta::text as sysmeta, expires_at, created_at, updated_at FROM events WHERE id = #{id}")
+  @Select("SELECT id, initiator_id, status, usermeta::text as usermeta, sysmeta::text as sysmeta, expires_at, attendee_count, created_at, updated_at FROM events WHERE id = #{id}")
   @Results(
       id = "eventResultMap",
       value = {
@@ -40,26 +41,81 @@ public interface EventMapper {
         @Result(property = "usermeta", column = "usermeta"),
         @Result(property = "sysmeta", column = "sysmeta"),
         @Result(property = "expiresAt", column = "expires_at"),
+        @Result(property = "attendeeCount", column = "attendee_count"),
         @Result(property = "createdAt", column = "created_at"),
         @Result(property = "updatedAt", column = "updated_at")
       })
   Optional<Event> findById(@Param("id") Long id);
 
-  @Select("SELECT id, initiator_id, status, usermeta::text as usermeta, sysmeta::text as sysmeta, expires_at, created_at, updated_at FROM events WHERE initiator_id = #{initiatorId}")
+  @Select("SELECT id, initiator_id, status, usermeta::text as usermeta, sysmeta::text as sysmeta, expires_at, attendee_count, created_at, updated_at FROM events WHERE initiator_id = #{initiatorId}")
   @ResultMap("eventResultMap")
   List<Event> findByInitiatorId(@Param("initiatorId") Long initiatorId);
 
-  @Select("SELECT id, initiator_id, status, usermeta::text as usermeta, sysmeta::text as sysmeta, expires_at, created_at, updated_at FROM events WHERE status = #{status, typeHandler=org.apache.ibatis.type.EnumTypeHandler}")
+  @Select("SELECT e.id, e.initiator_id, e.status, e.usermeta::text as usermeta, e.sysmeta::text as sysmeta, e.expires_at, e.attendee_count, e.created_at, e.updated_at FROM event_invitation_codes c JOIN events e ON e.id = c.event_id WHERE c.invitation_code = #{invitationCode} AND LOWER(e.status) NOT IN ('expired', 'deleted') ORDER BY e.created_at DESC LIMIT 1")
+  @ResultMap("eventResultMap")
+  Optional<Event> findActiveByInvitationCode(@Param("invitationCode") String invitationCode);
+
+  @Select("SELECT id, initiator_id, status, usermeta::text as usermeta, sysmeta::text as sysmeta, expires_at, attendee_count, created_at, updated_at FROM events WHERE initiator_id = #{initiatorId} AND (created_at, id) < (#{afterCreatedAt}, #{afterId}) ORDER BY created_at DESC, id DESC LIMIT #{limit}")
+  @ResultMap("eventResultMap")
+  List<Event> findPageByInitiatorId(
+      @Param("initiatorId") Long initiatorId,
+      @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+      @Param("afterId") Long afterId,
+      @Param("limit") int limit);
+
+  @Select("SELECT id, initiator_id, status, usermeta::text as usermeta, sysmeta::text as sysmeta, expires_at, attendee_count, created_at, updated_at FROM events WHERE id = ANY(#{ids, typeHandler=org.apache.ibatis.type.ArrayTypeHandler})")
+  @ResultMap("eventResultMap")
+  List<Event> findByIds(@Param("ids") Long[] ids);
+
+  /**
+   * Marks up to {@code limit} events whose expiry has passed as EXPIRED, oldest expiry first, and
+   * returns them. Rows locked by a concurrent writer are skipped and picked up by a later batch.
+   */
+  @Select("WITH overdue AS (SELECT id FROM events WHERE expires_at <= #{now} AND LOWER(status) NOT IN ('expired', 'deleted') ORDER BY expires_at LIMIT #{limit} FOR UPDATE SKIP LOCKED) UPDATE events e SET status = 'EXPIRED', updated_at = #{now} FROM overdue o WHERE e.id = o.id RETURNING e.id, e.initiator_id, e.status, e.usermeta::text as usermeta, e.sysmeta::text as sysmeta, e.expires_at, e.attendee_count, e.created_at, e.updated_at")
+  @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+  @ResultMap("eventResultMap")
+  List<Event> expireOverdue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+  /** Takes a transaction-scoped advisory lock if no other session holds it. */
+  @Select("SELECT pg_try_advisory_xact_lock(#{key})")
+  @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+  boolean tryAdvisoryXactLock(@Param("key") long key);
+
+  @Select("SELECT id, initiator_id, status, usermeta::text as usermeta, sysmeta::text as sysmeta, expires_at, attendee_count, created_at, updated_at FROM events WHERE status = #{status, typeHandler=org.apache.ibatis.type.EnumTypeHandler}")
   @ResultMap("eventResultMap")
   List<Event> findByStatus(@Param("status") EventStatus status);
 
-  @Select("SELECT id, initiator_id, status, usermeta::text as usermeta, sysmeta::text as sysmeta, expires_at, created_at, updated_at FROM events ORDER BY created_at DESC")
+  @Select("SELECT id, initiator_id, status, usermeta::text as usermeta, sysmeta::text as sysmeta, expires_at, attendee_count, created_at, updated_at FROM events ORDER BY created_at DESC")
   @ResultMap("eventResultMap")
   List<Event> findAll();
 
   @Update("UPDATE events SET initiator_id = #{initiatorId}, status = #{status, typeHandler=org.apache.ibatis.type.EnumTypeHandler}, usermeta = #{usermeta}::jsonb, sysmeta = #{sysmeta}::jsonb, expires_at = #{expiresAt}, updated_at = #{updatedAt} WHERE id = #{id}")
   void update(Event event);
 
+  /** Adds one to an event's attendee count; call in the transaction that inserts the attendee. */
+  @Update("UPDATE events SET attendee_count = attendee_count + 1 WHERE id = #{id}")
+  void incrementAttendeeCount(@Param("id") Long id);
+
+  @Select("SELECT COALESCE(MAX(id), 0) FROM events")
+  long findMaxId();
+
+  /**
+   * Locks the events with an ID in {@code (afterId, upToId]} until the transaction ends, so no
+   * attendee count in the range changes while it is recounted.
+   */
+  @Select("SELECT id FROM events WHERE id > #{afterId} AND id <= #{upToId} ORDER BY id FOR UPDATE")
+  @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+  List<Long> lockRange(@Param("afterId") long afterId, @Param("upToId") long upToId);
+
+  /**
+   * Resets the attendee count of every event with an ID in {@code (afterId, upToId]} whose count
+   * differs from its number of attendee rows. Returns the number of events corrected. Call after
+   * {@link #lockRange} in the same transaction; otherwise a join committing while this runs can be
+   * overwritten with a count taken before it.
+   */
+  @Update("UPDATE events e SET attendee_count = c.actual FROM (SELECT ev.id, COUNT(a.id) AS actual FROM events ev LEFT JOIN event_attendees a ON a.event_id = ev.id WHERE ev.id > #{afterId} AND ev.id <= #{upToId} GROUP BY ev.id) c WHERE e.id = c.id AND e.attendee_count <> c.actual")
+  int repairAttendeeCounts(@Param("afterId") long afterId, @Param("upToId") long upToId);
+
   @Delete("DELETE FROM events WHERE id = #{id}")
   void deleteById(@Param("id") Long id);
 }
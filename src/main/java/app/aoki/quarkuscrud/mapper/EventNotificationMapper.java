@@ -0,0 +1,14 @@
+package app.aoki.quarkuscrud.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+@Mapper
+public interface EventNotificationMapper {
+
+  // PostgreSQL queues the notification and delivers it to listeners only when the surrounding
+  // transaction commits; a rollback discards it
+  @Select("SELECT 1 FROM pg_notify(#{channel}, #{payload})")
+  int send(@Param("channel") String channel, @Param("payload") String payload);
+}
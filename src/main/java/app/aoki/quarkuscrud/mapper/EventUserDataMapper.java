@@ -1,6 +1,7 @@
 package app.aoki.quarkuscrud.mapper;
 
 import app.aoki.quarkuscrud.entity.EventUserData;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import org.apache.ibatis.annotations.Delete;
@@ -13,20 +14,38 @@ import org.apache.ibatis.annotations.ResultMap;
 import org.apache.ibatis.annotations.Results;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.session.ResultHandler;
 
 @Mapper
 public interface EventUserDataMapper {
 
   @Insert(
-      "INSERT INTO event_user_data (event_id, user_id, user_data, usermeta, sysmeta, created_at, updated_at) "
-          + "VALUES (#{eventId}, #{userId}, #{userData}::jsonb, #{usermeta}::jsonb, #{sysmeta}::jsonb, #{createdAt}, #{updatedAt})")
+      "INSERT INTO event_user_data (event_id, user_id, user_data, base_id, delta_seq, usermeta, sysmeta, created_at, updated_at) "
+          + "VALUES (#{eventId}, #{userId}, #{userData}::jsonb, #{baseId}, COALESCE(#{deltaSeq}, 0), #{usermeta}::jsonb, #{sysmeta}::jsonb, #{createdAt}, #{updatedAt})")
   @Options(useGeneratedKeys = true, keyProperty = "id")
   void insert(EventUserData eventUserData);
 
+  /**
+   * Makes a revision the user's current data in the event. Called in the transaction that inserts
+   * it.
+   */
+  @Insert(
+      "INSERT INTO event_user_data_current (event_id, user_id, user_data_id) "
+          + "VALUES (#{eventId}, #{userId}, #{userDataId}) "
+          + "ON CONFLICT (event_id, user_id) DO UPDATE SET user_data_id = EXCLUDED.user_data_id")
+  void setCurrent(
+      @Param("eventId") Long eventId,
+      @Param("userId") Long userId,
+      @Param("userDataId") Long userDataId);
+
   @Select(
-      "SELECT id, event_id, user_id, user_data::text as user_data, "
-          + "usermeta::text as usermeta, sysmeta::text as sysmeta, created_at, updated_at "
-          + "FROM event_user_data WHERE id = #{id}")
+      "SELECT d.id, d.event_id, d.user_id, "
+          + "CASE WHEN d.base_id IS NULL THEN d.user_data "
+          + "ELSE jsonb_merge_patch(s.user_data, d.user_data) END::text as user_data, "
+          + "d.base_id, d.delta_seq, d.usermeta::text as usermeta, d.sysmeta::text as sysmeta, "
+          + "d.created_at, d.updated_at "
+          + "FROM event_user_data d LEFT JOIN event_user_data s ON s.id = d.base_id "
+          + "WHERE d.id = #{id}")
   @Results(
       id = "eventUserDataResultMap",
       value = {
@@ -34,6 +53,8 @@ public interface EventUserDataMapper {
         @Result(property = "eventId", column = "event_id"),
         @Result(property = "userId", column = "user_id"),
         @Result(property = "userData", column = "user_data"),
+        @Result(property = "baseId", column = "base_id"),
+        @Result(property = "deltaSeq", column = "delta_seq"),
         @Result(property = "usermeta", column = "usermeta"),
         @Result(property = "sysmeta", column = "sysmeta"),
         @Result(property = "createdAt", column = "created_at"),
@@ -42,31 +63,96 @@ public interface EventUserDataMapper {
   Optional<EventUserData> findById(@Param("id") Long id);
 
   @Select(
-      "SELECT id, event_id, user_id, user_data::text as user_data, "
-          + "usermeta::text as usermeta, sysmeta::text as sysmeta, created_at, updated_at "
-          + "FROM event_user_data WHERE event_id = #{eventId} AND user_id = #{userId} "
-          + "ORDER BY created_at DESC")
+      "SELECT d.id, d.event_id, d.user_id, "
+          + "CASE WHEN d.base_id IS NULL THEN d.user_data "
+          + "ELSE jsonb_merge_patch(s.user_data, d.user_data) END::text as user_data, "
+          + "d.base_id, d.delta_seq, d.usermeta::text as usermeta, d.sysmeta::text as sysmeta, "
+          + "d.created_at, d.updated_at "
+          + "FROM event_user_data d LEFT JOIN event_user_data s ON s.id = d.base_id "
+          + "WHERE d.event_id = #{eventId} AND d.user_id = #{userId} "
+          + "ORDER BY d.created_at DESC")
   @ResultMap("eventUserDataResultMap")
   List<EventUserData> findByEventIdAndUserId(
       @Param("eventId") Long eventId, @Param("userId") Long userId);
 
   @Select(
-      "SELECT id, event_id, user_id, user_data::text as user_data, "
-          + "usermeta::text as usermeta, sysmeta::text as sysmeta, created_at, updated_at "
-          + "FROM event_user_data WHERE event_id = #{eventId} AND user_id = #{userId} "
-          + "ORDER BY created_at DESC LIMIT 1")
+      "SELECT d.id, d.event_id, d.user_id, "
+          + "CASE WHEN d.base_id IS NULL THEN d.user_data "
+          + "ELSE jsonb_merge_patch(s.user_data, d.user_data) END::text as user_data, "
+          + "d.base_id, d.delta_seq, d.usermeta::text as usermeta, d.sysmeta::text as sysmeta, "
+          + "d.created_at, d.updated_at "
+          + "FROM event_user_data_current c JOIN event_user_data d ON d.id = c.user_data_id "
+          + "LEFT JOIN event_user_data s ON s.id = d.base_id "
+          + "WHERE c.event_id = #{eventId} AND c.user_id = #{userId}")
   @ResultMap("eventUserDataResultMap")
   Optional<EventUserData> findLatestByEventIdAndUserId(
       @Param("eventId") Long eventId, @Param("userId") Long userId);
 
+  /** Passes the latest revision of each user in the event to the handler, ordered by user ID. */
+  @Select(
+      "SELECT d.id, d.event_id, d.user_id, "
+          + "CASE WHEN d.base_id IS NULL THEN d.user_data "
+          + "ELSE jsonb_merge_patch(s.user_data, d.user_data) END::text as user_data, "
+          + "d.base_id, d.delta_seq, d.usermeta::text as usermeta, d.sysmeta::text as sysmeta, "
+          + "d.created_at, d.updated_at "
+          + "FROM event_user_data_current c JOIN event_user_data d ON d.id = c.user_data_id "
+          + "LEFT JOIN event_user_data s ON s.id = d.base_id "
+          + "WHERE c.event_id = #{eventId} ORDER BY c.user_id")
+  @Options(fetchSize = 256)
+  @ResultMap("eventUserDataResultMap")
+  void streamLatestByEventId(
+      @Param("eventId") Long eventId, ResultHandler<EventUserData> resultHandler);
+
   @Select(
-      "SELECT id, event_id, user_id, user_data::text as user_data, "
-          + "usermeta::text as usermeta, sysmeta::text as sysmeta, created_at, updated_at "
-          + "FROM event_user_data WHERE event_id = #{eventId} "
-          + "ORDER BY created_at DESC")
+      "SELECT d.id, d.event_id, d.user_id, "
+          + "CASE WHEN d.base_id IS NULL THEN d.user_data "
+          + "ELSE jsonb_merge_patch(s.user_data, d.user_data) END::text as user_data, "
+          + "d.base_id, d.delta_seq, d.usermeta::text as usermeta, d.sysmeta::text as sysmeta, "
+          + "d.created_at, d.updated_at "
+          + "FROM event_user_data_current c JOIN event_user_data d ON d.id = c.user_data_id "
+          + "LEFT JOIN event_user_data s ON s.id = d.base_id "
+          + "WHERE c.event_id = #{eventId} AND c.user_id = "
+          + "ANY(#{userIds, typeHandler=org.apache.ibatis.type.ArrayTypeHandler})")
+  @ResultMap("eventUserDataResultMap")
+  List<EventUserData> findLatestByEventIdAndUserIds(
+      @Param("eventId") Long eventId, @Param("userIds") Long[] userIds);
+
+  @Select(
+      "SELECT d.id, d.event_id, d.user_id, "
+          + "CASE WHEN d.base_id IS NULL THEN d.user_data "
+          + "ELSE jsonb_merge_patch(s.user_data, d.user_data) END::text as user_data, "
+          + "d.base_id, d.delta_seq, d.usermeta::text as usermeta, d.sysmeta::text as sysmeta, "
+          + "d.created_at, d.updated_at "
+          + "FROM event_user_data d LEFT JOIN event_user_data s ON s.id = d.base_id "
+          + "WHERE d.event_id = #{eventId} "
+          + "ORDER BY d.created_at DESC")
   @ResultMap("eventUserDataResultMap")
   List<EventUserData> findByEventId(@Param("eventId") Long eventId);
 
+  @Select("SELECT COALESCE(MAX(id), 0) FROM event_user_data")
+  long findMaxId();
+
+  /**
+   * Deletes revisions with IDs in {@code (afterId, upToId]} that were created before the cutoff and
+   * have at least {@code keepLast} newer revisions for the same event and user. The current
+   * revision and snapshots that a delta still applies to are kept, and rows locked by a concurrent
+   * writer are skipped.
+   */
+  @Delete(
+      "DELETE FROM event_user_data WHERE id IN (SELECT c.id FROM event_user_data c "
+          + "WHERE c.id > #{afterId} AND c.id <= #{upToId} AND c.created_at < #{cutoff} "
+          + "AND (SELECT COUNT(*) FROM (SELECT 1 FROM event_user_data n "
+          + "WHERE n.event_id = c.event_id AND n.user_id = c.user_id "
+          + "AND (n.created_at, n.id) > (c.created_at, c.id) LIMIT #{keepLast}) newer) "
+          + ">= #{keepLast} AND NOT EXISTS (SELECT 1 FROM event_user_data r WHERE r.base_id = c.id) "
+          + "AND NOT EXISTS (SELECT 1 FROM event_user_data_current p WHERE p.user_data_id = c.id) "
+          + "FOR UPDATE SKIP LOCKED)")
+  int deleteExpiredRevisions(
+      @Param("afterId") long afterId,
+      @Param("upToId") long upToId,
+      @Param("cutoff") LocalDateTime cutoff,
+      @Param("keepLast") int keepLast);
+
   @Update(
       "UPDATE event_user_data SET usermeta = #{usermeta}::jsonb, sysmeta = #{sysmeta}::jsonb, updated_at = #{updatedAt} WHERE id = #{id}")
   void updateRevisionMeta(EventUserData eventUserData);
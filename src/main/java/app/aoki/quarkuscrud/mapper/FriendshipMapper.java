@@ -1,6 +1,7 @@
 package app.aoki.quarkuscrud.mapper;
 
 import app.aoki.quarkuscrud.entity.Friendship;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import org.apache.ibatis.annotations.Delete;
@@ -13,6 +14,7 @@ import org.apache.ibatis.annotations.ResultMap;
 import org.apache.ibatis.annotations.Results;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.session.ResultHandler;
 
 @Mapper
 public interface FriendshipMapper {
@@ -43,19 +45,52 @@ public interface FriendshipMapper {
   @ResultMap("friendshipResultMap")
   List<Friendship> findByRecipientId(@Param("recipientId") Long recipientId);
 
+  @Select("SELECT id, sender_id, recipient_id, usermeta::text as usermeta, sysmeta::text as sysmeta, created_at, updated_at FROM friendships WHERE recipient_id = #{recipientId} AND (created_at, id) < (#{afterCreatedAt}, #{afterId}) ORDER BY created_at DESC, id DESC LIMIT #{limit}")
+  @ResultMap("friendshipResultMap")
+  List<Friendship> findPageByRecipientId(
+      @Param("recipientId") Long recipientId,
+      @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+      @Param("afterId") Long afterId,
+      @Param("limit") int limit);
+
   @Select("SELECT id, sender_id, recipient_id, usermeta::text as usermeta, sysmeta::text as sysmeta, created_at, updated_at FROM friendships WHERE sender_id = #{senderId} AND recipient_id = #{recipientId}")
   @ResultMap("friendshipResultMap")
   Optional<Friendship> findBySenderAndRecipient(
       @Param("senderId") Long senderId, @Param("recipientId") Long recipientId);
 
-  @Select("SELECT id, sender_id, recipient_id, usermeta::text as usermeta, sysmeta::text as sysmeta, created_at, updated_at FROM friendships WHERE (sender_id = #{userId1} AND recipient_id = #{userId2}) OR (sender_id = #{userId2} AND recipient_id = #{userId1}) LIMIT 1")
+  /**
+   * Streams the sender and recipient of every friendship, ordered by sender then recipient. Only
+   * {@code senderId} and {@code recipientId} are set on the rows handed out.
+   */
+  @Select("SELECT sender_id, recipient_id FROM friendships ORDER BY sender_id, recipient_id")
+  @Options(fetchSize = 4096)
   @ResultMap("friendshipResultMap")
-  Optional<Friendship> findByParticipants(
-      @Param("userId1") Long userId1, @Param("userId2") Long userId2);
+  void streamEdges(ResultHandler<Friendship> resultHandler);
 
-  @Select("SELECT EXISTS(SELECT 1 FROM friendships WHERE (sender_id = #{userId1} AND recipient_id = #{userId2}) OR (sender_id = #{userId2} AND recipient_id = #{userId1}))")
+  /**
+   * Checks whether a friendship exists between two users. Both directions of a friendship are
+   * always stored, so one direction is enough and the lookup is a single probe of the unique pair
+   * index.
+   */
+  @Select("SELECT EXISTS(SELECT 1 FROM friendships WHERE sender_id = #{userId1} AND recipient_id = #{userId2})")
   boolean existsBetweenUsers(@Param("userId1") Long userId1, @Param("userId2") Long userId2);
 
+  /**
+   * Creates both directions of a friendship, or touches them if they exist, in one statement.
+   * Existing rows get the new usermeta and update time only when usermeta is non-null. Nothing is
+   * written if the recipient does not exist. Rows are written in sender order, so concurrent
+   * exchanges between the same two users lock them in the same order. Returns the rows written,
+   * one per direction.
+   */
+  @Select("INSERT INTO friendships (sender_id, recipient_id, usermeta, sysmeta, created_at, updated_at) SELECT p.sender_id, p.recipient_id, #{usermeta}::jsonb, NULL, #{now}, #{now} FROM (VALUES (#{senderId}::bigint, #{recipientId}::bigint), (#{recipientId}::bigint, #{senderId}::bigint)) AS p(sender_id, recipient_id) WHERE EXISTS (SELECT 1 FROM users WHERE id = #{recipientId}) ORDER BY p.sender_id ON CONFLICT (sender_id, recipient_id) DO UPDATE SET usermeta = COALESCE(EXCLUDED.usermeta, friendships.usermeta), sysmeta = CASE WHEN EXCLUDED.usermeta IS NULL THEN friendships.sysmeta END, updated_at = CASE WHEN EXCLUDED.usermeta IS NULL THEN friendships.updated_at ELSE EXCLUDED.updated_at END RETURNING id, sender_id, recipient_id, usermeta::text as usermeta, sysmeta::text as sysmeta, created_at, updated_at")
+  @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+  @ResultMap("friendshipResultMap")
+  List<Friendship> upsertPair(
+      @Param("senderId") Long senderId,
+      @Param("recipientId") Long recipientId,
+      @Param("usermeta") String usermeta,
+      @Param("now") LocalDateTime now);
+
   @Update("UPDATE friendships SET usermeta = #{usermeta}::jsonb, sysmeta = #{sysmeta}::jsonb, updated_at = #{updatedAt} WHERE id = #{id}")
   void updateMeta(Friendship friendship);
 
@@ -1,6 +1,7 @@
 package app.aoki.quarkuscrud.mapper;
 
 import app.aoki.quarkuscrud.entity.AccountLifecycle;
+import app.aoki.quarkuscrud.entity.AuthMethod;
 import app.aoki.quarkuscrud.entity.User;
 import app.aoki.quarkuscrud.mapper.type.AccountLifecycleTypeHandler;
 import java.util.Optional;
@@ -10,6 +11,7 @@ import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Result;
+import org.apache.ibatis.annotations.ResultMap;
 import org.apache.ibatis.annotations.Results;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
@@ -41,6 +43,17 @@ public interface UserMapper {
       })
   Optional<User> findById(@Param("id") Long id);
 
+  @Select(
+      "SELECT u.id, u.account_lifecycle, u.usermeta::text as usermeta, u.sysmeta::text as sysmeta, u.created_at, u.updated_at FROM users u JOIN authn_providers ap ON ap.user_id = u.id WHERE ap.auth_identifier = #{authIdentifier}")
+  @ResultMap("userResultMap")
+  Optional<User> findByAuthIdentifier(@Param("authIdentifier") String authIdentifier);
+
+  @Select(
+      "SELECT u.id, u.account_lifecycle, u.usermeta::text as usermeta, u.sysmeta::text as sysmeta, u.created_at, u.updated_at FROM users u JOIN authn_providers ap ON ap.user_id = u.id WHERE ap.auth_method = #{authMethod, typeHandler=app.aoki.quarkuscrud.mapper.AuthMethodTypeHandler} AND ap.external_subject = #{externalSubject}")
+  @ResultMap("userResultMap")
+  Optional<User> findByMethodAndExternalSubject(
+      @Param("authMethod") AuthMethod authMethod, @Param("externalSubject") String externalSubject);
+
   @Update(
       "UPDATE users SET "
           + "account_lifecycle = "
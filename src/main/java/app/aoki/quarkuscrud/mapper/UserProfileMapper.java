@@ -1,6 +1,7 @@
 package app.aoki.quarkuscrud.mapper;
 
 import app.aoki.quarkuscrud.entity.UserProfile;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import org.apache.ibatis.annotations.Delete;
@@ -21,6 +22,10 @@ public interface UserProfileMapper {
   @Options(useGeneratedKeys = true, keyProperty = "id")
   void insert(UserProfile userProfile);
 
+  /** Makes a revision the user's current profile. Called in the transaction that inserts it. */
+  @Insert("INSERT INTO user_profile_current (user_id, profile_id) VALUES (#{userId}, #{profileId}) ON CONFLICT (user_id) DO UPDATE SET profile_id = EXCLUDED.profile_id")
+  void setCurrent(@Param("userId") Long userId, @Param("profileId") Long profileId);
+
   @Select("SELECT id, user_id, profile_data::text as profile_data, usermeta::text as usermeta, sysmeta::text as sysmeta, created_at, updated_at FROM user_profiles WHERE id = #{id}")
   @Results(
       id = "userProfileResultMap",
@@ -39,10 +44,29 @@ public interface UserProfileMapper {
   @ResultMap("userProfileResultMap")
   List<UserProfile> findByUserId(@Param("userId") Long userId);
 
-  @Select("SELECT id, user_id, profile_data::text as profile_data, usermeta::text as usermeta, sysmeta::text as sysmeta, created_at, updated_at FROM user_profiles WHERE user_id = #{userId} ORDER BY created_at DESC LIMIT 1")
+  @Select("SELECT p.id, p.user_id, p.profile_data::text as profile_data, p.usermeta::text as usermeta, p.sysmeta::text as sysmeta, p.created_at, p.updated_at FROM user_profile_current c JOIN user_profiles p ON p.id = c.profile_id WHERE c.user_id = #{userId}")
   @ResultMap("userProfileResultMap")
   Optional<UserProfile> findLatestByUserId(@Param("userId") Long userId);
 
+  @Select("SELECT p.id, p.user_id, p.profile_data::text as profile_data, p.usermeta::text as usermeta, p.sysmeta::text as sysmeta, p.created_at, p.updated_at FROM user_profile_current c JOIN user_profiles p ON p.id = c.profile_id WHERE c.user_id = ANY(#{userIds, typeHandler=org.apache.ibatis.type.ArrayTypeHandler})")
+  @ResultMap("userProfileResultMap")
+  List<UserProfile> findLatestByUserIds(@Param("userIds") Long[] userIds);
+
+  @Select("SELECT COALESCE(MAX(id), 0) FROM user_profiles")
+  long findMaxId();
+
+  /**
+   * Deletes revisions with IDs in {@code (afterId, upToId]} that were created before the cutoff and
+   * have at least {@code keepLast} newer revisions for the same user. The current revision is
+   * always kept, and rows locked by a concurrent writer are skipped.
+   */
+  @Delete("DELETE FROM user_profiles WHERE id IN (SELECT c.id FROM user_profiles c WHERE c.id > #{afterId} AND c.id <= #{upToId} AND c.created_at < #{cutoff} AND (SELECT COUNT(*) FROM (SELECT 1 FROM user_profiles n WHERE n.user_id = c.user_id AND (n.created_at, n.id) > (c.created_at, c.id) LIMIT #{keepLast}) newer) >= #{keepLast} AND NOT EXISTS (SELECT 1 FROM user_profile_current p WHERE p.profile_id = c.id) FOR UPDATE SKIP LOCKED)")
+  int deleteExpiredRevisions(
+      @Param("afterId") long afterId,
+      @Param("upToId") long upToId,
+      @Param("cutoff") LocalDateTime cutoff,
+      @Param("keepLast") int keepLast);
+
   @Update("UPDATE user_profiles SET usermeta = #{usermeta}::jsonb, sysmeta = #{sysmeta}::jsonb, updated_at = #{updatedAt} WHERE id = #{id}")
   void updateRevisionMeta(UserProfile userProfile);
 
@@ -0,0 +1,130 @@
+package app.aoki.quarkuscrud.metrics;
+
+import app.aoki.quarkuscrud.entity.AuthMethod;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.runtime.Startup;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pre-registered meters for authentication and guest sign-up.
+ *
+ * <p>Every counter and timer is resolved once at startup, so recording on the request path is a
+ * plain field access instead of a registry lookup with freshly allocated tag arrays.
+ *
+ * <p>Every {@code authentication.attempts} counter carries the same tag keys, {@code auth_method},
+ * {@code result} and {@code reason}, because Prometheus keeps only one tag-key set per name.
+ * Attempts rejected before the method is known report {@code auth_method="none"}, and attempts
+ * that reach the user lookup report {@code reason="none"}.
+ */
+@Startup
+@ApplicationScoped
+public class AuthMetrics {
+
+  @Inject MeterRegistry meterRegistry;
+
+  private Counter invalidJwt;
+  private Counter emptySubject;
+  private final Map<AuthMethod, Counter> successfulAttempts = new EnumMap<>(AuthMethod.class);
+  private final Map<AuthMethod, Counter> failedAttempts = new EnumMap<>(AuthMethod.class);
+  private final Map<AuthMethod, Timer> authenticationTime = new EnumMap<>(AuthMethod.class);
+
+  private Counter guestsCreated;
+  private Counter guestErrors;
+  private Timer guestCreationTime;
+
+  private final AtomicLong guestPoolDepth = new AtomicLong();
+  private Timer guestPoolClaimed;
+  private Timer guestPoolEmpty;
+  private Counter guestPoolProvisioned;
+
+  @PostConstruct
+  void register() {
+    invalidJwt = attempts("none", "failed", "invalid_jwt");
+    emptySubject = attempts("none", "failed", "empty_subject");
+    for (AuthMethod authMethod : AuthMethod.values()) {
+      String method = authMethod.name().toLowerCase();
+      successfulAttempts.put(authMethod, attempts(method, "success", "none"));
+      failedAttempts.put(authMethod, attempts(method, "failed", "none"));
+      authenticationTime.put(
+          authMethod,
+          Timer.builder("authentication.time")
+              .description("Time taken to authenticate a user")
+              .tag("auth_method", method)
+              .register(meterRegistry));
+    }
+
+    guestsCreated = meterRegistry.counter("api.guests.created");
+    guestErrors = meterRegistry.counter("api.guests.errors");
+    guestCreationTime = meterRegistry.timer("api.guests.creation.time");
+
+    Gauge.builder("guests.pool.depth", guestPoolDepth, AtomicLong::get)
+        .description("Number of pre-provisioned anonymous users waiting to be claimed")
+        .register(meterRegistry);
+    guestPoolClaimed = meterRegistry.timer("guests.pool.claim.time", "result", "claimed");
+    guestPoolEmpty = meterRegistry.timer("guests.pool.claim.time", "result", "empty");
+    guestPoolProvisioned = meterRegistry.counter("guests.pool.provisioned");
+  }
+
+  private Counter attempts(String authMethod, String result, String reason) {
+    return Counter.builder("authentication.attempts")
+        .description("Number of authentication attempts")
+        .tag("auth_method", authMethod)
+        .tag("result", result)
+        .tag("reason", reason)
+        .register(meterRegistry);
+  }
+
+  /** Starts a timing sample against this registry's clock. */
+  public Timer.Sample startTimer() {
+    return Timer.start(meterRegistry);
+  }
+
+  public void recordInvalidJwt() {
+    invalidJwt.increment();
+  }
+
+  public void recordEmptySubject() {
+    emptySubject.increment();
+  }
+
+  public void recordAttempt(AuthMethod authMethod, boolean success) {
+    (success ? successfulAttempts : failedAttempts).get(authMethod).increment();
+  }
+
+  public Timer authenticationTime(AuthMethod authMethod) {
+    return authenticationTime.get(authMethod);
+  }
+
+  public void recordGuestCreated() {
+    guestsCreated.increment();
+  }
+
+  public void recordGuestError() {
+    guestErrors.increment();
+  }
+
+  public Timer guestCreationTime() {
+    return guestCreationTime;
+  }
+
+  /** Live pool depth backing the {@code guests.pool.depth} gauge. */
+  public AtomicLong guestPoolDepth() {
+    return guestPoolDepth;
+  }
+
+  public Timer guestPoolClaimTime(boolean claimed) {
+    return claimed ? guestPoolClaimed : guestPoolEmpty;
+  }
+
+  public void recordGuestPoolProvisioned(int count) {
+    guestPoolProvisioned.increment(count);
+  }
+}
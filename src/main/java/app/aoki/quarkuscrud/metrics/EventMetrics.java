@@ -0,0 +1,219 @@
+package app.aoki.quarkuscrud.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.runtime.Startup;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Pre-registered meters for the events API. */
+@Startup
+@ApplicationScoped
+public class EventMetrics {
+
+  /** Event operations, used as the {@code operation} tag on {@code events.errors}. */
+  public enum Operation {
+    CREATE,
+    DELETE,
+    UPDATE,
+    JOIN
+  }
+
+  /** Non-success outcomes of delete and update requests. */
+  public enum Rejection {
+    NOT_FOUND,
+    FORBIDDEN
+  }
+
+  /** Outcomes of join-by-code requests. */
+  public enum JoinResult {
+    SUCCESS,
+    INVALID,
+    CONFLICT
+  }
+
+  @Inject MeterRegistry meterRegistry;
+
+  private final Map<Operation, Counter> errors = new EnumMap<>(Operation.class);
+  private final Map<Rejection, Counter> deleteRejections = new EnumMap<>(Rejection.class);
+  private final Map<Rejection, Counter> updateRejections = new EnumMap<>(Rejection.class);
+  private final Map<JoinResult, Counter> joins = new EnumMap<>(JoinResult.class);
+  private Counter created;
+  private Counter readFound;
+  private Counter readNotFound;
+  private Counter deleted;
+  private Counter updated;
+  private Timer creationTime;
+  private Timer readTime;
+  private Timer deleteTime;
+  private Timer updateTime;
+  private final AtomicLong invitationCodesInUse = new AtomicLong();
+  private Counter invitationCodeCollisions;
+  private final AtomicLong liveSubscribers = new AtomicLong();
+  private Timer liveFanoutTime;
+  private Counter liveSubscribersDropped;
+  private Counter expirySwept;
+  private final AtomicLong expiryLagSeconds = new AtomicLong();
+  private Timer expirySweepTime;
+  private Counter attendeeCountsRepaired;
+
+  @PostConstruct
+  void register() {
+    for (Operation operation : Operation.values()) {
+      errors.put(
+          operation,
+          meterRegistry.counter("events.errors", "operation", operation.name().toLowerCase()));
+    }
+    for (Rejection rejection : Rejection.values()) {
+      String result = rejection.name().toLowerCase();
+      deleteRejections.put(rejection, meterRegistry.counter("events.delete", "result", result));
+      updateRejections.put(rejection, meterRegistry.counter("events.update", "result", result));
+    }
+    for (JoinResult joinResult : JoinResult.values()) {
+      joins.put(
+          joinResult,
+          meterRegistry.counter("events.join", "result", joinResult.name().toLowerCase()));
+    }
+    created = meterRegistry.counter("events.created");
+    readFound = meterRegistry.counter("events.read", "result", "found");
+    readNotFound = meterRegistry.counter("events.read", "result", "not_found");
+    deleted = meterRegistry.counter("events.deleted");
+    updated = meterRegistry.counter("events.updated");
+    creationTime = meterRegistry.timer("events.creation.time");
+    readTime = meterRegistry.timer("events.read.time");
+    deleteTime = meterRegistry.timer("events.delete.time");
+    updateTime = meterRegistry.timer("events.update.time");
+    Gauge.builder("events.invitation_codes.in_use", invitationCodesInUse, AtomicLong::get)
+        .description("Invitation codes held by active events, as seen by this replica")
+        .register(meterRegistry);
+    invitationCodeCollisions =
+        Counter.builder("events.invitation_codes.collisions")
+            .description("Allocated invitation codes rejected by the database guard")
+            .register(meterRegistry);
+    Gauge.builder("events.live.subscribers", liveSubscribers, AtomicLong::get)
+        .description("Open live event streams on this replica")
+        .register(meterRegistry);
+    liveFanoutTime =
+        Timer.builder("events.live.fanout.time")
+            .description("Time to hand one update to every subscriber of its event")
+            .register(meterRegistry);
+    liveSubscribersDropped =
+        Counter.builder("events.live.dropped")
+            .description("Live streams closed because the client fell behind")
+            .register(meterRegistry);
+    expirySwept =
+        Counter.builder("events.expiry.swept")
+            .description("Events moved to EXPIRED by the expiry sweeper")
+            .register(meterRegistry);
+    Gauge.builder("events.expiry.lag", expiryLagSeconds, AtomicLong::get)
+        .description("Seconds the most overdue event of this replica's last sweep was past expiry")
+        .baseUnit("seconds")
+        .register(meterRegistry);
+    expirySweepTime =
+        Timer.builder("events.expiry.sweep.time")
+            .description("Duration of one expiry sweep run")
+            .register(meterRegistry);
+    attendeeCountsRepaired =
+        Counter.builder("events.attendee_count.repaired")
+            .description("Events whose denormalized attendee count had drifted and was reset")
+            .register(meterRegistry);
+  }
+
+  /** Starts a timing sample against this registry's clock. */
+  public Timer.Sample startTimer() {
+    return Timer.start(meterRegistry);
+  }
+
+  public void recordError(Operation operation) {
+    errors.get(operation).increment();
+  }
+
+  public void recordCreated() {
+    created.increment();
+  }
+
+  public Timer creationTime() {
+    return creationTime;
+  }
+
+  public void recordRead(boolean found) {
+    (found ? readFound : readNotFound).increment();
+  }
+
+  public Timer readTime() {
+    return readTime;
+  }
+
+  public void recordDeleted() {
+    deleted.increment();
+  }
+
+  public void recordDeleteRejected(Rejection rejection) {
+    deleteRejections.get(rejection).increment();
+  }
+
+  public Timer deleteTime() {
+    return deleteTime;
+  }
+
+  public void recordUpdated() {
+    updated.increment();
+  }
+
+  public void recordUpdateRejected(Rejection rejection) {
+    updateRejections.get(rejection).increment();
+  }
+
+  public Timer updateTime() {
+    return updateTime;
+  }
+
+  public void recordJoin(JoinResult joinResult) {
+    joins.get(joinResult).increment();
+  }
+
+  /** Live count backing the {@code events.invitation_codes.in_use} gauge. */
+  public AtomicLong invitationCodesInUse() {
+    return invitationCodesInUse;
+  }
+
+  public void recordInvitationCodeCollision() {
+    invitationCodeCollisions.increment();
+  }
+
+  /** Live count backing the {@code events.live.subscribers} gauge. */
+  public AtomicLong liveSubscribers() {
+    return liveSubscribers;
+  }
+
+  public Timer liveFanoutTime() {
+    return liveFanoutTime;
+  }
+
+  public void recordLiveSubscriberDropped() {
+    liveSubscribersDropped.increment();
+  }
+
+  public void recordExpirySwept(int count) {
+    expirySwept.increment(count);
+  }
+
+  /** Live value backing the {@code events.expiry.lag} gauge. */
+  public AtomicLong expiryLagSeconds() {
+    return expiryLagSeconds;
+  }
+
+  public Timer expirySweepTime() {
+    return expirySweepTime;
+  }
+
+  public void recordAttendeeCountsRepaired(int count) {
+    attendeeCountsRepaired.increment(count);
+  }
+}
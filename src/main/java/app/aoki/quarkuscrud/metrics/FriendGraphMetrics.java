@@ -0,0 +1,72 @@
+package app.aoki.quarkuscrud.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.runtime.Startup;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Pre-registered meters for the in-memory friend graph. */
+@Startup
+@ApplicationScoped
+public class FriendGraphMetrics {
+
+  @Inject MeterRegistry meterRegistry;
+
+  private final AtomicLong users = new AtomicLong();
+  private final AtomicLong edges = new AtomicLong();
+  private final AtomicLong memoryBytes = new AtomicLong();
+  private final AtomicLong pendingEdges = new AtomicLong();
+  private Timer rebuildTime;
+
+  @PostConstruct
+  void register() {
+    Gauge.builder("friends.graph.users", users, AtomicLong::get)
+        .description("Users with at least one friend in the last friend graph build")
+        .register(meterRegistry);
+    Gauge.builder("friends.graph.edges", edges, AtomicLong::get)
+        .description("Directed friendship edges in the last friend graph build")
+        .register(meterRegistry);
+    Gauge.builder("friends.graph.memory", memoryBytes, AtomicLong::get)
+        .description("Size of the adjacency arrays of the last friend graph build")
+        .baseUnit("bytes")
+        .register(meterRegistry);
+    Gauge.builder("friends.graph.pending", pendingEdges, AtomicLong::get)
+        .description("Friendships recorded on this replica since the last friend graph build")
+        .register(meterRegistry);
+    rebuildTime =
+        Timer.builder("friends.graph.rebuild.time")
+            .description("Time to load the friend graph from the database")
+            .register(meterRegistry);
+  }
+
+  /** Starts a timing sample against this registry's clock. */
+  public Timer.Sample startTimer() {
+    return Timer.start(meterRegistry);
+  }
+
+  public Timer rebuildTime() {
+    return rebuildTime;
+  }
+
+  /**
+   * Publishes the size of a freshly built graph.
+   *
+   * @param userCount users with at least one friend
+   * @param edgeCount directed edges
+   * @param bytes size of the adjacency arrays
+   */
+  public void recordBuilt(long userCount, long edgeCount, long bytes) {
+    users.set(userCount);
+    edges.set(edgeCount);
+    memoryBytes.set(bytes);
+  }
+
+  /** Live count backing the {@code friends.graph.pending} gauge. */
+  public AtomicLong pendingEdges() {
+    return pendingEdges;
+  }
+}
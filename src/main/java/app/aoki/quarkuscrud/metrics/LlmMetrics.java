@@ -0,0 +1,51 @@
+package app.aoki.quarkuscrud.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.runtime.Startup;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/** Pre-registered meters for the LLM API. */
+@Startup
+@ApplicationScoped
+public class LlmMetrics {
+
+  @Inject MeterRegistry meterRegistry;
+
+  private Counter fakeNamesSuccess;
+  private Counter fakeNamesError;
+  private Counter rateLimitExceeded;
+  private Timer fakeNamesDuration;
+
+  @PostConstruct
+  void register() {
+    fakeNamesSuccess = meterRegistry.counter("api.llm.fake_names.success");
+    fakeNamesError = meterRegistry.counter("api.llm.fake_names.error");
+    rateLimitExceeded = meterRegistry.counter("api.llm.rate_limit_exceeded");
+    fakeNamesDuration = meterRegistry.timer("api.llm.fake_names.duration");
+  }
+
+  /** Starts a timing sample against this registry's clock. */
+  public Timer.Sample startTimer() {
+    return Timer.start(meterRegistry);
+  }
+
+  public void recordFakeNamesSuccess() {
+    fakeNamesSuccess.increment();
+  }
+
+  public void recordFakeNamesError() {
+    fakeNamesError.increment();
+  }
+
+  public void recordRateLimitExceeded() {
+    rateLimitExceeded.increment();
+  }
+
+  public Timer fakeNamesDuration() {
+    return fakeNamesDuration;
+  }
+}
@@ -0,0 +1,60 @@
+package app.aoki.quarkuscrud.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.runtime.Startup;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.EnumMap;
+import java.util.Map;
+
+/** Pre-registered meters for revision history maintenance. */
+@Startup
+@ApplicationScoped
+public class RevisionMetrics {
+
+  /** Revisioned tables, used as the {@code table} tag. */
+  public enum RevisionTable {
+    EVENT_USER_DATA,
+    USER_PROFILES
+  }
+
+  @Inject MeterRegistry meterRegistry;
+
+  private final Map<RevisionTable, Counter> compacted = new EnumMap<>(RevisionTable.class);
+  private final Map<RevisionTable, Timer> compactionTime = new EnumMap<>(RevisionTable.class);
+
+  @PostConstruct
+  void register() {
+    for (RevisionTable table : RevisionTable.values()) {
+      String tag = table.name().toLowerCase();
+      compacted.put(
+          table,
+          Counter.builder("revisions.compacted")
+              .description("Revisions deleted by the retention policy")
+              .tag("table", tag)
+              .register(meterRegistry));
+      compactionTime.put(
+          table,
+          Timer.builder("revisions.compaction.time")
+              .description("Duration of one compaction pass over a table")
+              .tag("table", tag)
+              .register(meterRegistry));
+    }
+  }
+
+  /** Starts a timing sample against this registry's clock. */
+  public Timer.Sample startTimer() {
+    return Timer.start(meterRegistry);
+  }
+
+  public void recordCompacted(RevisionTable table, int count) {
+    compacted.get(table).increment(count);
+  }
+
+  public Timer compactionTime(RevisionTable table) {
+    return compactionTime.get(table);
+  }
+}
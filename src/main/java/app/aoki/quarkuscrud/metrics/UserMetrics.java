@@ -0,0 +1,130 @@
+package app.aoki.quarkuscrud.metrics;
+
+import app.aoki.quarkuscrud.entity.AuthMethod;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.runtime.Startup;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Pre-registered meters for user lifecycle operations and lookups.
+ *
+ * <p>Every {@code users.lookup} counter carries the same tag keys, {@code method}, {@code
+ * auth_method} and {@code result}, since Prometheus drops meters whose tag keys differ from the
+ * first one registered under a name. Lookups by ID or auth identifier are not tied to an
+ * authentication method and report {@code auth_method="none"}.
+ */
+@Startup
+@ApplicationScoped
+public class UserMetrics {
+
+  /** User lookup strategies, used as the {@code method} tag on lookup meters. */
+  public enum Lookup {
+    BY_ID,
+    BY_AUTH_IDENTIFIER
+  }
+
+  @Inject MeterRegistry meterRegistry;
+
+  private final Map<AuthMethod, Counter> created = new EnumMap<>(AuthMethod.class);
+  private final Map<AuthMethod, Counter> existingExternal = new EnumMap<>(AuthMethod.class);
+  private final Map<AuthMethod, Timer> getOrCreateTime = new EnumMap<>(AuthMethod.class);
+  private final Map<Lookup, Counter> lookupFound = new EnumMap<>(Lookup.class);
+  private final Map<Lookup, Counter> lookupNotFound = new EnumMap<>(Lookup.class);
+  private final Map<Lookup, Timer> lookupTime = new EnumMap<>(Lookup.class);
+  private Timer anonymousCreationTime;
+  private Counter updated;
+  private Timer updateTime;
+  private Counter deleted;
+  private Timer deleteTime;
+
+  @PostConstruct
+  void register() {
+    for (AuthMethod authMethod : AuthMethod.values()) {
+      String method = authMethod.name().toLowerCase();
+      created.put(
+          authMethod,
+          Counter.builder("users.created")
+              .description("Number of users created")
+              .tag("auth_method", method)
+              .register(meterRegistry));
+      existingExternal.put(authMethod, lookup("get_or_create", method, "existing"));
+      getOrCreateTime.put(
+          authMethod,
+          Timer.builder("users.getorcreate.time")
+              .description("Time taken to get or create a user")
+              .tag("auth_method", method)
+              .register(meterRegistry));
+    }
+    for (Lookup lookup : Lookup.values()) {
+      String method = lookup.name().toLowerCase();
+      lookupFound.put(lookup, lookup(method, "none", "found"));
+      lookupNotFound.put(lookup, lookup(method, "none", "not_found"));
+      lookupTime.put(lookup, meterRegistry.timer("users.lookup.time", "method", method));
+    }
+    anonymousCreationTime = meterRegistry.timer("users.creation.time", "auth_method", "anonymous");
+    updated = meterRegistry.counter("users.updated");
+    updateTime = meterRegistry.timer("users.update.time");
+    deleted = meterRegistry.counter("users.deleted");
+    deleteTime = meterRegistry.timer("users.delete.time");
+  }
+
+  private Counter lookup(String method, String authMethod, String result) {
+    return Counter.builder("users.lookup")
+        .description("Number of user lookups")
+        .tag("method", method)
+        .tag("auth_method", authMethod)
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+
+  /** Starts a timing sample against this registry's clock. */
+  public Timer.Sample startTimer() {
+    return Timer.start(meterRegistry);
+  }
+
+  public void recordCreated(AuthMethod authMethod) {
+    created.get(authMethod).increment();
+  }
+
+  public Timer anonymousCreationTime() {
+    return anonymousCreationTime;
+  }
+
+  public void recordExistingExternalUser(AuthMethod authMethod) {
+    existingExternal.get(authMethod).increment();
+  }
+
+  public Timer getOrCreateTime(AuthMethod authMethod) {
+    return getOrCreateTime.get(authMethod);
+  }
+
+  public void recordLookup(Lookup lookup, boolean found) {
+    (found ? lookupFound : lookupNotFound).get(lookup).increment();
+  }
+
+  public Timer lookupTime(Lookup lookup) {
+    return lookupTime.get(lookup);
+  }
+
+  public void recordUpdated() {
+    updated.increment();
+  }
+
+  public Timer updateTime() {
+    return updateTime;
+  }
+
+  public void recordDeleted() {
+    deleted.increment();
+  }
+
+  public Timer deleteTime() {
+    return deleteTime;
+  }
+}
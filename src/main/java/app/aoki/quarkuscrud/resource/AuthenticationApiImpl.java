@@ -2,13 +2,15 @@ package app.aoki.quarkuscrud.resource;
 
 import app.aoki.quarkuscrud.generated.api.AuthenticationApi;
 import app.aoki.quarkuscrud.generated.model.User;
+import app.aoki.quarkuscrud.metrics.AuthMetrics;
+import app.aoki.quarkuscrud.service.AnonymousAccount;
+import app.aoki.quarkuscrud.service.AnonymousUserPoolService;
 import app.aoki.quarkuscrud.service.JwtService;
 import app.aoki.quarkuscrud.service.UserService;
 import app.aoki.quarkuscrud.support.Authenticated;
 import app.aoki.quarkuscrud.support.AuthenticatedUser;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -27,30 +29,33 @@ public class AuthenticationApiImpl implements AuthenticationApi {
 
   @Inject UserService userService;
   @Inject JwtService jwtService;
+  @Inject AnonymousUserPoolService anonymousUserPoolService;
   @Inject AuthenticatedUser authenticatedUser;
   @Inject ObjectMapper objectMapper;
-  @Inject MeterRegistry meterRegistry;
+  @Inject AuthMetrics authMetrics;
 
   @Override
   public Response createGuestUser() {
     LOG.info("Request received: create guest user");
-    Timer.Sample sample = Timer.start(meterRegistry);
+    Timer.Sample sample = authMetrics.startTimer();
 
     try {
-      // Create a new user with anonymous authentication
-      app.aoki.quarkuscrud.entity.User user = userService.createAnonymousUser();
-      String token = jwtService.generateAnonymousToken(user);
+      // Claim a pre-provisioned user, creating one inline only if the pool is drained
+      AnonymousAccount account =
+          anonymousUserPoolService.claim().orElseGet(userService::createAnonymousAccount);
+      app.aoki.quarkuscrud.entity.User user = account.user();
+      String token = jwtService.generateToken(account.authnProvider());
 
-      meterRegistry.counter("api.guests.created").increment();
+      authMetrics.recordGuestCreated();
 
       LOG.infof("Successfully created guest user with ID: %d", user.getId());
       return Response.ok(toUserResponse(user)).header("Authorization", "Bearer " + token).build();
     } catch (Exception e) {
       LOG.errorf(e, "Failed to create guest user");
-      meterRegistry.counter("api.guests.errors").increment();
+      authMetrics.recordGuestError();
       throw e;
     } finally {
-      sample.stop(meterRegistry.timer("api.guests.creation.time"));
+      sample.stop(authMetrics.guestCreationTime());
     }
   }
 
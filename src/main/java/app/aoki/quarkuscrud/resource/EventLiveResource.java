@@ -0,0 +1,74 @@
+package app.aoki.quarkuscrud.resource;
+
+import app.aoki.quarkuscrud.entity.User;
+import app.aoki.quarkuscrud.generated.model.EventLiveEvent;
+import app.aoki.quarkuscrud.support.Authenticated;
+import app.aoki.quarkuscrud.support.AuthenticatedUser;
+import app.aoki.quarkuscrud.usecase.EventUseCase;
+import io.smallrye.common.annotation.Blocking;
+import io.smallrye.mutiny.Multi;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import java.time.Duration;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Server-Sent Events endpoint for live event updates.
+ *
+ * <p>This operation is tagged {@code Live} in the OpenAPI spec and implemented here by hand, since
+ * the generated interface can only return a {@code Response} and cannot stream.
+ */
+@ApplicationScoped
+@Path("/api")
+public class EventLiveResource {
+
+  @Inject EventUseCase eventUseCase;
+  @Inject AuthenticatedUser authenticatedUser;
+
+  @ConfigProperty(name = "app.live.heartbeat-interval", defaultValue = "15s")
+  Duration heartbeatInterval;
+
+  @Authenticated
+  @GET
+  @Path("/events/{eventId}/live")
+  @Produces(MediaType.SERVER_SENT_EVENTS)
+  @Blocking
+  public Multi<OutboundSseEvent> streamEventLive(
+      @PathParam("eventId") Long eventId, @Context Sse sse) {
+    User user = authenticatedUser.get();
+    Multi<EventLiveEvent> updates;
+    try {
+      updates = eventUseCase.streamEventLive(eventId, user.getId());
+    } catch (IllegalArgumentException | SecurityException e) {
+      // Non-members get the same answer as for a missing event
+      throw new NotFoundException("Event not found");
+    }
+
+    Multi<OutboundSseEvent> events =
+        updates.map(
+            update ->
+                sse.newEventBuilder()
+                    .name(update.getEventType().toString())
+                    .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                    .data(EventLiveEvent.class, update)
+                    .build());
+    // Comment lines keep proxies from closing an idle stream; clients ignore them
+    Multi<OutboundSseEvent> heartbeats =
+        Multi.createFrom()
+            .ticks()
+            .every(heartbeatInterval)
+            .onOverflow()
+            .drop()
+            .map(tick -> sse.newEventBuilder().comment("heartbeat").build());
+    return Multi.createBy().merging().streams(events, heartbeats);
+  }
+}
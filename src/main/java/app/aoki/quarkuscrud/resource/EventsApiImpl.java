@@ -6,16 +6,26 @@ import app.aoki.quarkuscrud.generated.model.Event;
 import app.aoki.quarkuscrud.generated.model.EventAttendee;
 import app.aoki.quarkuscrud.generated.model.EventCreateRequest;
 import app.aoki.quarkuscrud.generated.model.EventJoinByCodeRequest;
+import app.aoki.quarkuscrud.generated.model.EventSnapshot;
 import app.aoki.quarkuscrud.generated.model.EventUpdateRequest;
 import app.aoki.quarkuscrud.generated.model.EventUserData;
 import app.aoki.quarkuscrud.generated.model.EventUserDataUpdateRequest;
 import app.aoki.quarkuscrud.generated.model.UserMeta;
+import app.aoki.quarkuscrud.metrics.EventMetrics;
+import app.aoki.quarkuscrud.metrics.EventMetrics.JoinResult;
+import app.aoki.quarkuscrud.metrics.EventMetrics.Operation;
+import app.aoki.quarkuscrud.metrics.EventMetrics.Rejection;
+import app.aoki.quarkuscrud.service.Page;
+import app.aoki.quarkuscrud.service.PageRequest;
 import app.aoki.quarkuscrud.support.Authenticated;
 import app.aoki.quarkuscrud.support.AuthenticatedUser;
+import app.aoki.quarkuscrud.support.ConditionalGet;
 import app.aoki.quarkuscrud.support.ErrorResponse;
+import app.aoki.quarkuscrud.support.Pagination;
 import app.aoki.quarkuscrud.usecase.EventUseCase;
 import app.aoki.quarkuscrud.usecase.UsermetaUseCase;
-import io.micrometer.core.instrument.MeterRegistry;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.micrometer.core.instrument.Timer;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -27,9 +37,12 @@ import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
-import java.util.List;
+import jakarta.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import org.jboss.logging.Logger;
 
 @ApplicationScoped
@@ -41,7 +54,10 @@ public class EventsApiImpl implements EventsApi {
   @Inject EventUseCase eventUseCase;
   @Inject UsermetaUseCase usermetaUseCase;
   @Inject AuthenticatedUser authenticatedUser;
-  @Inject MeterRegistry meterRegistry;
+  @Inject EventMetrics eventMetrics;
+  @Inject Pagination pagination;
+  @Inject ConditionalGet conditionalGet;
+  @Inject ObjectMapper objectMapper;
 
   @Override
   @Authenticated
@@ -52,21 +68,21 @@ public class EventsApiImpl implements EventsApi {
   public Response createEvent(EventCreateRequest createEventRequest) {
     User user = authenticatedUser.get();
     LOG.infof("Creating event for user ID: %d", user.getId());
-    Timer.Sample sample = Timer.start(meterRegistry);
+    Timer.Sample sample = eventMetrics.startTimer();
 
     try {
       Event event = eventUseCase.createEvent(user.getId(), createEventRequest);
-      meterRegistry.counter("events.created").increment();
+      eventMetrics.recordCreated();
       LOG.infof("Successfully created event");
       return Response.status(Response.Status.CREATED).entity(event).build();
     } catch (Exception e) {
       LOG.errorf(e, "Failed to create event for user ID: %d", user.getId());
-      meterRegistry.counter("events.errors", "operation", "create").increment();
+      eventMetrics.recordError(Operation.CREATE);
       return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
           .entity(new ErrorResponse("Failed to create event: " + e.getMessage()))
           .build();
     } finally {
-      sample.stop(meterRegistry.timer("events.creation.time"));
+      sample.stop(eventMetrics.creationTime());
     }
   }
 
@@ -78,26 +94,26 @@ public class EventsApiImpl implements EventsApi {
   public Response getEventById(@PathParam("eventId") Long eventId) {
     User user = authenticatedUser.get();
     LOG.debugf("Fetching event ID: %d for user ID: %d", eventId, user.getId());
-    Timer.Sample sample = Timer.start(meterRegistry);
+    Timer.Sample sample = eventMetrics.startTimer();
 
     try {
       return eventUseCase
           .getEventById(eventId, user.getId())
           .map(
               event -> {
-                meterRegistry.counter("events.read", "result", "found").increment();
-                return Response.ok(event).build();
+                eventMetrics.recordRead(true);
+                return conditionalGet.ok(event);
               })
           .orElseGet(
               () -> {
                 LOG.warnf("Event not found with ID: %d", eventId);
-                meterRegistry.counter("events.read", "result", "not_found").increment();
+                eventMetrics.recordRead(false);
                 return Response.status(Response.Status.NOT_FOUND)
                     .entity(new ErrorResponse("Event not found"))
                     .build();
               });
     } finally {
-      sample.stop(meterRegistry.timer("events.read.time"));
+      sample.stop(eventMetrics.readTime());
     }
   }
 
@@ -108,33 +124,33 @@ public class EventsApiImpl implements EventsApi {
   public Response deleteEvent(@PathParam("eventId") Long eventId) {
     User user = authenticatedUser.get();
     LOG.infof("User %d attempting to delete event ID: %d", user.getId(), eventId);
-    Timer.Sample sample = Timer.start(meterRegistry);
+    Timer.Sample sample = eventMetrics.startTimer();
 
     try {
       eventUseCase.deleteEvent(eventId, user.getId());
-      meterRegistry.counter("events.deleted").increment();
+      eventMetrics.recordDeleted();
       LOG.infof("Successfully deleted event ID: %d", eventId);
       return Response.noContent().build();
     } catch (IllegalArgumentException e) {
       LOG.warnf("Event not found with ID: %d", eventId);
-      meterRegistry.counter("events.delete", "result", "not_found").increment();
+      eventMetrics.recordDeleteRejected(Rejection.NOT_FOUND);
       return Response.status(Response.Status.NOT_FOUND)
           .entity(new ErrorResponse(e.getMessage()))
           .build();
     } catch (SecurityException e) {
       LOG.warnf("User %d not authorized to delete event ID: %d", user.getId(), eventId);
-      meterRegistry.counter("events.delete", "result", "forbidden").increment();
+      eventMetrics.recordDeleteRejected(Rejection.FORBIDDEN);
       return Response.status(Response.Status.FORBIDDEN)
           .entity(new ErrorResponse(e.getMessage()))
           .build();
     } catch (Exception e) {
       LOG.errorf(e, "Failed to delete event ID: %d", eventId);
-      meterRegistry.counter("events.errors", "operation", "delete").increment();
+      eventMetrics.recordError(Operation.DELETE);
       return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
           .entity(new ErrorResponse("Failed to delete event: " + e.getMessage()))
           .build();
     } finally {
-      sample.stop(meterRegistry.timer("events.delete.time"));
+      sample.stop(eventMetrics.deleteTime());
     }
   }
 
@@ -148,33 +164,33 @@ public class EventsApiImpl implements EventsApi {
       @PathParam("eventId") Long eventId, EventUpdateRequest eventUpdateRequest) {
     User user = authenticatedUser.get();
     LOG.infof("User %d attempting to update event ID: %d", user.getId(), eventId);
-    Timer.Sample sample = Timer.start(meterRegistry);
+    Timer.Sample sample = eventMetrics.startTimer();
 
     try {
       Event event = eventUseCase.updateEvent(eventId, user.getId(), eventUpdateRequest);
-      meterRegistry.counter("events.updated").increment();
+      eventMetrics.recordUpdated();
       LOG.infof("Successfully updated event ID: %d", eventId);
       return Response.ok(event).build();
     } catch (IllegalArgumentException e) {
       LOG.warnf("Event not found with ID: %d", eventId);
-      meterRegistry.counter("events.update", "result", "not_found").increment();
+      eventMetrics.recordUpdateRejected(Rejection.NOT_FOUND);
       return Response.status(Response.Status.NOT_FOUND)
           .entity(new ErrorResponse(e.getMessage()))
           .build();
     } catch (SecurityException e) {
       LOG.warnf("User %d not authorized to update event ID: %d", user.getId(), eventId);
-      meterRegistry.counter("events.update", "result", "forbidden").increment();
+      eventMetrics.recordUpdateRejected(Rejection.FORBIDDEN);
       return Response.status(Response.Status.FORBIDDEN)
           .entity(new ErrorResponse(e.getMessage()))
           .build();
     } catch (Exception e) {
       LOG.errorf(e, "Failed to update event ID: %d", eventId);
-      meterRegistry.counter("events.errors", "operation", "update").increment();
+      eventMetrics.recordError(Operation.UPDATE);
       return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
           .entity(new ErrorResponse("Failed to update event: " + e.getMessage()))
           .build();
     } finally {
-      sample.stop(meterRegistry.timer("events.update.time"));
+      sample.stop(eventMetrics.updateTime());
     }
   }
 
@@ -190,24 +206,24 @@ public class EventsApiImpl implements EventsApi {
 
     try {
       EventAttendee attendee = eventUseCase.joinEventByCode(user.getId(), joinEventByCodeRequest);
-      meterRegistry.counter("events.join", "result", "success").increment();
+      eventMetrics.recordJoin(JoinResult.SUCCESS);
       LOG.infof("User %d successfully joined event", user.getId());
       return Response.status(Response.Status.CREATED).entity(attendee).build();
     } catch (IllegalArgumentException e) {
       LOG.warnf("Invalid join request from user %d: %s", user.getId(), e.getMessage());
-      meterRegistry.counter("events.join", "result", "invalid").increment();
+      eventMetrics.recordJoin(JoinResult.INVALID);
       return Response.status(Response.Status.BAD_REQUEST)
           .entity(new ErrorResponse(e.getMessage()))
           .build();
     } catch (IllegalStateException e) {
       LOG.warnf("Join conflict for user %d: %s", user.getId(), e.getMessage());
-      meterRegistry.counter("events.join", "result", "conflict").increment();
+      eventMetrics.recordJoin(JoinResult.CONFLICT);
       return Response.status(Response.Status.CONFLICT)
           .entity(new ErrorResponse(e.getMessage()))
           .build();
     } catch (Exception e) {
       LOG.errorf(e, "Failed to join event for user %d", user.getId());
-      meterRegistry.counter("events.errors", "operation", "join").increment();
+      eventMetrics.recordError(Operation.JOIN);
       return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
           .entity(new ErrorResponse("Failed to join event: " + e.getMessage()))
           .build();
@@ -219,19 +235,54 @@ public class EventsApiImpl implements EventsApi {
   @GET
   @Path("/events/{eventId}/attendees")
   @Produces(MediaType.APPLICATION_JSON)
-  public Response listEventAttendees(@PathParam("eventId") Long eventId) {
+  public Response listEventAttendees(
+      @PathParam("eventId") Long eventId,
+      @QueryParam("cursor") String cursor,
+      @QueryParam("limit") Integer limit) {
+    User user = authenticatedUser.get();
+    PageRequest page = pagination.request(cursor, limit);
+    try {
+      Page<EventAttendee> attendees = eventUseCase.listEventAttendees(eventId, user.getId(), page);
+      return pagination.ok(attendees);
+    } catch (IllegalArgumentException e) {
+      return Response.status(Response.Status.NOT_FOUND)
+          .entity(new ErrorResponse(e.getMessage()))
+          .build();
+    } catch (SecurityException e) {
+      return Response.status(Response.Status.FORBIDDEN)
+          .entity(new ErrorResponse(e.getMessage()))
+          .build();
+    }
+  }
+
+  @Override
+  @Authenticated
+  @GET
+  @Path("/events/{eventId}/snapshot")
+  @Produces(MediaType.APPLICATION_JSON)
+  public Response getEventSnapshot(
+      @PathParam("eventId") Long eventId,
+      @QueryParam("cursor") String cursor,
+      @QueryParam("limit") Integer limit) {
     User user = authenticatedUser.get();
+    PageRequest page = pagination.request(cursor, limit);
+    Timer.Sample sample = eventMetrics.startTimer();
     try {
-      List<EventAttendee> attendees = eventUseCase.listEventAttendees(eventId, user.getId());
-      return Response.ok(attendees).build();
+      EventSnapshot snapshot = eventUseCase.getEventSnapshot(eventId, user.getId(), page);
+      eventMetrics.recordRead(true);
+      return Response.ok(snapshot).build();
     } catch (IllegalArgumentException e) {
+      eventMetrics.recordRead(false);
       return Response.status(Response.Status.NOT_FOUND)
           .entity(new ErrorResponse(e.getMessage()))
           .build();
     } catch (SecurityException e) {
+      eventMetrics.recordRead(false);
       return Response.status(Response.Status.FORBIDDEN)
           .entity(new ErrorResponse(e.getMessage()))
           .build();
+    } finally {
+      sample.stop(eventMetrics.readTime());
     }
   }
 
@@ -240,11 +291,15 @@ public class EventsApiImpl implements EventsApi {
   @GET
   @Path("/users/{userId}/events")
   @Produces(MediaType.APPLICATION_JSON)
-  public Response listEventsByUser(@PathParam("userId") Long userId) {
+  public Response listEventsByUser(
+      @PathParam("userId") Long userId,
+      @QueryParam("cursor") String cursor,
+      @QueryParam("limit") Integer limit) {
     User user = authenticatedUser.get();
+    PageRequest page = pagination.request(cursor, limit);
     try {
-      List<Event> events = eventUseCase.listEventsByUser(userId, user.getId());
-      return Response.ok(events).build();
+      Page<Event> events = eventUseCase.listEventsByUser(userId, user.getId(), page);
+      return pagination.ok(events);
     } catch (IllegalArgumentException e) {
       return Response.status(Response.Status.NOT_FOUND)
           .entity(new ErrorResponse(e.getMessage()))
@@ -257,12 +312,14 @@ public class EventsApiImpl implements EventsApi {
   @GET
   @Path("/me/attended-events")
   @Produces(MediaType.APPLICATION_JSON)
-  public Response listMyAttendedEvents() {
+  public Response listMyAttendedEvents(
+      @QueryParam("cursor") String cursor, @QueryParam("limit") Integer limit) {
     User user = authenticatedUser.get();
+    PageRequest page = pagination.request(cursor, limit);
 
     try {
-      List<Event> events = eventUseCase.listAttendedEventsByUser(user.getId(), user.getId());
-      return Response.ok(events).build();
+      Page<Event> events = eventUseCase.listAttendedEventsByUser(user.getId(), user.getId(), page);
+      return pagination.ok(events);
     } catch (IllegalArgumentException e) {
       return Response.status(Response.Status.NOT_FOUND)
           .entity(new ErrorResponse(e.getMessage()))
@@ -273,20 +330,50 @@ public class EventsApiImpl implements EventsApi {
   @Override
   @Authenticated
   @GET
-  @Path("/events/{eventId}/live")
-  @Produces("text/event-stream")
-  public Response streamEventLive(@PathParam("eventId") Long eventId) {
+  @Path("/events/{eventId}/users")
+  @Produces(MediaType.APPLICATION_JSON)
+  public Response listEventUserData(@PathParam("eventId") Long eventId) {
+    User currentUser = authenticatedUser.get();
+    LOG.debugf("User %d requesting all event user data for event %d", currentUser.getId(), eventId);
+
     if (!eventUseCase.eventExists(eventId)) {
       return Response.status(Response.Status.NOT_FOUND)
           .entity(new ErrorResponse("Event not found"))
           .build();
     }
 
-    // SSE streaming implementation would go here
-    // For now, return not implemented
-    return Response.status(Response.Status.NOT_IMPLEMENTED)
-        .entity(new ErrorResponse("Live streaming not yet implemented"))
-        .build();
+    if (!eventUseCase.isUserAttendee(eventId, currentUser.getId())) {
+      return Response.status(Response.Status.FORBIDDEN)
+          .entity(new ErrorResponse("Access denied. You are not an attendee of this event."))
+          .build();
+    }
+
+    // Write each row as it is read instead of building the whole list first. If reading fails
+    // after the status line has gone out, the array is left unterminated so the client sees a
+    // broken body rather than a complete-looking partial list.
+    StreamingOutput body =
+        output -> {
+          try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+            generator.writeStartArray();
+            try {
+              eventUseCase.streamLatestEventUserData(
+                  eventId,
+                  data -> {
+                    try {
+                      generator.writeObject(data);
+                    } catch (IOException e) {
+                      throw new UncheckedIOException(e);
+                    }
+                  });
+            } catch (RuntimeException e) {
+              LOG.errorf(e, "Streaming user data for event %d failed part way", eventId);
+              throw e;
+            }
+            generator.writeEndArray();
+          }
+        };
+    return Response.ok(body).build();
   }
 
   @Override
@@ -318,7 +405,7 @@ public class EventsApiImpl implements EventsApi {
     // Get user data
     return eventUseCase
         .getEventUserData(eventId, userId)
-        .map(data -> Response.ok(data).build())
+        .map(conditionalGet::ok)
         .orElse(
             Response.status(Response.Status.NOT_FOUND)
                 .entity(new ErrorResponse("User data not found"))
@@ -380,8 +467,7 @@ public class EventsApiImpl implements EventsApi {
   public Response getEventMeta(@PathParam("eventId") Long eventId) {
     User user = authenticatedUser.get();
     try {
-      UserMeta metaData = usermetaUseCase.getEventMeta(eventId, user.getId());
-      return Response.ok(metaData).build();
+      return conditionalGet.ok(usermetaUseCase.getEventMeta(eventId, user.getId()));
     } catch (SecurityException e) {
       return Response.status(Response.Status.FORBIDDEN)
           .entity(new ErrorResponse(e.getMessage()))
@@ -426,8 +512,7 @@ public class EventsApiImpl implements EventsApi {
       @PathParam("eventId") Long eventId, @PathParam("userId") Long userId) {
     User user = authenticatedUser.get();
     try {
-      UserMeta metaData = usermetaUseCase.getEventUserDataMeta(eventId, userId, user.getId());
-      return Response.ok(metaData).build();
+      return conditionalGet.ok(usermetaUseCase.getEventUserDataMeta(eventId, userId, user.getId()));
     } catch (SecurityException e) {
       return Response.status(Response.Status.FORBIDDEN)
           .entity(new ErrorResponse(e.getMessage()))
@@ -472,9 +557,8 @@ public class EventsApiImpl implements EventsApi {
       @PathParam("eventId") Long eventId, @PathParam("attendeeUserId") Long attendeeUserId) {
     User user = authenticatedUser.get();
     try {
-      UserMeta metaData =
-          usermetaUseCase.getEventAttendeeMeta(eventId, attendeeUserId, user.getId());
-      return Response.ok(metaData).build();
+      return conditionalGet.ok(
+          usermetaUseCase.getEventAttendeeMeta(eventId, attendeeUserId, user.getId()));
     } catch (SecurityException e) {
       return Response.status(Response.Status.FORBIDDEN)
           .entity(new ErrorResponse(e.getMessage()))
@@ -5,9 +5,13 @@ import app.aoki.quarkuscrud.generated.api.FriendshipsApi;
 import app.aoki.quarkuscrud.generated.model.Friendship;
 import app.aoki.quarkuscrud.generated.model.ReceiveFriendshipRequest;
 import app.aoki.quarkuscrud.generated.model.UserMeta;
+import app.aoki.quarkuscrud.service.Page;
+import app.aoki.quarkuscrud.service.PageRequest;
 import app.aoki.quarkuscrud.support.Authenticated;
 import app.aoki.quarkuscrud.support.AuthenticatedUser;
+import app.aoki.quarkuscrud.support.ConditionalGet;
 import app.aoki.quarkuscrud.support.ErrorResponse;
+import app.aoki.quarkuscrud.support.Pagination;
 import app.aoki.quarkuscrud.usecase.FriendshipUseCase;
 import app.aoki.quarkuscrud.usecase.UsermetaUseCase;
 import jakarta.enterprise.context.ApplicationScoped;
@@ -20,8 +24,6 @@ import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
-import java.util.List;
-import org.postgresql.util.PSQLException;
 
 @ApplicationScoped
 @Path("/api")
@@ -30,6 +32,8 @@ public class FriendshipsApiImpl implements FriendshipsApi {
   @Inject FriendshipUseCase friendshipUseCase;
   @Inject UsermetaUseCase usermetaUseCase;
   @Inject AuthenticatedUser authenticatedUser;
+  @Inject ConditionalGet conditionalGet;
+  @Inject Pagination pagination;
 
   @Override
   @Authenticated
@@ -47,10 +51,31 @@ public class FriendshipsApiImpl implements FriendshipsApi {
 
   @Override
   @Authenticated
-  public Response listReceivedFriendships() {
+  public Response listReceivedFriendships(String cursor, Integer limit) {
     User user = authenticatedUser.get();
-    List<Friendship> friendships = friendshipUseCase.listReceivedFriendships(user.getId());
-    return Response.ok(friendships).build();
+    PageRequest page = pagination.request(cursor, limit);
+    Page<Friendship> friendships = friendshipUseCase.listReceivedFriendships(user.getId(), page);
+    return pagination.ok(friendships);
+  }
+
+  @Override
+  @Authenticated
+  public Response listMutualFriends(Long otherUserId) {
+    User user = authenticatedUser.get();
+    return Response.ok(friendshipUseCase.listMutualFriends(user.getId(), otherUserId)).build();
+  }
+
+  @Override
+  @Authenticated
+  public Response listFriendSuggestions(Integer limit) {
+    User user = authenticatedUser.get();
+    try {
+      return Response.ok(friendshipUseCase.listFriendSuggestions(user.getId(), limit)).build();
+    } catch (IllegalArgumentException e) {
+      return Response.status(Response.Status.BAD_REQUEST)
+          .entity(new ErrorResponse(e.getMessage()))
+          .build();
+    }
   }
 
   @Override
@@ -70,13 +95,11 @@ public class FriendshipsApiImpl implements FriendshipsApi {
       return Response.status(Response.Status.NOT_FOUND)
           .entity(new ErrorResponse(e.getMessage()))
           .build();
+    } catch (IllegalStateException e) {
+      return Response.status(Response.Status.CONFLICT)
+          .entity(new ErrorResponse(e.getMessage()))
+          .build();
     } catch (Exception e) {
-      if (e.getCause() instanceof PSQLException psqlException
-          && "23505".equals(psqlException.getSQLState())) {
-        return Response.status(Response.Status.CONFLICT)
-            .entity(new ErrorResponse("Friendship already exists"))
-            .build();
-      }
       return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
           .entity(new ErrorResponse("Failed to create friendship: " + e.getMessage()))
           .build();
@@ -91,8 +114,7 @@ public class FriendshipsApiImpl implements FriendshipsApi {
   public Response getFriendshipMeta(@PathParam("otherUserId") Long otherUserId) {
     User user = authenticatedUser.get();
     try {
-      UserMeta metaData = usermetaUseCase.getFriendshipMeta(user.getId(), otherUserId);
-      return Response.ok(metaData).build();
+      return conditionalGet.ok(usermetaUseCase.getFriendshipMeta(user.getId(), otherUserId));
     } catch (SecurityException e) {
       return Response.status(Response.Status.FORBIDDEN)
           .entity(new ErrorResponse(e.getMessage()))
@@ -4,11 +4,11 @@ import app.aoki.quarkuscrud.entity.User;
 import app.aoki.quarkuscrud.generated.api.LlmApi;
 import app.aoki.quarkuscrud.generated.model.FakeNamesRequest;
 import app.aoki.quarkuscrud.generated.model.FakeNamesResponse;
+import app.aoki.quarkuscrud.metrics.LlmMetrics;
 import app.aoki.quarkuscrud.support.Authenticated;
 import app.aoki.quarkuscrud.support.AuthenticatedUser;
 import app.aoki.quarkuscrud.support.ErrorResponse;
 import app.aoki.quarkuscrud.usecase.LlmUseCase;
-import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -26,7 +26,7 @@ public class LlmApiImpl implements LlmApi {
 
   @Inject AuthenticatedUser authenticatedUser;
 
-  @Inject MeterRegistry meterRegistry;
+  @Inject LlmMetrics llmMetrics;
 
   @Override
   @Authenticated
@@ -40,12 +40,12 @@ public class LlmApiImpl implements LlmApi {
         request.getVariance() != null ? request.getVariance().value() : "null",
         request.getCustomPrompt() != null ? request.getCustomPrompt() : "null");
 
-    Timer.Sample sample = Timer.start(meterRegistry);
+    Timer.Sample sample = llmMetrics.startTimer();
 
     try {
       FakeNamesResponse response = llmUseCase.generateFakeNames(user.getId(), request);
 
-      meterRegistry.counter("api.llm.fake_names.success").increment();
+      llmMetrics.recordFakeNamesSuccess();
       LOG.infof(
           "Successfully generated %d fake names for user %d",
           response.getOutput().size(), user.getId());
@@ -54,7 +54,7 @@ public class LlmApiImpl implements LlmApi {
 
     } catch (LlmUseCase.RateLimitExceededException e) {
       LOG.warnf("Rate limit exceeded for user %d", user.getId());
-      meterRegistry.counter("api.llm.rate_limit_exceeded").increment();
+      llmMetrics.recordRateLimitExceeded();
       return Response.status(Response.Status.TOO_MANY_REQUESTS)
           .entity(new ErrorResponse(e.getMessage()))
           .build();
@@ -66,12 +66,12 @@ public class LlmApiImpl implements LlmApi {
 
     } catch (Exception e) {
       LOG.errorf(e, "Failed to generate fake names for user %d", user.getId());
-      meterRegistry.counter("api.llm.fake_names.error").increment();
+      llmMetrics.recordFakeNamesError();
       return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
           .entity(new ErrorResponse("Failed to generate fake names: " + e.getMessage()))
           .build();
     } finally {
-      sample.stop(meterRegistry.timer("api.llm.fake_names.duration"));
+      sample.stop(llmMetrics.fakeNamesDuration());
     }
   }
 }
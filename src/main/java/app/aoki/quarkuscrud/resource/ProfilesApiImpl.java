@@ -8,6 +8,7 @@ import app.aoki.quarkuscrud.generated.model.UserProfile;
 import app.aoki.quarkuscrud.generated.model.UserProfileUpdateRequest;
 import app.aoki.quarkuscrud.support.Authenticated;
 import app.aoki.quarkuscrud.support.AuthenticatedUser;
+import app.aoki.quarkuscrud.support.ConditionalGet;
 import app.aoki.quarkuscrud.support.ErrorResponse;
 import app.aoki.quarkuscrud.usecase.ProfileUseCase;
 import app.aoki.quarkuscrud.usecase.UsermetaUseCase;
@@ -29,6 +30,7 @@ public class ProfilesApiImpl implements ProfilesApi {
   @Inject ProfileUseCase profileUseCase;
   @Inject UsermetaUseCase usermetaUseCase;
   @Inject AuthenticatedUser authenticatedUser;
+  @Inject ConditionalGet conditionalGet;
 
   @Override
   @Authenticated
@@ -39,7 +41,7 @@ public class ProfilesApiImpl implements ProfilesApi {
     User user = authenticatedUser.get();
     return profileUseCase
         .getLatestProfile(user.getId())
-        .map(profile -> Response.ok(profile).build())
+        .map(conditionalGet::ok)
         .orElse(
             Response.status(Response.Status.NOT_FOUND)
                 .entity(createProfileMissingResponse())
@@ -54,7 +56,7 @@ public class ProfilesApiImpl implements ProfilesApi {
   public Response getUserProfile(@PathParam("userId") Long userId) {
     return profileUseCase
         .getLatestProfile(userId)
-        .map(profile -> Response.ok(profile).build())
+        .map(conditionalGet::ok)
         .orElse(
             Response.status(Response.Status.NOT_FOUND)
                 .entity(createProfileMissingResponse())
@@ -69,8 +71,7 @@ public class ProfilesApiImpl implements ProfilesApi {
   public Response getUserProfileMeta(@PathParam("userId") Long userId) {
     User user = authenticatedUser.get();
     try {
-      UserMeta metaData = usermetaUseCase.getUserProfileMeta(userId, user.getId());
-      return Response.ok(metaData).build();
+      return conditionalGet.ok(usermetaUseCase.getUserProfileMeta(userId, user.getId()));
     } catch (SecurityException e) {
       return Response.status(Response.Status.FORBIDDEN)
           .entity(new ErrorResponse(e.getMessage()))
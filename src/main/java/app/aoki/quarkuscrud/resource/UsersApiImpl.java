@@ -7,6 +7,7 @@ import app.aoki.quarkuscrud.generated.model.UserPublic;
 import app.aoki.quarkuscrud.service.UserService;
 import app.aoki.quarkuscrud.support.Authenticated;
 import app.aoki.quarkuscrud.support.AuthenticatedUser;
+import app.aoki.quarkuscrud.support.ConditionalGet;
 import app.aoki.quarkuscrud.support.ErrorResponse;
 import app.aoki.quarkuscrud.usecase.UsermetaUseCase;
 import jakarta.enterprise.context.ApplicationScoped;
@@ -28,6 +29,7 @@ public class UsersApiImpl implements UsersApi {
   @Inject UserService userService;
   @Inject UsermetaUseCase usermetaUseCase;
   @Inject AuthenticatedUser authenticatedUser;
+  @Inject ConditionalGet conditionalGet;
 
   @Override
   @Authenticated
@@ -52,8 +54,7 @@ public class UsersApiImpl implements UsersApi {
   public Response getUserMeta(@PathParam("userId") Long userId) {
     User user = authenticatedUser.get();
     try {
-      UserMeta metaData = usermetaUseCase.getUserMeta(userId, user.getId());
-      return Response.ok(metaData).build();
+      return conditionalGet.ok(usermetaUseCase.getUserMeta(userId, user.getId()));
     } catch (SecurityException e) {
       return Response.status(Response.Status.FORBIDDEN)
           .entity(new ErrorResponse(e.getMessage()))
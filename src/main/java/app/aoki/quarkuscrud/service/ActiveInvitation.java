@@ -0,0 +1,24 @@
+package app.aoki.quarkuscrud.service;
+
+import app.aoki.quarkuscrud.entity.EventStatus;
+import java.time.LocalDateTime;
+
+/**
+ * The part of an event that join-by-code needs: which event a code points to and whether it still
+ * accepts attendees.
+ */
+public record ActiveInvitation(Long eventId, EventStatus status, LocalDateTime expiresAt) {
+
+  /**
+   * Returns whether the event still accepts attendees at the given time.
+   *
+   * @param now the reference time
+   * @return true unless the event is deleted, expired, or past its expiry time
+   */
+  public boolean isActiveAt(LocalDateTime now) {
+    if (status == EventStatus.DELETED || status == EventStatus.EXPIRED) {
+      return false;
+    }
+    return expiresAt == null || expiresAt.isAfter(now);
+  }
+}
@@ -0,0 +1,12 @@
+package app.aoki.quarkuscrud.service;
+
+import app.aoki.quarkuscrud.entity.AuthnProvider;
+import app.aoki.quarkuscrud.entity.User;
+
+/**
+ * An anonymous user together with the authentication provider that identifies it.
+ *
+ * @param user the user
+ * @param authnProvider the user's anonymous authentication provider
+ */
+public record AnonymousAccount(User user, AuthnProvider authnProvider) {}
@@ -0,0 +1,141 @@
+package app.aoki.quarkuscrud.service;
+
+import app.aoki.quarkuscrud.entity.AccountLifecycle;
+import app.aoki.quarkuscrud.entity.AuthMethod;
+import app.aoki.quarkuscrud.entity.AuthnProvider;
+import app.aoki.quarkuscrud.entity.User;
+import app.aoki.quarkuscrud.mapper.AnonymousUserPoolMapper;
+import app.aoki.quarkuscrud.metrics.AuthMetrics;
+import app.aoki.quarkuscrud.metrics.UserMetrics;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Pool of pre-provisioned anonymous users backing guest sign-up.
+ *
+ * <p>Creating a guest inline costs two inserts plus a provider read-back before the token can be
+ * signed, which becomes the bottleneck when many devices sign up at once. Instead, a scheduled job
+ * keeps {@code anonymous_user_pool} topped up: once the pool drops below the low watermark it is
+ * refilled up to the high watermark. Sign-up then claims a pooled user with one atomic statement
+ * and signs the token from the provider row returned by that statement.
+ *
+ * <p>When the pool is empty or disabled, callers fall back to {@link
+ * UserService#createAnonymousAccount()}. With several replicas refilling at the same time the pool
+ * can briefly overshoot the high watermark; claims are safe because they skip locked rows.
+ */
+@ApplicationScoped
+public class AnonymousUserPoolService {
+
+  private static final Logger LOG = Logger.getLogger(AnonymousUserPoolService.class);
+
+  @Inject AnonymousUserPoolMapper anonymousUserPoolMapper;
+  @Inject UserService userService;
+  @Inject AuthMetrics authMetrics;
+  @Inject UserMetrics userMetrics;
+
+  @ConfigProperty(name = "app.guest-pool.enabled", defaultValue = "true")
+  boolean enabled;
+
+  @ConfigProperty(name = "app.guest-pool.low-watermark", defaultValue = "50")
+  int lowWatermark;
+
+  @ConfigProperty(name = "app.guest-pool.high-watermark", defaultValue = "200")
+  int highWatermark;
+
+  @ConfigProperty(name = "app.guest-pool.refill-batch-size", defaultValue = "50")
+  int refillBatchSize;
+
+  /**
+   * Claims a pre-provisioned anonymous user.
+   *
+   * <p>The pool row is removed and the user's timestamps are set to the claim time in a single
+   * statement, so a pooled user is handed out at most once.
+   *
+   * @return the claimed account, or empty if the pool is disabled or drained
+   */
+  @Transactional
+  public Optional<AnonymousAccount> claim() {
+    if (!enabled) {
+      return Optional.empty();
+    }
+
+    Timer.Sample sample = authMetrics.startTimer();
+    boolean claimedUser = false;
+
+    try {
+      LocalDateTime claimedAt = LocalDateTime.now();
+      Optional<AuthnProvider> claimed = anonymousUserPoolMapper.claim(claimedAt);
+      if (claimed.isEmpty()) {
+        LOG.warnf("Anonymous user pool is empty, falling back to inline guest creation");
+        return Optional.empty();
+      }
+
+      claimedUser = true;
+      authMetrics.guestPoolDepth().updateAndGet(current -> Math.max(0, current - 1));
+
+      // Pooled users are never modified before they are claimed
+      AuthnProvider authnProvider = claimed.get();
+      User user =
+          new User(
+              authnProvider.getUserId(),
+              AccountLifecycle.CREATED,
+              null,
+              null,
+              claimedAt,
+              claimedAt);
+      userMetrics.recordCreated(AuthMethod.ANONYMOUS);
+
+      LOG.infof("Claimed pre-provisioned anonymous user with ID: %d", user.getId());
+      return Optional.of(new AnonymousAccount(user, authnProvider));
+    } finally {
+      sample.stop(authMetrics.guestPoolClaimTime(claimedUser));
+    }
+  }
+
+  /**
+   * Tops the pool up to the high watermark once it has fallen below the low watermark.
+   *
+   * <p>Users are provisioned in batches, each in its own transaction, so a failure part-way
+   * through keeps the batches that were already committed.
+   */
+  @Scheduled(
+      every = "${app.guest-pool.refill-interval:5s}",
+      concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+  void refill() {
+    if (!enabled) {
+      return;
+    }
+
+    long available = anonymousUserPoolMapper.countAvailable();
+    authMetrics.guestPoolDepth().set(available);
+    if (available >= lowWatermark) {
+      return;
+    }
+
+    long missing = Math.max(highWatermark, lowWatermark) - available;
+    LOG.infof("Refilling anonymous user pool: %d available, provisioning %d", available, missing);
+
+    while (missing > 0) {
+      int batchSize = (int) Math.min(missing, refillBatchSize);
+      QuarkusTransaction.requiringNew()
+          .run(
+              () -> {
+                for (int i = 0; i < batchSize; i++) {
+                  AnonymousAccount account = userService.provisionAnonymousAccount();
+                  anonymousUserPoolMapper.insert(account.user().getId(), LocalDateTime.now());
+                }
+              });
+      missing -= batchSize;
+      authMetrics.guestPoolDepth().addAndGet(batchSize);
+      authMetrics.recordGuestPoolProvisioned(batchSize);
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package app.aoki.quarkuscrud.service;
+
+import app.aoki.quarkuscrud.mapper.EventMapper;
+import app.aoki.quarkuscrud.metrics.EventMetrics;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Reconciles {@code events.attendee_count} with the rows in {@code event_attendees}.
+ *
+ * <p>The count is bumped in the same transaction as every attendee insert made through {@link
+ * EventService}, so it only drifts when attendees are written some other way. Each pass recounts
+ * events in ID ranges of {@code app.attendee-count-repair.batch-size}, one short transaction per
+ * range, and resets the counts that differ. The range is locked before it is counted, so a join
+ * committing meanwhile is either included in the count or applied on top of it.
+ */
+@ApplicationScoped
+public class AttendeeCountRepairer {
+
+  private static final Logger LOG = Logger.getLogger(AttendeeCountRepairer.class);
+
+  @Inject EventMapper eventMapper;
+  @Inject EventMetrics eventMetrics;
+
+  @ConfigProperty(name = "app.attendee-count-repair.enabled", defaultValue = "true")
+  boolean enabled;
+
+  @ConfigProperty(name = "app.attendee-count-repair.batch-size", defaultValue = "1000")
+  int batchSize;
+
+  /** Runs one repair pass over all events. */
+  @Scheduled(
+      every = "${app.attendee-count-repair.interval:6h}",
+      delayed = "${app.attendee-count-repair.interval:6h}",
+      concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+  void repair() {
+    if (!enabled) {
+      return;
+    }
+
+    long maxId = eventMapper.findMaxId();
+    int repaired = 0;
+    for (long afterId = 0; afterId < maxId; afterId += batchSize) {
+      long from = afterId;
+      long upTo = Math.min(afterId + batchSize, maxId);
+      int count =
+          QuarkusTransaction.requiringNew()
+              .call(
+                  () -> {
+                    // Joins in the range wait for the recount instead of racing it
+                    eventMapper.lockRange(from, upTo);
+                    return eventMapper.repairAttendeeCounts(from, upTo);
+                  });
+      if (count > 0) {
+        eventMetrics.recordAttendeeCountsRepaired(count);
+        repaired += count;
+      }
+    }
+
+    if (repaired > 0) {
+      LOG.warnf("Reset the attendee count of %d events that had drifted", repaired);
+    }
+  }
+}
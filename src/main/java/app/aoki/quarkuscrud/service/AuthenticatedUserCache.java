@@ -0,0 +1,150 @@
+package app.aoki.quarkuscrud.service;
+
+import app.aoki.quarkuscrud.entity.AuthMethod;
+import app.aoki.quarkuscrud.entity.AuthnProvider;
+import app.aoki.quarkuscrud.entity.User;
+import app.aoki.quarkuscrud.mapper.AuthnProviderMapper;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.quarkus.cache.CaffeineCache;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import org.jboss.logging.Logger;
+
+/**
+ * Read-through cache of users resolved from JWT subjects.
+ *
+ * <p>Every authenticated request resolves its user from the token subject. This cache sits in front
+ * of that lookup so repeated requests from the same token holder do not hit the database. Entries
+ * are keyed by authentication method and subject, bounded in size and expire after a short TTL
+ * (see {@code quarkus.cache.caffeine."authenticated-users".*}). Hit, miss and eviction counts are
+ * exported to Micrometer by the Quarkus cache extension.
+ *
+ * <p>Only successful lookups are cached, so a user created after a failed attempt is found on the
+ * next request. Writers must call {@link #invalidateUserAfterCommit(Long)} when a user changes. A
+ * load that overlaps an invalidation is returned but not cached, since it may have read the row
+ * from before the change.
+ */
+@ApplicationScoped
+public class AuthenticatedUserCache {
+
+  public static final String CACHE_NAME = "authenticated-users";
+
+  private static final Logger LOG = Logger.getLogger(AuthenticatedUserCache.class);
+
+  @Inject
+  @CacheName(CACHE_NAME)
+  Cache cache;
+
+  @Inject AuthnProviderMapper authnProviderMapper;
+  @Inject TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+
+  private final Object invalidationLock = new Object();
+  private long invalidations;
+
+  /**
+   * Returns the cached user for the given subject, loading it on a miss.
+   *
+   * @param authMethod the authentication method derived from the token
+   * @param subject the token subject
+   * @param loader the database lookup used on a cache miss
+   * @return an Optional containing the user if found
+   */
+  public Optional<User> get(
+      AuthMethod authMethod, String subject, Supplier<Optional<User>> loader) {
+    Key key = new Key(authMethod, subject);
+    CompletableFuture<User> cached = cache.as(CaffeineCache.class).getIfPresent(key);
+    if (cached != null) {
+      return Optional.of(copyOf(cached.join()));
+    }
+
+    long invalidationsBeforeLoad;
+    synchronized (invalidationLock) {
+      invalidationsBeforeLoad = invalidations;
+    }
+    Optional<User> loaded = loader.get();
+    synchronized (invalidationLock) {
+      // A user invalidated meanwhile may have been loaded from the row as it was before the change
+      if (invalidations == invalidationsBeforeLoad) {
+        loaded.ifPresent(
+            user ->
+                cache
+                    .as(CaffeineCache.class)
+                    .put(key, CompletableFuture.completedFuture(copyOf(user))));
+      }
+    }
+    return loaded;
+  }
+
+  /**
+   * Drops every cached entry that resolves to the given user once the current transaction commits,
+   * or right away if there is none. Dropping them earlier would let a concurrent request cache the
+   * old row again before the change is visible.
+   *
+   * <p>Must be called before the user's authentication providers are deleted, since they are used
+   * to rebuild the cache keys.
+   *
+   * @param userId the user ID
+   */
+  public void invalidateUserAfterCommit(Long userId) {
+    List<Key> keys = new ArrayList<>();
+    for (AuthnProvider provider : authnProviderMapper.findByUserId(userId)) {
+      String subject =
+          provider.getAuthMethod() == AuthMethod.ANONYMOUS
+              ? provider.getAuthIdentifier()
+              : provider.getExternalSubject();
+      if (subject != null) {
+        keys.add(new Key(provider.getAuthMethod(), subject));
+      }
+    }
+    if (transactionSynchronizationRegistry.getTransactionStatus() != Status.STATUS_ACTIVE) {
+      invalidate(userId, keys);
+      return;
+    }
+    transactionSynchronizationRegistry.registerInterposedSynchronization(
+        new Synchronization() {
+          @Override
+          public void beforeCompletion() {}
+
+          @Override
+          public void afterCompletion(int status) {
+            if (status == Status.STATUS_COMMITTED) {
+              invalidate(userId, keys);
+            }
+          }
+        });
+  }
+
+  private void invalidate(Long userId, List<Key> keys) {
+    synchronized (invalidationLock) {
+      invalidations++;
+      for (Key key : keys) {
+        cache.invalidate(key).await().indefinitely();
+      }
+    }
+    LOG.debugf("Invalidated authenticated user cache for user ID: %d", userId);
+  }
+
+  /**
+   * Returns a detached copy so request-scoped callers can never mutate the shared cached instance.
+   */
+  private static User copyOf(User user) {
+    return new User(
+        user.getId(),
+        user.getAccountLifecycle(),
+        user.getUsermeta(),
+        user.getSysmeta(),
+        user.getCreatedAt(),
+        user.getUpdatedAt());
+  }
+
+  private record Key(AuthMethod authMethod, String subject) {}
+}
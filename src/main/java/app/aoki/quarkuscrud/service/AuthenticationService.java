@@ -2,8 +2,7 @@ package app.aoki.quarkuscrud.service;
 
 import app.aoki.quarkuscrud.entity.AuthMethod;
 import app.aoki.quarkuscrud.entity.User;
-import io.micrometer.core.instrument.Counter;
-import io.micrometer.core.instrument.MeterRegistry;
+import app.aoki.quarkuscrud.metrics.AuthMetrics;
 import io.micrometer.core.instrument.Timer;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -24,7 +23,8 @@ public class AuthenticationService {
   private static final Logger LOG = Logger.getLogger(AuthenticationService.class);
 
   @Inject UserService userService;
-  @Inject MeterRegistry meterRegistry;
+  @Inject AuthenticatedUserCache authenticatedUserCache;
+  @Inject AuthMetrics authMetrics;
 
   /**
    * Authenticates a user from a JWT token.
@@ -36,34 +36,26 @@ public class AuthenticationService {
    *   <li>For external OIDC users: looks up by method and externalSubject (JWT subject)
    * </ul>
    *
+   * <p>Resolved users are served from {@link AuthenticatedUserCache} when possible.
+   *
    * @param jwt the validated JWT token
    * @return the authenticated user, or empty if user not found
    */
   public Optional<User> authenticateFromJwt(JsonWebToken jwt) {
     if (jwt == null || jwt.getSubject() == null) {
       LOG.warn("Authentication failed: JWT or subject is null");
-      Counter.builder("authentication.attempts")
-          .description("Number of authentication attempts")
-          .tag("result", "failed")
-          .tag("reason", "invalid_jwt")
-          .register(meterRegistry)
-          .increment();
+      authMetrics.recordInvalidJwt();
       return Optional.empty();
     }
 
     String subject = jwt.getSubject();
     if (subject == null || subject.isEmpty()) {
       LOG.warn("Authentication failed: JWT subject is null or empty");
-      Counter.builder("authentication.attempts")
-          .description("Number of authentication attempts")
-          .tag("result", "failed")
-          .tag("reason", "empty_subject")
-          .register(meterRegistry)
-          .increment();
+      authMetrics.recordEmptySubject();
       return Optional.empty();
     }
 
-    Timer.Sample sample = Timer.start(meterRegistry);
+    Timer.Sample sample = authMetrics.startTimer();
 
     // Determine authentication method from JWT groups
     AuthMethod authMethod = determineMethodFromJwt(jwt);
@@ -74,12 +66,18 @@ public class AuthenticationService {
       switch (authMethod) {
         case ANONYMOUS:
           // For anonymous users, subject is the authIdentifier
-          result = userService.findByAuthIdentifier(subject);
+          result =
+              authenticatedUserCache.get(
+                  authMethod, subject, () -> userService.findByAuthIdentifier(subject));
           break;
 
         case OIDC:
           // For OIDC users, subject is the externalSubject from the provider
-          result = userService.findByMethodAndExternalSubject(authMethod, subject);
+          result =
+              authenticatedUserCache.get(
+                  authMethod,
+                  subject,
+                  () -> userService.findByMethodAndExternalSubject(authMethod, subject));
           break;
 
         default:
@@ -88,12 +86,7 @@ public class AuthenticationService {
       }
 
       // Record authentication metrics
-      Counter.builder("authentication.attempts")
-          .description("Number of authentication attempts")
-          .tag("auth_method", authMethod.name().toLowerCase())
-          .tag("result", result.isPresent() ? "success" : "failed")
-          .register(meterRegistry)
-          .increment();
+      authMetrics.recordAttempt(authMethod, result.isPresent());
 
       if (result.isPresent()) {
         LOG.infof(
@@ -107,11 +100,7 @@ public class AuthenticationService {
 
       return result;
     } finally {
-      sample.stop(
-          Timer.builder("authentication.time")
-              .description("Time taken to authenticate a user")
-              .tag("auth_method", authMethod.name().toLowerCase())
-              .register(meterRegistry));
+      sample.stop(authMetrics.authenticationTime(authMethod));
     }
   }
 
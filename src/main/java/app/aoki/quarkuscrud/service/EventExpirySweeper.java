@@ -0,0 +1,85 @@
+package app.aoki.quarkuscrud.service;
+
+import app.aoki.quarkuscrud.entity.Event;
+import app.aoki.quarkuscrud.metrics.EventMetrics;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Moves events whose {@code expiresAt} has passed to EXPIRED.
+ *
+ * <p>Expiry used to be noticed only when an invitation code was looked up, so overdue events kept
+ * their codes and stayed visible to the code availability check. The sweeper expires them in
+ * batches of {@code app.event-expiry.batch-size}, each in its own short transaction, until no
+ * overdue event is left. Every batch takes an advisory lock first; a replica that cannot get it
+ * leaves the run to the one that did.
+ */
+@ApplicationScoped
+public class EventExpirySweeper {
+
+  private static final Logger LOG = Logger.getLogger(EventExpirySweeper.class);
+
+  @Inject EventService eventService;
+  @Inject EventMetrics eventMetrics;
+
+  @ConfigProperty(name = "app.event-expiry.enabled", defaultValue = "true")
+  boolean enabled;
+
+  @ConfigProperty(name = "app.event-expiry.batch-size", defaultValue = "500")
+  int batchSize;
+
+  /** Expires overdue events in batches until none are left or another replica takes over. */
+  @Scheduled(
+      every = "${app.event-expiry.sweep-interval:30s}",
+      concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+  void sweep() {
+    if (!enabled) {
+      return;
+    }
+
+    Timer.Sample sample = eventMetrics.startTimer();
+    LocalDateTime now = LocalDateTime.now();
+    int swept = 0;
+    boolean ranBatch = false;
+    Duration lag = Duration.ZERO;
+    try {
+      while (true) {
+        Optional<List<Event>> batch = eventService.expireOverdueEvents(now, batchSize);
+        if (batch.isEmpty()) {
+          LOG.debug("Expiry sweep is running on another replica");
+          break;
+        }
+        ranBatch = true;
+        for (Event event : batch.get()) {
+          Duration overdue = Duration.between(event.getExpiresAt(), now);
+          if (overdue.compareTo(lag) > 0) {
+            lag = overdue;
+          }
+        }
+        swept += batch.get().size();
+        eventMetrics.recordExpirySwept(batch.get().size());
+        if (batch.get().size() < batchSize) {
+          break;
+        }
+      }
+    } finally {
+      // Only a replica that swept knows the backlog; one that lost the lock leaves the gauge alone
+      if (ranBatch) {
+        eventMetrics.expiryLagSeconds().set(lag.toSeconds());
+      }
+      sample.stop(eventMetrics.expirySweepTime());
+    }
+
+    if (swept > 0) {
+      LOG.infof("Expired %d overdue events, most overdue by %s", swept, lag);
+    }
+  }
+}
@@ -0,0 +1,114 @@
+package app.aoki.quarkuscrud.service;
+
+import app.aoki.quarkuscrud.metrics.EventMetrics;
+import io.micrometer.core.instrument.Timer;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.subscription.BackPressureFailure;
+import io.smallrye.mutiny.subscription.BackPressureStrategy;
+import io.smallrye.mutiny.subscription.MultiEmitter;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * In-process fan-out of attendee changes to the live streams of each event.
+ *
+ * <p>Every subscriber gets its own bounded buffer of {@code app.live.buffer-size} updates.
+ * Publishing never waits on a subscriber: a client that falls so far behind that its buffer
+ * overflows has its stream failed and closed, and is expected to reconnect.
+ *
+ * <p>Updates arrive from {@link EventLiveFeed}, which relays the changes committed on any replica.
+ */
+@ApplicationScoped
+public class EventLiveBroadcaster {
+
+  private static final Logger LOG = Logger.getLogger(EventLiveBroadcaster.class);
+
+  private final Map<Long, Set<MultiEmitter<? super EventLiveUpdate>>> subscribers =
+      new ConcurrentHashMap<>();
+
+  @Inject EventMetrics eventMetrics;
+
+  @ConfigProperty(name = "app.live.buffer-size", defaultValue = "64")
+  int bufferSize;
+
+  /**
+   * Opens a stream of the updates published for an event from now on.
+   *
+   * <p>The subscription is registered when the returned Multi is subscribed to and removed when it
+   * completes, fails or is cancelled.
+   *
+   * @param eventId the event ID
+   * @return the update stream
+   */
+  public Multi<EventLiveUpdate> subscribe(Long eventId) {
+    return Multi.createFrom()
+        .<EventLiveUpdate>emitter(emitter -> register(eventId, emitter), BackPressureStrategy.ERROR)
+        .onOverflow()
+        .buffer(bufferSize)
+        .onFailure(BackPressureFailure.class)
+        .invoke(
+            failure -> {
+              eventMetrics.recordLiveSubscriberDropped();
+              LOG.debugf("Closed slow live subscriber of event %d", eventId);
+            });
+  }
+
+  /**
+   * Sends an update to every subscriber of its event on this replica.
+   *
+   * @param update the update
+   */
+  public void publish(EventLiveUpdate update) {
+    Set<MultiEmitter<? super EventLiveUpdate>> targets = subscribers.get(update.eventId());
+    if (targets == null || targets.isEmpty()) {
+      return;
+    }
+    Timer.Sample sample = eventMetrics.startTimer();
+    for (MultiEmitter<? super EventLiveUpdate> emitter : targets) {
+      emitter.emit(update);
+    }
+    sample.stop(eventMetrics.liveFanoutTime());
+  }
+
+  /**
+   * Returns the number of open subscriptions for an event on this replica.
+   *
+   * @param eventId the event ID
+   * @return the subscriber count
+   */
+  public int subscriberCount(Long eventId) {
+    Set<MultiEmitter<? super EventLiveUpdate>> targets = subscribers.get(eventId);
+    return targets == null ? 0 : targets.size();
+  }
+
+  private void register(Long eventId, MultiEmitter<? super EventLiveUpdate> emitter) {
+    emitter.onTermination(() -> unregister(eventId, emitter));
+    // Add inside compute so a concurrent unregister cannot drop the set we are adding to
+    subscribers.compute(
+        eventId,
+        (id, targets) -> {
+          Set<MultiEmitter<? super EventLiveUpdate>> updated =
+              targets == null ? ConcurrentHashMap.newKeySet() : targets;
+          if (updated.add(emitter)) {
+            eventMetrics.liveSubscribers().incrementAndGet();
+          }
+          return updated;
+        });
+  }
+
+  private void unregister(Long eventId, MultiEmitter<? super EventLiveUpdate> emitter) {
+    subscribers.computeIfPresent(
+        eventId,
+        (id, targets) -> {
+          if (targets.remove(emitter)) {
+            eventMetrics.liveSubscribers().decrementAndGet();
+          }
+          return targets.isEmpty() ? null : targets;
+        });
+  }
+}
@@ -0,0 +1,159 @@
+package app.aoki.quarkuscrud.service;
+
+import app.aoki.quarkuscrud.mapper.EventNotificationMapper;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Properties;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import org.postgresql.Driver;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+/**
+ * Carries live event updates between replicas over PostgreSQL LISTEN/NOTIFY.
+ *
+ * <p>Writers call {@link #publish(EventLiveUpdate)} inside their transaction. PostgreSQL delivers
+ * the notification when that transaction commits and drops it on rollback. Every replica, the
+ * publishing one included, keeps a single connection listening on {@link #CHANNEL} and hands each
+ * notification to its {@link EventLiveBroadcaster}, which forwards it to the streams open locally.
+ *
+ * <p>The listening connection is opened outside the datasource pool so it never holds a slot that
+ * request handling needs. It waits on the socket rather than polling, and is reopened after a
+ * failure; notifications sent while it is down are not replayed.
+ */
+@ApplicationScoped
+public class EventLiveFeed {
+
+  private static final Logger LOG = Logger.getLogger(EventLiveFeed.class);
+
+  static final String CHANNEL = "event_live";
+
+  // How long the listener waits for notifications before checking that its connection is alive
+  private static final int IDLE_CHECK_MILLIS = 30_000;
+  private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+  @Inject EventNotificationMapper eventNotificationMapper;
+  @Inject EventLiveBroadcaster eventLiveBroadcaster;
+
+  @ConfigProperty(name = "quarkus.datasource.jdbc.url")
+  String jdbcUrl;
+
+  @ConfigProperty(name = "quarkus.datasource.username")
+  Optional<String> username;
+
+  @ConfigProperty(name = "quarkus.datasource.password")
+  Optional<String> password;
+
+  @ConfigProperty(name = "app.live.listen-reconnect-delay", defaultValue = "5s")
+  Duration reconnectDelay;
+
+  private volatile boolean running;
+  private volatile Connection connection;
+  private Thread listener;
+
+  void onStart(@Observes StartupEvent event) {
+    running = true;
+    listener = new Thread(this::listen, "event-live-listener");
+    listener.setDaemon(true);
+    listener.start();
+  }
+
+  void onStop(@Observes ShutdownEvent event) {
+    running = false;
+    if (listener != null) {
+      listener.interrupt();
+    }
+    Connection current = connection;
+    if (current != null) {
+      try {
+        current.close();
+      } catch (SQLException e) {
+        LOG.debug("Failed to close live event listener connection", e);
+      }
+    }
+  }
+
+  /**
+   * Queues an update for every replica. Must be called inside the transaction that made the
+   * change, so that subscribers only hear about committed data.
+   *
+   * @param update the update
+   */
+  public void publish(EventLiveUpdate update) {
+    eventNotificationMapper.send(CHANNEL, update.toPayload());
+  }
+
+  private void listen() {
+    while (running) {
+      try (Connection listening = openConnection()) {
+        connection = listening;
+        try (Statement statement = listening.createStatement()) {
+          statement.execute("LISTEN " + CHANNEL);
+        }
+        LOG.infof("Listening for live event updates on channel %s", CHANNEL);
+        PGConnection pgConnection = listening.unwrap(PGConnection.class);
+        while (running) {
+          PGNotification[] notifications = pgConnection.getNotifications(IDLE_CHECK_MILLIS);
+          if (notifications == null || notifications.length == 0) {
+            if (!listening.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+              throw new SQLException("Live event listener connection is no longer valid");
+            }
+            continue;
+          }
+          for (PGNotification notification : notifications) {
+            dispatch(notification.getParameter());
+          }
+        }
+      } catch (SQLException | RuntimeException e) {
+        // Anything escaping here would end the thread for good and silence every live stream
+        if (!running) {
+          return;
+        }
+        LOG.warnf(e, "Live event listener failed, reconnecting in %s", reconnectDelay);
+        try {
+          Thread.sleep(reconnectDelay.toMillis());
+        } catch (InterruptedException interrupted) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+
+  private void dispatch(String payload) {
+    EventLiveUpdate update;
+    try {
+      update = EventLiveUpdate.fromPayload(payload);
+    } catch (IllegalArgumentException e) {
+      LOG.warnf("Ignoring live event notification: %s", e.getMessage());
+      return;
+    }
+    // A failing subscriber must not take the listener thread down with it
+    try {
+      eventLiveBroadcaster.publish(update);
+    } catch (RuntimeException e) {
+      LOG.errorf(e, "Failed to deliver live event notification for event %d", update.eventId());
+    }
+  }
+
+  private Connection openConnection() throws SQLException {
+    Properties properties = new Properties();
+    username.ifPresent(value -> properties.setProperty("user", value));
+    password.ifPresent(value -> properties.setProperty("password", value));
+    Connection opened = new Driver().connect(jdbcUrl, properties);
+    if (opened == null) {
+      throw new SQLException("PostgreSQL driver does not accept the datasource JDBC URL");
+    }
+    opened.setAutoCommit(true);
+    return opened;
+  }
+}
@@ -0,0 +1,75 @@
+package app.aoki.quarkuscrud.service;
+
+import app.aoki.quarkuscrud.entity.EventAttendee;
+import app.aoki.quarkuscrud.entity.EventUserData;
+import java.time.LocalDateTime;
+
+/** A change to an event's attendees or their data, as pushed to live subscribers of the event. */
+public record EventLiveUpdate(
+    Type type, Long eventId, Long attendeeUserId, LocalDateTime timestamp) {
+
+  /** Kinds of attendee change; names match the {@code eventType} values of the live stream. */
+  public enum Type {
+    ATTENDEE_JOINED,
+    ATTENDEE_LEFT,
+    USER_DATA_UPDATED
+  }
+
+  /**
+   * Builds the update announcing a newly added attendee.
+   *
+   * @param attendee the inserted attendee
+   * @return the update
+   */
+  public static EventLiveUpdate attendeeJoined(EventAttendee attendee) {
+    return new EventLiveUpdate(
+        Type.ATTENDEE_JOINED,
+        attendee.getEventId(),
+        attendee.getAttendeeUserId(),
+        attendee.getCreatedAt());
+  }
+
+  /**
+   * Builds the update announcing a new revision of a user's event data.
+   *
+   * @param data the inserted revision
+   * @return the update
+   */
+  public static EventLiveUpdate userDataUpdated(EventUserData data) {
+    return new EventLiveUpdate(
+        Type.USER_DATA_UPDATED, data.getEventId(), data.getUserId(), data.getCreatedAt());
+  }
+
+  /**
+   * Encodes the update as a compact notification payload, e.g. {@code
+   * ATTENDEE_JOINED,123,456,2025-01-01T10:15:30}.
+   *
+   * @return the payload
+   */
+  public String toPayload() {
+    return type + "," + eventId + "," + attendeeUserId + "," + timestamp;
+  }
+
+  /**
+   * Decodes a payload produced by {@link #toPayload()}.
+   *
+   * @param payload the payload
+   * @return the update
+   * @throws IllegalArgumentException if the payload is malformed
+   */
+  public static EventLiveUpdate fromPayload(String payload) {
+    String[] parts = payload.split(",", -1);
+    if (parts.length != 4) {
+      throw new IllegalArgumentException("Malformed live update payload: " + payload);
+    }
+    try {
+      return new EventLiveUpdate(
+          Type.valueOf(parts[0]),
+          Long.valueOf(parts[1]),
+          Long.valueOf(parts[2]),
+          LocalDateTime.parse(parts[3]));
+    } catch (RuntimeException e) {
+      throw new IllegalArgumentException("Malformed live update payload: " + payload, e);
+    }
+  }
+}
@@ -3,23 +3,35 @@ package app.aoki.quarkuscrud.service;
 import app.aoki.quarkuscrud.entity.Event;
 import app.aoki.quarkuscrud.entity.EventAttendee;
 import app.aoki.quarkuscrud.entity.EventInvitationCode;
+import app.aoki.quarkuscrud.entity.EventJoinResult;
 import app.aoki.quarkuscrud.entity.EventStatus;
 import app.aoki.quarkuscrud.entity.EventUserData;
 import app.aoki.quarkuscrud.mapper.EventAttendeeMapper;
 import app.aoki.quarkuscrud.mapper.EventInvitationCodeMapper;
 import app.aoki.quarkuscrud.mapper.EventMapper;
 import app.aoki.quarkuscrud.mapper.EventUserDataMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.quarkus.narayana.jta.QuarkusTransaction;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
 import jakarta.transaction.Transactional;
-import java.security.SecureRandom;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
 /**
@@ -33,21 +45,25 @@ public class EventService {
 
   private static final Logger LOG = Logger.getLogger(EventService.class);
 
-  // Invitation code character set, so that Japanese users can easily use it. We
-  // never change this
-  private static final String INVITATION_CODE_CHARS = "あいうえおかきくけこさしすせそたちつてとなにぬねのはひふへほまみむめも";
+  // Codes come from InvitationCodeAllocator, so a collision only happens when another replica
+  // took the same code since the last bitmap resync. A few attempts are plenty
+  private static final int EVENT_CREATION_MAX_ATTEMPTS = 16;
 
-  // Invitation code length so that it is short enough to be memorable. We never
-  // change this. Collision probability is high, so we permit collision between
-  // active and deleted/expired events and introduce robust collision handling
-  // logic
-  private static final int INVITATION_CODE_LENGTH = 3;
-  private static final int EVENT_CREATION_MAX_ATTEMPTS = 256;
+  // Advisory lock key held by the replica currently sweeping expired events
+  private static final long EXPIRY_SWEEP_LOCK_KEY = 0x6576656e74657870L;
 
   @Inject EventMapper eventMapper;
   @Inject EventAttendeeMapper eventAttendeeMapper;
   @Inject EventInvitationCodeMapper eventInvitationCodeMapper;
   @Inject EventUserDataMapper eventUserDataMapper;
+  @Inject InvitationCodeAllocator invitationCodeAllocator;
+  @Inject InvitationCodeCache invitationCodeCache;
+  @Inject EventLiveFeed eventLiveFeed;
+  @Inject ObjectMapper objectMapper;
+  @Inject TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+
+  @ConfigProperty(name = "app.event-user-data.snapshot-interval", defaultValue = "16")
+  int snapshotInterval;
 
   /**
    * Creates a new event with an invitation code.
@@ -59,10 +75,20 @@ public class EventService {
    */
   public Event createEvent(Long initiatorId, String meta, LocalDateTime expiresAt) {
     for (int attempt = 1; attempt <= EVENT_CREATION_MAX_ATTEMPTS; attempt++) {
+      String invitationCode = invitationCodeAllocator.allocate();
       try {
-        return QuarkusTransaction.requiringNew()
-            .call(() -> createEventInTransaction(initiatorId, meta, expiresAt));
+        Event event =
+            QuarkusTransaction.requiringNew()
+                .call(() -> createEventInTransaction(initiatorId, meta, expiresAt, invitationCode));
+        invitationCodeAllocator.confirm(invitationCode);
+        invitationCodeCache.put(invitationCode, toActiveInvitation(event));
+        return event;
       } catch (Exception e) {
+        if (isInvitationCodeCollision(e)) {
+          invitationCodeAllocator.markOccupied(invitationCode);
+        } else {
+          invitationCodeAllocator.release(invitationCode);
+        }
         if (shouldRetryTransaction(e) && attempt < EVENT_CREATION_MAX_ATTEMPTS) {
           LOG.debugf("Retrying event creation due to transient issue (attempt %d)", attempt);
           continue;
@@ -73,7 +99,8 @@ public class EventService {
     throw new IllegalStateException("Unable to create event after serialization retries");
   }
 
-  private Event createEventInTransaction(Long initiatorId, String meta, LocalDateTime expiresAt) {
+  private Event createEventInTransaction(
+      Long initiatorId, String meta, LocalDateTime expiresAt, String invitationCode) {
     eventMapper.ensureSerializableIsolationLevel();
 
     Event event = new Event();
@@ -82,6 +109,8 @@ public class EventService {
     event.setUsermeta(meta);
     event.setSysmeta(null);
     event.setExpiresAt(expiresAt);
+    // The initiator, added as an attendee below
+    event.setAttendeeCount(1);
     LocalDateTime now = LocalDateTime.now();
     event.setCreatedAt(now);
     event.setUpdatedAt(now);
@@ -90,7 +119,7 @@ public class EventService {
 
     EventInvitationCode code = new EventInvitationCode();
     code.setEventId(event.getId());
-    code.setInvitationCode(generateInvitationCode());
+    code.setInvitationCode(invitationCode);
     code.setUsermeta(null);
     code.setSysmeta(null);
     code.setCreatedAt(now);
@@ -120,6 +149,7 @@ public class EventService {
     initiatorUserData.setCreatedAt(now);
     initiatorUserData.setUpdatedAt(now);
     eventUserDataMapper.insert(initiatorUserData);
+    eventUserDataMapper.setCurrent(event.getId(), initiatorId, initiatorUserData.getId());
 
     return event;
   }
@@ -151,9 +181,31 @@ public class EventService {
     event.setStatus(EventStatus.DELETED);
     event.setUpdatedAt(LocalDateTime.now());
     eventMapper.update(event);
+    getInvitationCode(eventId).ifPresent(code -> releaseInvitationCodesAfterCommit(List.of(code)));
     return true;
   }
 
+  /**
+   * Marks a batch of events whose expiry has passed as EXPIRED and frees their invitation codes.
+   *
+   * <p>Runs in its own transaction under an advisory lock, so only one replica sweeps at a time.
+   * The codes are freed once that transaction commits.
+   *
+   * @param now the reference time
+   * @param limit the maximum number of events to expire
+   * @return the expired events, or empty if another replica is sweeping
+   */
+  @Transactional(Transactional.TxType.REQUIRES_NEW)
+  public Optional<List<Event>> expireOverdueEvents(LocalDateTime now, int limit) {
+    if (!eventMapper.tryAdvisoryXactLock(EXPIRY_SWEEP_LOCK_KEY)) {
+      return Optional.empty();
+    }
+    List<Event> expired = eventMapper.expireOverdue(now, limit);
+    List<Long> eventIds = expired.stream().map(Event::getId).toList();
+    releaseInvitationCodesAfterCommit(getInvitationCodes(eventIds).values());
+    return Optional.of(expired);
+  }
+
   /**
    * Updates an event.
    *
@@ -183,6 +235,12 @@ public class EventService {
     }
     event.setUpdatedAt(LocalDateTime.now());
     eventMapper.update(event);
+    if (status == EventStatus.DELETED || status == EventStatus.EXPIRED) {
+      getInvitationCode(eventId)
+          .ifPresent(code -> releaseInvitationCodesAfterCommit(List.of(code)));
+    } else if (status != null || expiresAt != null) {
+      getInvitationCode(eventId).ifPresent(this::invalidateInvitationCodeAfterCommit);
+    }
     return event;
   }
 
@@ -197,18 +255,47 @@ public class EventService {
   }
 
   /**
-   * Finds all events attended by a specific user.
+   * Finds one page of events created by a specific user, newest first.
+   *
+   * @param userId the initiator user ID
+   * @param page the page to fetch
+   * @return the page of events
+   */
+  public Page<Event> findByInitiatorId(Long userId, PageRequest page) {
+    List<Event> rows =
+        eventMapper.findPageByInitiatorId(
+            userId, page.afterCreatedAt(), page.afterId(), page.limit() + 1);
+    return Page.of(rows, page, Event::getCreatedAt, Event::getId);
+  }
+
+  /**
+   * Finds one page of events attended by a specific user, most recently joined first.
+   *
+   * <p>Pages on the attendance rows, which the attendee index serves as a range scan, and then
+   * loads the events on the page by primary key.
    *
    * @param userId the attendee user ID
-   * @return list of events
+   * @param page the page to fetch
+   * @return the page of events
    */
-  public List<Event> findAttendedEventsByUserId(Long userId) {
-    List<EventAttendee> attendees = eventAttendeeMapper.findByAttendeeUserId(userId);
-    return attendees.stream()
-        .map(attendee -> eventMapper.findById(attendee.getEventId()))
-        .filter(Optional::isPresent)
-        .map(Optional::get)
-        .collect(Collectors.toList());
+  public Page<Event> findAttendedEventsByUserId(Long userId, PageRequest page) {
+    Page<EventAttendee> attendances =
+        Page.of(
+            eventAttendeeMapper.findPageByAttendeeUserId(
+                userId, page.afterCreatedAt(), page.afterId(), page.limit() + 1),
+            page,
+            EventAttendee::getCreatedAt,
+            EventAttendee::getId);
+    if (attendances.items().isEmpty()) {
+      return new Page<>(List.of(), null);
+    }
+    Map<Long, Event> events = new HashMap<>();
+    Long[] eventIds =
+        attendances.items().stream().map(EventAttendee::getEventId).toArray(Long[]::new);
+    for (Event event : eventMapper.findByIds(eventIds)) {
+      events.put(event.getId(), event);
+    }
+    return attendances.map(attendance -> events.get(attendance.getEventId()));
   }
 
   /**
@@ -224,38 +311,103 @@ public class EventService {
     return codes.stream().findFirst().map(EventInvitationCode::getInvitationCode);
   }
 
+  /**
+   * Gets the invitation codes for several events in one query.
+   *
+   * @param eventIds the event IDs
+   * @return map from event ID to invitation code; events without a code are absent
+   */
+  public Map<Long, String> getInvitationCodes(Collection<Long> eventIds) {
+    if (eventIds.isEmpty()) {
+      return Map.of();
+    }
+    Map<Long, String> codes = new HashMap<>();
+    for (EventInvitationCode code :
+        eventInvitationCodeMapper.findByEventIds(eventIds.toArray(Long[]::new))) {
+      codes.putIfAbsent(code.getEventId(), code.getInvitationCode());
+    }
+    return codes;
+  }
+
   /**
    * Finds an active event by invitation code.
    *
+   * <p>The event is read from the database, and checked again because the cached code may point to
+   * an event deleted or expired on another replica. Such a stale entry is dropped.
+   *
    * @param invitationCode the invitation code
    * @return an Optional containing the event if found and active
    */
   public Optional<Event> findActiveEventByInvitationCode(String invitationCode) {
-    Optional<EventInvitationCode> code =
-        eventInvitationCodeMapper.findByInvitationCode(invitationCode);
-    if (code.isEmpty()) {
+    Optional<ActiveInvitation> invitation = findActiveInvitation(invitationCode);
+    if (invitation.isEmpty()) {
       return Optional.empty();
     }
-
-    Optional<Event> event = eventMapper.findById(code.get().getEventId());
+    Optional<Event> event =
+        eventMapper
+            .findById(invitation.get().eventId())
+            .filter(found -> toActiveInvitation(found).isActiveAt(LocalDateTime.now()));
     if (event.isEmpty()) {
-      return Optional.empty();
+      invitationCodeCache.invalidate(invitationCode);
     }
+    return event;
+  }
 
-    Event e = event.get();
-    if (e.getStatus() == EventStatus.DELETED || e.getStatus() == EventStatus.EXPIRED) {
-      return Optional.empty();
-    }
+  /**
+   * Resolves an invitation code to the active event it belongs to, served from {@link
+   * InvitationCodeCache} when possible.
+   *
+   * @param invitationCode the invitation code
+   * @return an Optional containing the event reference if the code belongs to an active event
+   */
+  public Optional<ActiveInvitation> findActiveInvitation(String invitationCode) {
+    return invitationCodeCache.get(invitationCode, () -> loadActiveInvitation(invitationCode));
+  }
 
-    if (e.getExpiresAt() != null && !e.getExpiresAt().isAfter(LocalDateTime.now())) {
-      return Optional.empty();
+  /**
+   * Joins a user to the active event an invitation code belongs to.
+   *
+   * <p>The code is resolved through {@link InvitationCodeCache}, so a burst of joins for the same
+   * code only reaches the database for the attendee insert. The activity check, the duplicate check
+   * and the insert then run as one statement, so a double tap from the same user yields
+   * ALREADY_JOINED rather than a unique constraint violation, and an event deleted or expired on
+   * another replica is never joined even while its code is still cached here. When a cached entry
+   * turns out to be stale, it is dropped and the code is resolved from the database once more,
+   * since another replica may already have given the freed code to a new event.
+   *
+   * @param invitationCode the invitation code
+   * @param userId the user ID
+   * @return the join outcome, with the new attendee when the user joined
+   */
+  @Transactional
+  public EventJoinResult joinByInvitationCode(String invitationCode, Long userId) {
+    AtomicBoolean loaded = new AtomicBoolean();
+    Optional<ActiveInvitation> invitation =
+        invitationCodeCache.get(
+            invitationCode,
+            () -> {
+              loaded.set(true);
+              return loadActiveInvitation(invitationCode);
+            });
+    EventJoinResult result = joinActiveEvent(invitation, userId);
+    if (result.getOutcome() == EventJoinResult.Outcome.NO_ACTIVE_EVENT && invitation.isPresent()) {
+      invitationCodeCache.invalidate(invitationCode);
+      if (!loaded.get()) {
+        result = joinActiveEvent(findActiveInvitation(invitationCode), userId);
+        if (result.getOutcome() == EventJoinResult.Outcome.NO_ACTIVE_EVENT) {
+          invitationCodeCache.invalidate(invitationCode);
+        }
+      }
     }
-
-    return event;
+    if (result.getOutcome() == EventJoinResult.Outcome.JOINED) {
+      eventLiveFeed.publish(EventLiveUpdate.attendeeJoined(result.getAttendee()));
+    }
+    return result;
   }
 
   /**
-   * Adds an attendee to an event.
+   * Adds an attendee to an event and counts it on the event. Live subscribers of the event are
+   * notified once the transaction commits.
    *
    * @param eventId the event ID
    * @param userId the user ID
@@ -274,6 +426,8 @@ public class EventService {
     attendee.setUpdatedAt(now);
 
     eventAttendeeMapper.insert(attendee);
+    eventMapper.incrementAttendeeCount(eventId);
+    eventLiveFeed.publish(EventLiveUpdate.attendeeJoined(attendee));
     return attendee;
   }
 
@@ -298,6 +452,20 @@ public class EventService {
     return eventAttendeeMapper.findByEventId(eventId);
   }
 
+  /**
+   * Lists one page of attendees for an event, most recent joiners first.
+   *
+   * @param eventId the event ID
+   * @param page the page to fetch
+   * @return the page of attendees
+   */
+  public Page<EventAttendee> listAttendees(Long eventId, PageRequest page) {
+    List<EventAttendee> rows =
+        eventAttendeeMapper.findPageByEventId(
+            eventId, page.afterCreatedAt(), page.afterId(), page.limit() + 1);
+    return Page.of(rows, page, EventAttendee::getCreatedAt, EventAttendee::getId);
+  }
+
   /**
    * Converts an OffsetDateTime to LocalDateTime for database storage.
    *
@@ -338,7 +506,51 @@ public class EventService {
   }
 
   /**
-   * Creates a new user data revision for an event and user.
+   * Finds the latest user data of several users in an event in one query.
+   *
+   * @param eventId the event ID
+   * @param userIds the user IDs
+   * @return latest user data by user ID; users without data are absent
+   */
+  public Map<Long, EventUserData> findLatestUserData(Long eventId, Collection<Long> userIds) {
+    if (userIds.isEmpty()) {
+      return Map.of();
+    }
+    Map<Long, EventUserData> latest = new HashMap<>();
+    for (EventUserData data :
+        eventUserDataMapper.findLatestByEventIdAndUserIds(eventId, userIds.toArray(Long[]::new))) {
+      latest.put(data.getUserId(), data);
+    }
+    return latest;
+  }
+
+  /**
+   * Passes the latest user data of every user in an event to a consumer, ordered by user ID, as the
+   * rows are read.
+   *
+   * <p>The read runs in a transaction, joining the caller's if there is one. The PostgreSQL driver
+   * only honours the fetch size outside autocommit, so without it the whole result set would be
+   * buffered before the first row reaches the consumer.
+   *
+   * @param eventId the event ID
+   * @param consumer receives each user's latest revision
+   */
+  public void forEachLatestUserData(Long eventId, Consumer<EventUserData> consumer) {
+    QuarkusTransaction.joiningExisting()
+        .run(
+            () ->
+                eventUserDataMapper.streamLatestByEventId(
+                    eventId, context -> consumer.accept(context.getResultObject())));
+  }
+
+  /**
+   * Creates a new user data revision for an event and user and makes it the user's current data in
+   * the event. The event's live stream announces the revision after commit.
+   *
+   * <p>The revision is stored as a merge patch against the user's current snapshot when that patch
+   * is at most half the size of the document. A full snapshot is written instead for the first
+   * revision, every {@code app.event-user-data.snapshot-interval} revisions, and whenever the
+   * document cannot be expressed as a patch.
    *
    * @param eventId the event ID
    * @param userId the user ID
@@ -358,23 +570,126 @@ public class EventService {
     newData.setCreatedAt(now);
     newData.setUpdatedAt(now);
 
-    eventUserDataMapper.insert(newData);
+    Optional<String> delta =
+        eventUserDataMapper
+            .findLatestByEventIdAndUserId(eventId, userId)
+            .flatMap(latest -> encodeDelta(latest, userData, newData));
+    if (delta.isPresent()) {
+      newData.setUserData(delta.get());
+      eventUserDataMapper.insert(newData);
+      newData.setUserData(userData);
+    } else {
+      newData.setDeltaSeq(0);
+      eventUserDataMapper.insert(newData);
+    }
+    eventUserDataMapper.setCurrent(eventId, userId, newData.getId());
+    eventLiveFeed.publish(EventLiveUpdate.userDataUpdated(newData));
     return newData;
   }
 
   /**
-   * Generates a random invitation code.
+   * Computes the patch that stores {@code userData} as a delta after {@code latest}, and points
+   * {@code revision} at the snapshot it applies to.
    *
-   * <p>Uniqueness is enforced by {@link #persistUniqueInvitationCode(Long, LocalDateTime)} which
-   * retries database writes when collisions occur.
+   * @return the patch, or empty if the revision should be stored in full
    */
-  private String generateInvitationCode() {
-    StringBuilder code = new StringBuilder(INVITATION_CODE_LENGTH);
-    SecureRandom rnd = new SecureRandom();
-    for (int i = 0; i < INVITATION_CODE_LENGTH; i++) {
-      code.append(INVITATION_CODE_CHARS.charAt(rnd.nextInt(INVITATION_CODE_CHARS.length())));
+  private Optional<String> encodeDelta(
+      EventUserData latest, String userData, EventUserData revision) {
+    int deltaSeq = latest.getDeltaSeq() + 1;
+    if (deltaSeq >= snapshotInterval) {
+      return Optional.empty();
     }
-    return code.toString();
+    Long baseId = latest.getBaseId() == null ? latest.getId() : latest.getBaseId();
+    String snapshot =
+        latest.getBaseId() == null
+            ? latest.getUserData()
+            : eventUserDataMapper.findById(baseId).map(EventUserData::getUserData).orElse(null);
+    if (snapshot == null) {
+      return Optional.empty();
+    }
+
+    String patch;
+    try {
+      JsonNode source = objectMapper.readTree(snapshot);
+      JsonNode target = objectMapper.readTree(userData);
+      Optional<ObjectNode> diff = JsonMergePatch.diff(source, target);
+      if (diff.isEmpty()) {
+        return Optional.empty();
+      }
+      patch = objectMapper.writeValueAsString(diff.get());
+    } catch (JsonProcessingException e) {
+      // Not valid JSON; storing it in full lets the database reject it as before
+      return Optional.empty();
+    }
+    if (patch.length() * 2 > userData.length()) {
+      return Optional.empty();
+    }
+
+    revision.setBaseId(baseId);
+    revision.setDeltaSeq(deltaSeq);
+    return Optional.of(patch);
+  }
+
+  /**
+   * Hands invitation codes back to the allocator once the current transaction commits, or right
+   * away if there is none. Releasing earlier would let a new event take a code that still belongs
+   * to this event in the database, or keep a code that a rollback left in place.
+   */
+  private void releaseInvitationCodesAfterCommit(Collection<String> invitationCodes) {
+    List<String> codes = List.copyOf(invitationCodes);
+    afterCommit(() -> codes.forEach(this::releaseInvitationCode));
+  }
+
+  /**
+   * Drops a code's cache entry once the current transaction commits, or right away if there is
+   * none. Dropping it earlier would let a concurrent lookup cache the old row again.
+   */
+  private void invalidateInvitationCodeAfterCommit(String invitationCode) {
+    afterCommit(() -> invitationCodeCache.invalidate(invitationCode));
+  }
+
+  private void afterCommit(Runnable onCommit) {
+    if (transactionSynchronizationRegistry.getTransactionStatus() != Status.STATUS_ACTIVE) {
+      onCommit.run();
+      return;
+    }
+    transactionSynchronizationRegistry.registerInterposedSynchronization(
+        new Synchronization() {
+          @Override
+          public void beforeCompletion() {}
+
+          @Override
+          public void afterCompletion(int status) {
+            if (status == Status.STATUS_COMMITTED) {
+              onCommit.run();
+            }
+          }
+        });
+  }
+
+  private void releaseInvitationCode(String invitationCode) {
+    invitationCodeCache.invalidate(invitationCode);
+    invitationCodeAllocator.release(invitationCode);
+  }
+
+  private EventJoinResult joinActiveEvent(Optional<ActiveInvitation> invitation, Long userId) {
+    if (invitation.isEmpty()) {
+      EventJoinResult result = new EventJoinResult();
+      result.setOutcome(EventJoinResult.Outcome.NO_ACTIVE_EVENT);
+      return result;
+    }
+    return eventAttendeeMapper.joinActiveEvent(
+        invitation.get().eventId(), userId, LocalDateTime.now());
+  }
+
+  private Optional<ActiveInvitation> loadActiveInvitation(String invitationCode) {
+    return eventMapper
+        .findActiveByInvitationCode(invitationCode)
+        .map(EventService::toActiveInvitation);
+  }
+
+  private static ActiveInvitation toActiveInvitation(Event event) {
+    return new ActiveInvitation(event.getId(), event.getStatus(), event.getExpiresAt());
   }
 
   private boolean shouldRetryTransaction(Exception exception) {
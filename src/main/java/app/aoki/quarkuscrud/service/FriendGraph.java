@@ -0,0 +1,379 @@
+package app.aoki.quarkuscrud.service;
+
+import app.aoki.quarkuscrud.entity.Friendship;
+import app.aoki.quarkuscrud.mapper.FriendshipMapper;
+import app.aoki.quarkuscrud.metrics.FriendGraphMetrics;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.jboss.logging.Logger;
+
+/**
+ * In-memory index of who is friends with whom, for mutual-friend and suggestion queries.
+ *
+ * <p>The graph is held in compressed sparse row form: the IDs of all users with friends in one
+ * sorted {@code long[]}, and each user's friends as a sorted run of positions into it in one
+ * {@code int[]}. A user's friends are found with one binary search, and two friend lists are
+ * intersected with a linear merge, without touching the database or allocating per edge.
+ *
+ * <p>The arrays are immutable and rebuilt from {@code friendships} at startup and every {@code
+ * app.friend-graph.rebuild-interval}, which also picks up friendships created on other replicas.
+ * Friendships created on this replica in between are kept in a small pending set once their
+ * transaction commits and merged into every answer until the next rebuild includes them.
+ */
+@ApplicationScoped
+public class FriendGraph {
+
+  private static final Logger LOG = Logger.getLogger(FriendGraph.class);
+
+  private static final long[] NONE = new long[0];
+
+  @Inject FriendshipMapper friendshipMapper;
+  @Inject FriendGraphMetrics friendGraphMetrics;
+  @Inject TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+
+  private volatile Snapshot snapshot = Snapshot.EMPTY;
+  private volatile Map<Long, Set<Long>> pending = new ConcurrentHashMap<>();
+  // While a rebuild is loading, friendships are also collected here to become its pending set
+  private volatile Map<Long, Set<Long>> nextPending;
+
+  void onStart(@Observes StartupEvent event) {
+    rebuild();
+  }
+
+  /**
+   * Records a friendship in both directions once the current transaction commits, or right away
+   * if there is none.
+   *
+   * @param userId1 one user
+   * @param userId2 the other user
+   */
+  public void recordFriendship(long userId1, long userId2) {
+    if (transactionSynchronizationRegistry.getTransactionStatus() != Status.STATUS_ACTIVE) {
+      addPending(userId1, userId2);
+      return;
+    }
+    transactionSynchronizationRegistry.registerInterposedSynchronization(
+        new Synchronization() {
+          @Override
+          public void beforeCompletion() {}
+
+          @Override
+          public void afterCompletion(int status) {
+            if (status == Status.STATUS_COMMITTED) {
+              addPending(userId1, userId2);
+            }
+          }
+        });
+  }
+
+  /**
+   * Returns the friends of a user.
+   *
+   * @param userId the user ID
+   * @return the friends' user IDs, ascending
+   */
+  public long[] friendsOf(long userId) {
+    return friendsOf(snapshot, pending, userId);
+  }
+
+  /**
+   * Returns the users who are friends of both given users.
+   *
+   * @param userId1 one user
+   * @param userId2 the other user
+   * @return the mutual friends' user IDs, ascending
+   */
+  public long[] mutualFriends(long userId1, long userId2) {
+    Snapshot current = snapshot;
+    Map<Long, Set<Long>> added = pending;
+    long[] first = friendsOf(current, added, userId1);
+    long[] second = friendsOf(current, added, userId2);
+    long[] mutual = new long[Math.min(first.length, second.length)];
+    int count = 0;
+    for (int i = 0, j = 0; i < first.length && j < second.length; ) {
+      if (first[i] < second[j]) {
+        i++;
+      } else if (first[i] > second[j]) {
+        j++;
+      } else {
+        mutual[count++] = first[i];
+        i++;
+        j++;
+      }
+    }
+    return Arrays.copyOf(mutual, count);
+  }
+
+  /**
+   * Suggests friends of a user's friends who are not yet the user's friends, ranked by how many
+   * friends they share with the user and then by ascending ID.
+   *
+   * @param userId the user ID
+   * @param limit maximum number of suggestions
+   * @return the suggestions, best first
+   */
+  public List<Suggestion> suggestions(long userId, int limit) {
+    Snapshot current = snapshot;
+    Map<Long, Set<Long>> added = pending;
+    long[] friends = friendsOf(current, added, userId);
+    if (friends.length == 0) {
+      return List.of();
+    }
+
+    // Gather every friend of a friend, then count repeats after sorting
+    long[][] hops = new long[friends.length][];
+    int total = 0;
+    for (int i = 0; i < friends.length; i++) {
+      hops[i] = friendsOf(current, added, friends[i]);
+      total += hops[i].length;
+    }
+    long[] candidates = new long[total];
+    int size = 0;
+    for (long[] hop : hops) {
+      for (long candidate : hop) {
+        if (candidate != userId && Arrays.binarySearch(friends, candidate) < 0) {
+          candidates[size++] = candidate;
+        }
+      }
+    }
+    Arrays.sort(candidates, 0, size);
+
+    List<Suggestion> ranked = new ArrayList<>();
+    for (int start = 0; start < size; ) {
+      int end = start + 1;
+      while (end < size && candidates[end] == candidates[start]) {
+        end++;
+      }
+      ranked.add(new Suggestion(candidates[start], end - start));
+      start = end;
+    }
+    ranked.sort(
+        (a, b) ->
+            a.mutualFriendCount() != b.mutualFriendCount()
+                ? Integer.compare(b.mutualFriendCount(), a.mutualFriendCount())
+                : Long.compare(a.userId(), b.userId()));
+    return ranked.size() > limit ? List.copyOf(ranked.subList(0, limit)) : ranked;
+  }
+
+  /** Reloads the graph from the database. */
+  @Scheduled(
+      every = "${app.friend-graph.rebuild-interval:10m}",
+      delayed = "${app.friend-graph.rebuild-interval:10m}",
+      concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+  void rebuild() {
+    Timer.Sample sample = friendGraphMetrics.startTimer();
+    // Friendships committed before this point are visible to the load below; later ones are
+    // collected for the new graph as well as answered from the current one
+    nextPending = new ConcurrentHashMap<>();
+    Snapshot rebuilt;
+    try {
+      rebuilt = QuarkusTransaction.requiringNew().call(this::load);
+    } catch (RuntimeException e) {
+      nextPending = null;
+      LOG.warn("Failed to rebuild the friend graph, keeping the previous one", e);
+      return;
+    }
+    snapshot = rebuilt;
+    pending = nextPending;
+    nextPending = null;
+    friendGraphMetrics.recordBuilt(
+        rebuilt.userIds.length, rebuilt.neighbors.length, rebuilt.sizeInBytes());
+    friendGraphMetrics.pendingEdges().set(countPending(pending));
+    sample.stop(friendGraphMetrics.rebuildTime());
+    LOG.debugf(
+        "Friend graph rebuilt: %d users, %d edges, %d bytes",
+        rebuilt.userIds.length, rebuilt.neighbors.length, rebuilt.sizeInBytes());
+  }
+
+  private Snapshot load() {
+    LongList senders = new LongList();
+    LongList recipients = new LongList();
+    friendshipMapper.streamEdges(
+        context -> {
+          Friendship edge = context.getResultObject();
+          senders.add(edge.getSenderId());
+          recipients.add(edge.getRecipientId());
+        });
+    return Snapshot.of(senders, recipients);
+  }
+
+  private void addPending(long userId1, long userId2) {
+    Map<Long, Set<Long>> next = nextPending;
+    if (next != null) {
+      addEdge(next, userId1, userId2);
+    }
+    Map<Long, Set<Long>> added = pending;
+    if (addEdge(added, userId1, userId2)) {
+      friendGraphMetrics.pendingEdges().set(countPending(added));
+    }
+  }
+
+  private static boolean addEdge(Map<Long, Set<Long>> added, long userId1, long userId2) {
+    boolean fresh =
+        added.computeIfAbsent(userId1, id -> ConcurrentHashMap.newKeySet()).add(userId2);
+    fresh |= added.computeIfAbsent(userId2, id -> ConcurrentHashMap.newKeySet()).add(userId1);
+    return fresh;
+  }
+
+  private static long countPending(Map<Long, Set<Long>> added) {
+    long count = 0;
+    for (Set<Long> friends : added.values()) {
+      count += friends.size();
+    }
+    return count;
+  }
+
+  private static long[] friendsOf(Snapshot current, Map<Long, Set<Long>> added, long userId) {
+    long[] known = current.friendsOf(userId);
+    Set<Long> extra = added.get(userId);
+    if (extra == null || extra.isEmpty()) {
+      return known;
+    }
+    long[] merged = Arrays.copyOf(known, known.length + extra.size());
+    int size = known.length;
+    for (long friend : extra) {
+      if (Arrays.binarySearch(known, friend) < 0) {
+        merged[size++] = friend;
+      }
+    }
+    Arrays.sort(merged, 0, size);
+    return Arrays.copyOf(merged, size);
+  }
+
+  /** A suggested friend and the number of friends they share with the user. */
+  public record Suggestion(long userId, int mutualFriendCount) {}
+
+  /** Immutable adjacency in compressed sparse row form. */
+  static final class Snapshot {
+
+    static final Snapshot EMPTY = new Snapshot(NONE, new int[] {0}, new int[0]);
+
+    // Sorted IDs of every user with at least one friend; a user's position is its node index
+    final long[] userIds;
+    // Friends of node i are neighbors[offsets[i]] .. neighbors[offsets[i + 1] - 1], ascending
+    final int[] offsets;
+    final int[] neighbors;
+
+    private Snapshot(long[] userIds, int[] offsets, int[] neighbors) {
+      this.userIds = userIds;
+      this.offsets = offsets;
+      this.neighbors = neighbors;
+    }
+
+    /**
+     * Builds the arrays from edges ordered by sender, then recipient. Each edge is used in both
+     * directions, so a friendship stored one way only still links both users.
+     */
+    static Snapshot of(LongList senders, LongList recipients) {
+      int edgeCount = senders.size();
+      long[] ids = new long[edgeCount * 2];
+      System.arraycopy(senders.values(), 0, ids, 0, edgeCount);
+      System.arraycopy(recipients.values(), 0, ids, edgeCount, edgeCount);
+      long[] userIds = distinctSorted(ids);
+
+      int[] degree = new int[userIds.length + 1];
+      int[] from = new int[edgeCount];
+      int[] to = new int[edgeCount];
+      for (int e = 0; e < edgeCount; e++) {
+        from[e] = Arrays.binarySearch(userIds, senders.get(e));
+        to[e] = Arrays.binarySearch(userIds, recipients.get(e));
+        degree[from[e] + 1]++;
+        degree[to[e] + 1]++;
+      }
+      int[] offsets = degree;
+      for (int i = 1; i < offsets.length; i++) {
+        offsets[i] += offsets[i - 1];
+      }
+      int[] fill = Arrays.copyOf(offsets, userIds.length);
+      int[] neighbors = new int[edgeCount * 2];
+      for (int e = 0; e < edgeCount; e++) {
+        neighbors[fill[from[e]]++] = to[e];
+        neighbors[fill[to[e]]++] = from[e];
+      }
+
+      // Both directions are normally stored, so every friend shows up twice; sort and dedupe rows
+      int[] compactOffsets = new int[userIds.length + 1];
+      int size = 0;
+      for (int i = 0; i < userIds.length; i++) {
+        Arrays.sort(neighbors, offsets[i], offsets[i + 1]);
+        compactOffsets[i] = size;
+        for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+          if (k == offsets[i] || neighbors[k] != neighbors[k - 1]) {
+            neighbors[size++] = neighbors[k];
+          }
+        }
+      }
+      compactOffsets[userIds.length] = size;
+      return new Snapshot(userIds, compactOffsets, Arrays.copyOf(neighbors, size));
+    }
+
+    long[] friendsOf(long userId) {
+      int node = Arrays.binarySearch(userIds, userId);
+      if (node < 0) {
+        return NONE;
+      }
+      long[] friends = new long[offsets[node + 1] - offsets[node]];
+      for (int k = 0; k < friends.length; k++) {
+        friends[k] = userIds[neighbors[offsets[node] + k]];
+      }
+      return friends;
+    }
+
+    long sizeInBytes() {
+      return (long) userIds.length * Long.BYTES
+          + (long) offsets.length * Integer.BYTES
+          + (long) neighbors.length * Integer.BYTES;
+    }
+
+    private static long[] distinctSorted(long[] ids) {
+      Arrays.sort(ids);
+      int size = 0;
+      for (int i = 0; i < ids.length; i++) {
+        if (i == 0 || ids[i] != ids[i - 1]) {
+          ids[size++] = ids[i];
+        }
+      }
+      return Arrays.copyOf(ids, size);
+    }
+  }
+
+  /** Growable list of primitive longs. */
+  static final class LongList {
+
+    private long[] values = new long[1024];
+    private int size;
+
+    void add(long value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = value;
+    }
+
+    long get(int index) {
+      return values[index];
+    }
+
+    int size() {
+      return size;
+    }
+
+    long[] values() {
+      return values;
+    }
+  }
+}
@@ -22,24 +22,26 @@ public class FriendshipService {
 
   @Inject FriendshipMapper friendshipMapper;
   @Inject ObjectMapper objectMapper;
+  @Inject FriendGraph friendGraph;
 
   /**
    * Finds a friendship between two users regardless of direction.
    *
-   * <p>This method searches for a friendship record between userId1 and userId2, checking both
-   * possible orderings (userId1→userId2 or userId2→userId1).
+   * <p>Both directions of a friendship are always stored, so this looks up the userId1→userId2
+   * record only: one probe of the unique pair index instead of an OR over both orderings.
    *
    * @param userId1 the first user ID
    * @param userId2 the second user ID
-   * @return the friendship if found
+   * @return the userId1→userId2 friendship if found
    */
   public Optional<Friendship> findByParticipants(Long userId1, Long userId2) {
-    return friendshipMapper.findByParticipants(userId1, userId2);
+    return friendshipMapper.findBySenderAndRecipient(userId1, userId2);
   }
 
   /**
    * Creates a new mutual friendship between sender and recipient. This creates two directional
-   * relationships: sender->recipient and recipient->sender.
+   * relationships: sender->recipient and recipient->sender. The friend graph learns about it once
+   * the transaction commits.
    *
    * @param senderId the sender user ID
    * @param recipientId the recipient user ID
@@ -70,23 +72,30 @@ public class FriendshipService {
     reverseFriendship.setCreatedAt(now);
     reverseFriendship.setUpdatedAt(now);
     friendshipMapper.insert(reverseFriendship);
+    friendGraph.recordFriendship(senderId, recipientId);
 
     return friendship;
   }
 
   /**
-   * Updates the meta field of a friendship.
+   * Creates a mutual friendship, or updates the meta of both directions if it already exists, in
+   * one statement. An existing friendship is left as it is when meta is null or empty.
    *
-   * @param friendshipId the friendship ID to update
-   * @param meta the new metadata
+   * @param senderId the sender user ID
+   * @param recipientId the recipient user ID
+   * @param meta optional metadata for the friendship
+   * @return the sender→recipient friendship, or empty if the recipient does not exist
    */
-  @Transactional
-  public void updateMeta(Long friendshipId, Map<String, Object> meta) {
-    Friendship friendship = friendshipMapper.findById(friendshipId).orElseThrow();
-    friendship.setUsermeta(serializeMeta(meta));
-    friendship.setSysmeta(null);
-    friendship.setUpdatedAt(LocalDateTime.now());
-    friendshipMapper.updateMeta(friendship);
+  public Optional<Friendship> upsertFriendship(
+      Long senderId, Long recipientId, Map<String, Object> meta) {
+    Optional<Friendship> friendship =
+        friendshipMapper
+            .upsertPair(senderId, recipientId, serializeMeta(meta), LocalDateTime.now())
+            .stream()
+            .filter(written -> written.getSenderId().equals(senderId))
+            .findFirst();
+    friendship.ifPresent(written -> friendGraph.recordFriendship(senderId, recipientId));
+    return friendship;
   }
 
   private String serializeMeta(Map<String, Object> meta) {
@@ -0,0 +1,186 @@
+package app.aoki.quarkuscrud.service;
+
+import app.aoki.quarkuscrud.mapper.EventInvitationCodeMapper;
+import app.aoki.quarkuscrud.metrics.EventMetrics;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.security.SecureRandom;
+import java.util.BitSet;
+import java.util.List;
+import org.jboss.logging.Logger;
+
+/**
+ * Allocates invitation codes from an in-memory occupancy bitmap.
+ *
+ * <p>Every possible code maps to one bit (its base-N value over {@link #INVITATION_CODE_CHARS}),
+ * so the whole code space fits in a few kilobytes. A set bit means the code belongs to an event
+ * that is neither expired nor deleted, mirroring the guard in {@code
+ * insertIfInvitationCodeAvailable}. Allocation starts at a random position and takes the next clear
+ * bit, so a free code is found with a short word scan instead of repeated guess-and-insert round
+ * trips.
+ *
+ * <p>The bitmap is only a local view. Other replicas allocate and free codes too, so the database
+ * guard stays authoritative: a code rejected there is marked occupied and the caller retries with
+ * another one. The bitmap is rebuilt from the database at startup and periodically afterwards to
+ * pick up allocations, deletions and expirations made elsewhere. Codes handed out but not yet
+ * committed are tracked separately so a rebuild never frees them.
+ */
+@ApplicationScoped
+public class InvitationCodeAllocator {
+
+  private static final Logger LOG = Logger.getLogger(InvitationCodeAllocator.class);
+
+  // Invitation code character set, so that Japanese users can easily use it. We
+  // never change this
+  static final String INVITATION_CODE_CHARS = "あいうえおかきくけこさしすせそたちつてとなにぬねのはひふへほまみむめも";
+
+  // Invitation code length so that it is short enough to be memorable. We never
+  // change this. Codes of deleted/expired events are released for reuse
+  static final int INVITATION_CODE_LENGTH = 3;
+
+  static final int CAPACITY = pow(INVITATION_CODE_CHARS.length(), INVITATION_CODE_LENGTH);
+
+  private final SecureRandom random = new SecureRandom();
+
+  // Guarded by this
+  private BitSet occupied = new BitSet(CAPACITY);
+  private final BitSet inFlight = new BitSet(CAPACITY);
+
+  @Inject EventInvitationCodeMapper eventInvitationCodeMapper;
+  @Inject EventMetrics eventMetrics;
+
+  void onStart(@Observes StartupEvent event) {
+    resync();
+  }
+
+  /**
+   * Reserves a code that is free as far as this replica knows.
+   *
+   * <p>The caller must follow up with {@link #confirm(String)} once the code is committed, or with
+   * {@link #release(String)} / {@link #markOccupied(String)} if it was not.
+   *
+   * @return the reserved invitation code
+   * @throws IllegalStateException if every code is in use
+   */
+  public synchronized String allocate() {
+    int index = occupied.nextClearBit(random.nextInt(CAPACITY));
+    if (index >= CAPACITY) {
+      index = occupied.nextClearBit(0);
+    }
+    if (index >= CAPACITY) {
+      throw new IllegalStateException("No invitation codes available");
+    }
+    occupied.set(index);
+    inFlight.set(index);
+    publishOccupancy();
+    return decode(index);
+  }
+
+  /**
+   * Marks a reserved code as committed to the database.
+   *
+   * @param code the invitation code
+   */
+  public synchronized void confirm(String code) {
+    int index = encode(code);
+    if (index >= 0) {
+      inFlight.clear(index);
+    }
+  }
+
+  /**
+   * Returns a code to the free pool, either because its event is gone or because the reservation
+   * was never committed.
+   *
+   * @param code the invitation code
+   */
+  public synchronized void release(String code) {
+    int index = encode(code);
+    if (index >= 0) {
+      occupied.clear(index);
+      inFlight.clear(index);
+      publishOccupancy();
+    }
+  }
+
+  /**
+   * Records that the database rejected a code because another replica already holds it.
+   *
+   * @param code the invitation code
+   */
+  public synchronized void markOccupied(String code) {
+    int index = encode(code);
+    if (index >= 0) {
+      occupied.set(index);
+      inFlight.clear(index);
+      eventMetrics.recordInvitationCodeCollision();
+      publishOccupancy();
+    }
+  }
+
+  /** Rebuilds the bitmap from the invitation codes of active events. */
+  @Scheduled(
+      every = "${app.invitation-codes.resync-interval:60s}",
+      delayed = "${app.invitation-codes.resync-interval:60s}",
+      concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+  void resync() {
+    List<String> activeCodes = eventInvitationCodeMapper.findActiveInvitationCodes();
+    BitSet rebuilt = new BitSet(CAPACITY);
+    for (String code : activeCodes) {
+      int index = encode(code);
+      if (index >= 0) {
+        rebuilt.set(index);
+      }
+    }
+
+    int inUse;
+    synchronized (this) {
+      rebuilt.or(inFlight);
+      occupied = rebuilt;
+      inUse = publishOccupancy();
+    }
+    LOG.debugf("Invitation code bitmap rebuilt: %d of %d codes in use", inUse, CAPACITY);
+  }
+
+  private int publishOccupancy() {
+    int inUse = occupied.cardinality();
+    eventMetrics.invitationCodesInUse().set(inUse);
+    return inUse;
+  }
+
+  static int encode(String code) {
+    if (code == null || code.length() != INVITATION_CODE_LENGTH) {
+      return -1;
+    }
+    int index = 0;
+    for (int i = 0; i < INVITATION_CODE_LENGTH; i++) {
+      int digit = INVITATION_CODE_CHARS.indexOf(code.charAt(i));
+      if (digit < 0) {
+        return -1;
+      }
+      index = index * INVITATION_CODE_CHARS.length() + digit;
+    }
+    return index;
+  }
+
+  static String decode(int index) {
+    char[] code = new char[INVITATION_CODE_LENGTH];
+    int remaining = index;
+    for (int i = INVITATION_CODE_LENGTH - 1; i >= 0; i--) {
+      code[i] = INVITATION_CODE_CHARS.charAt(remaining % INVITATION_CODE_CHARS.length());
+      remaining /= INVITATION_CODE_CHARS.length();
+    }
+    return new String(code);
+  }
+
+  private static int pow(int base, int exponent) {
+    int result = 1;
+    for (int i = 0; i < exponent; i++) {
+      result *= base;
+    }
+    return result;
+  }
+}
@@ -0,0 +1,79 @@
+package app.aoki.quarkuscrud.service;
+
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.quarkus.cache.CaffeineCache;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache from invitation code to the active event it points to.
+ *
+ * <p>When an event starts, its attendees tend to enter the code at the same moment. With this cache
+ * in front of the lookup, such a burst resolves the code from memory and only the attendee insert
+ * reaches the database. Entries are written when an event is created or first looked up, and
+ * dropped when the event is deleted, expires, or has its status or expiry changed.
+ *
+ * <p>Only active events are cached. A hit whose {@code expiresAt} has passed is evicted and treated
+ * as a miss. Changes made on other replicas are picked up once the entry's TTL runs out (see {@code
+ * quarkus.cache.caffeine."active-invitation-codes".*}).
+ */
+@ApplicationScoped
+public class InvitationCodeCache {
+
+  public static final String CACHE_NAME = "active-invitation-codes";
+
+  @Inject
+  @CacheName(CACHE_NAME)
+  Cache cache;
+
+  /**
+   * Returns the active event for the code, loading it on a miss.
+   *
+   * @param invitationCode the invitation code
+   * @param loader the database lookup used on a cache miss
+   * @return an Optional containing the event reference if the code belongs to an active event
+   */
+  public Optional<ActiveInvitation> get(
+      String invitationCode, Supplier<Optional<ActiveInvitation>> loader) {
+    LocalDateTime now = LocalDateTime.now();
+    CompletableFuture<ActiveInvitation> cached =
+        cache.as(CaffeineCache.class).getIfPresent(invitationCode);
+    if (cached != null) {
+      ActiveInvitation invitation = cached.join();
+      if (invitation.isActiveAt(now)) {
+        return Optional.of(invitation);
+      }
+      invalidate(invitationCode);
+    }
+
+    Optional<ActiveInvitation> loaded =
+        loader.get().filter(invitation -> invitation.isActiveAt(now));
+    loaded.ifPresent(invitation -> put(invitationCode, invitation));
+    return loaded;
+  }
+
+  /**
+   * Caches the event a code points to, for example right after the event is created.
+   *
+   * @param invitationCode the invitation code
+   * @param invitation the event reference
+   */
+  public void put(String invitationCode, ActiveInvitation invitation) {
+    CompletableFuture<ActiveInvitation> value = CompletableFuture.completedFuture(invitation);
+    cache.as(CaffeineCache.class).put(invitationCode, value);
+  }
+
+  /**
+   * Drops the cached entry for a code.
+   *
+   * @param invitationCode the invitation code
+   */
+  public void invalidate(String invitationCode) {
+    cache.invalidate(invitationCode).await().indefinitely();
+  }
+}
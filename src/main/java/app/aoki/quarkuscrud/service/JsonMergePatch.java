@@ -0,0 +1,84 @@
+package app.aoki.quarkuscrud.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * JSON Merge Patch (RFC 7386) between two documents.
+ *
+ * <p>The database applies stored patches with the {@code jsonb_merge_patch} function, which follows
+ * the same rules as {@link #apply(JsonNode, JsonNode)}.
+ */
+final class JsonMergePatch {
+
+  private JsonMergePatch() {}
+
+  /**
+   * Computes a patch that turns {@code source} into {@code target}.
+   *
+   * <p>A merge patch cannot set a member to {@code null} or replace a non-object root, so documents
+   * needing that have no patch.
+   *
+   * @param source the document to patch
+   * @param target the desired result
+   * @return the patch, or empty if {@code target} cannot be reached by merging into {@code source}
+   */
+  static Optional<ObjectNode> diff(JsonNode source, JsonNode target) {
+    if (!source.isObject() || !target.isObject()) {
+      return Optional.empty();
+    }
+    ObjectNode patch = objectDiff((ObjectNode) source, (ObjectNode) target);
+    // Nulls inside added objects are dropped on apply; a round trip catches them and similar cases
+    return apply(source, patch).equals(target) ? Optional.of(patch) : Optional.empty();
+  }
+
+  /**
+   * Applies a patch to a document without modifying either.
+   *
+   * @param target the document
+   * @param patch the patch
+   * @return the patched document
+   */
+  static JsonNode apply(JsonNode target, JsonNode patch) {
+    if (!patch.isObject()) {
+      return patch;
+    }
+    ObjectNode result =
+        target != null && target.isObject()
+            ? ((ObjectNode) target).deepCopy()
+            : JsonNodeFactory.instance.objectNode();
+    for (Map.Entry<String, JsonNode> field : patch.properties()) {
+      if (field.getValue().isNull()) {
+        result.remove(field.getKey());
+      } else {
+        result.set(field.getKey(), apply(result.get(field.getKey()), field.getValue()));
+      }
+    }
+    return result;
+  }
+
+  private static ObjectNode objectDiff(ObjectNode source, ObjectNode target) {
+    ObjectNode patch = JsonNodeFactory.instance.objectNode();
+    for (Map.Entry<String, JsonNode> field : source.properties()) {
+      if (!target.has(field.getKey())) {
+        patch.putNull(field.getKey());
+      }
+    }
+    for (Map.Entry<String, JsonNode> field : target.properties()) {
+      JsonNode before = source.get(field.getKey());
+      JsonNode after = field.getValue();
+      if (after.equals(before)) {
+        continue;
+      }
+      if (before != null && before.isObject() && after.isObject()) {
+        patch.set(field.getKey(), objectDiff((ObjectNode) before, (ObjectNode) after));
+      } else {
+        patch.set(field.getKey(), after);
+      }
+    }
+    return patch;
+  }
+}
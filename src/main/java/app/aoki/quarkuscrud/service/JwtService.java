@@ -65,7 +65,19 @@ public class JwtService {
     }
 
     // Use the first (primary) authentication provider
-    AuthnProvider primaryAuthn = authnProviders.get(0);
+    return generateToken(authnProviders.get(0));
+  }
+
+  /**
+   * Generates a JWT token from an already-loaded authentication provider.
+   *
+   * <p>Produces the same token as {@link #generateToken(User)} without reading the user's
+   * providers from the database.
+   *
+   * @param primaryAuthn the user's primary authentication provider
+   * @return the signed JWT token
+   */
+  public String generateToken(AuthnProvider primaryAuthn) {
     String subject = primaryAuthn.getEffectiveSubject();
     String group = primaryAuthn.getAuthMethod().getValue();
 
@@ -0,0 +1,199 @@
+package app.aoki.quarkuscrud.service;
+
+import app.aoki.quarkuscrud.entity.UserProfile;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.quarkus.cache.CaffeineCache;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Write-through cache of each user's latest profile revision.
+ *
+ * <p>Profiles are read on every profile view and for every sender in a friendship list, but change
+ * rarely. Entries hold the revision as loaded, with its profile data still as JSON text, and users
+ * without a profile are cached as absent. The cache is bounded and expires entries after a TTL (see
+ * {@code quarkus.cache.caffeine."latest-profiles".*}); hit, miss and size metrics are exported to
+ * Micrometer by the Quarkus cache extension.
+ *
+ * <p>Writers call {@link #putAfterCommit(UserProfile)} or {@link #invalidateAfterCommit(Long)},
+ * which take effect when the surrounding transaction commits. Until then the writing transaction
+ * reads the users it wrote from the database, so it sees its own changes and never caches them
+ * early. A load that overlaps a write is returned but not cached, so it cannot overwrite the newer
+ * entry.
+ */
+@ApplicationScoped
+public class LatestProfileCache {
+
+  public static final String CACHE_NAME = "latest-profiles";
+
+  // Transaction resource key for the users written in that transaction
+  private static final Object WRITTEN_USERS = LatestProfileCache.class.getName() + ".written";
+
+  @Inject
+  @CacheName(CACHE_NAME)
+  Cache cache;
+
+  @Inject TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+
+  private final Object writeLock = new Object();
+  private long writes;
+
+  /**
+   * Returns the latest profile of a user, loading it on a miss.
+   *
+   * @param userId the user ID
+   * @param loader the database lookup used on a miss
+   * @return an Optional containing the profile if the user has one
+   */
+  public Optional<UserProfile> get(Long userId, Function<Long, Optional<UserProfile>> loader) {
+    Map<Long, UserProfile> profiles =
+        getAll(
+            List.of(userId),
+            misses -> loader.apply(userId).map(p -> Map.of(userId, p)).orElse(Map.of()));
+    return Optional.ofNullable(profiles.get(userId));
+  }
+
+  /**
+   * Returns the latest profiles of several users, loading all misses with one call.
+   *
+   * @param userIds the user IDs
+   * @param loader the database lookup used for the users not in the cache
+   * @return latest profile by user ID; users without a profile are absent
+   */
+  public Map<Long, UserProfile> getAll(
+      Collection<Long> userIds, Function<Set<Long>, Map<Long, UserProfile>> loader) {
+    Set<Long> written = writtenInTransaction();
+    Map<Long, UserProfile> profiles = new HashMap<>();
+    Set<Long> misses = new HashSet<>();
+    for (Long userId : userIds) {
+      CompletableFuture<Optional<UserProfile>> cached =
+          written.contains(userId) ? null : caffeine().getIfPresent(userId);
+      if (cached == null) {
+        misses.add(userId);
+      } else {
+        cached.join().ifPresent(profile -> profiles.put(userId, copyOf(profile)));
+      }
+    }
+    if (misses.isEmpty()) {
+      return profiles;
+    }
+
+    long writesBeforeLoad;
+    synchronized (writeLock) {
+      writesBeforeLoad = writes;
+    }
+    Map<Long, UserProfile> loaded = loader.apply(misses);
+    profiles.putAll(loaded);
+    synchronized (writeLock) {
+      if (writes == writesBeforeLoad) {
+        for (Long userId : misses) {
+          UserProfile profile = loaded.get(userId);
+          if (!written.contains(userId)) {
+            put(userId, profile == null ? null : copyOf(profile));
+          }
+        }
+      }
+    }
+    return profiles;
+  }
+
+  /**
+   * Makes a new latest revision visible once the current transaction commits, or right away if
+   * there is none. If the transaction rolls back, the user's entry is dropped instead.
+   *
+   * @param profile the revision that is now the user's latest
+   */
+  public void putAfterCommit(UserProfile profile) {
+    UserProfile snapshot = copyOf(profile);
+    afterCommit(snapshot.getUserId(), () -> put(snapshot.getUserId(), snapshot));
+  }
+
+  /**
+   * Drops a user's entry once the current transaction completes, or right away if there is none.
+   *
+   * @param userId the user ID
+   */
+  public void invalidateAfterCommit(Long userId) {
+    afterCommit(userId, () -> cache.invalidate(userId).await().indefinitely());
+  }
+
+  private void afterCommit(Long userId, Runnable onCommit) {
+    if (transactionSynchronizationRegistry.getTransactionStatus() != Status.STATUS_ACTIVE) {
+      write(onCommit);
+      return;
+    }
+    writtenInTransactionForUpdate().add(userId);
+    transactionSynchronizationRegistry.registerInterposedSynchronization(
+        new Synchronization() {
+          @Override
+          public void beforeCompletion() {}
+
+          @Override
+          public void afterCompletion(int status) {
+            write(
+                status == Status.STATUS_COMMITTED
+                    ? onCommit
+                    : () -> cache.invalidate(userId).await().indefinitely());
+          }
+        });
+  }
+
+  private void write(Runnable change) {
+    synchronized (writeLock) {
+      writes++;
+      change.run();
+    }
+  }
+
+  private void put(Long userId, UserProfile profile) {
+    caffeine().put(userId, CompletableFuture.completedFuture(Optional.ofNullable(profile)));
+  }
+
+  @SuppressWarnings("unchecked")
+  private Set<Long> writtenInTransaction() {
+    if (transactionSynchronizationRegistry.getTransactionStatus() != Status.STATUS_ACTIVE) {
+      return Set.of();
+    }
+    Set<Long> written = (Set<Long>) transactionSynchronizationRegistry.getResource(WRITTEN_USERS);
+    return written == null ? Set.of() : written;
+  }
+
+  @SuppressWarnings("unchecked")
+  private Set<Long> writtenInTransactionForUpdate() {
+    Set<Long> written = (Set<Long>) transactionSynchronizationRegistry.getResource(WRITTEN_USERS);
+    if (written == null) {
+      written = new HashSet<>();
+      transactionSynchronizationRegistry.putResource(WRITTEN_USERS, written);
+    }
+    return written;
+  }
+
+  private CaffeineCache caffeine() {
+    return cache.as(CaffeineCache.class);
+  }
+
+  /** Returns a detached copy so callers can never mutate the shared cached instance. */
+  private static UserProfile copyOf(UserProfile profile) {
+    return new UserProfile(
+        profile.getId(),
+        profile.getUserId(),
+        profile.getProfileData(),
+        profile.getUsermeta(),
+        profile.getSysmeta(),
+        profile.getCreatedAt(),
+        profile.getUpdatedAt());
+  }
+}
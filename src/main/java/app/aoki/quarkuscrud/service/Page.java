@@ -0,0 +1,48 @@
+package app.aoki.quarkuscrud.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * One page of a keyset-paginated list.
+ *
+ * @param items the rows on this page
+ * @param nextCursor cursor for the following page, or null if this is the last page
+ */
+public record Page<T>(List<T> items, String nextCursor) {
+
+  /**
+   * Builds a page from rows fetched with {@code LIMIT request.limit() + 1}. The extra row only
+   * signals that another page exists and is not returned.
+   *
+   * @param rows the fetched rows, in page order
+   * @param request the page request the rows were fetched for
+   * @param createdAt extracts a row's {@code created_at}
+   * @param id extracts a row's {@code id}
+   * @return the page
+   */
+  public static <T> Page<T> of(
+      List<T> rows,
+      PageRequest request,
+      Function<T, LocalDateTime> createdAt,
+      Function<T, Long> id) {
+    if (rows.size() <= request.limit()) {
+      return new Page<>(rows, null);
+    }
+    List<T> items = rows.subList(0, request.limit());
+    T last = items.get(items.size() - 1);
+    return new Page<>(items, PageRequest.cursorOf(createdAt.apply(last), id.apply(last)));
+  }
+
+  /**
+   * Converts the items while keeping the cursor.
+   *
+   * @param mapper the item conversion
+   * @return the converted page
+   */
+  public <R> Page<R> map(Function<T, R> mapper) {
+    return new Page<>(items.stream().map(mapper).collect(Collectors.toList()), nextCursor);
+  }
+}
@@ -0,0 +1,73 @@
+package app.aoki.quarkuscrud.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * A keyset page request over rows ordered by {@code created_at DESC, id DESC}.
+ *
+ * <p>Pages are requested with the sort key of the last row already seen rather than an offset, so
+ * every page is an index range scan no matter how deep the client pages. The first page uses a
+ * sentinel position after every real row.
+ *
+ * @param afterCreatedAt {@code created_at} of the last row on the previous page
+ * @param afterId {@code id} of the last row on the previous page
+ * @param limit maximum number of rows to return
+ */
+public record PageRequest(LocalDateTime afterCreatedAt, Long afterId, int limit) {
+
+  private static final LocalDateTime FIRST_PAGE_CREATED_AT = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+  /**
+   * Requests the first page.
+   *
+   * @param limit maximum number of rows to return
+   * @return the page request
+   */
+  public static PageRequest first(int limit) {
+    return new PageRequest(FIRST_PAGE_CREATED_AT, Long.MAX_VALUE, limit);
+  }
+
+  /**
+   * Requests the page following an opaque cursor, or the first page if there is none.
+   *
+   * @param cursor a cursor previously returned in {@link Page#nextCursor()}, or null
+   * @param limit maximum number of rows to return
+   * @return the page request
+   * @throws IllegalArgumentException if the cursor is malformed
+   */
+  public static PageRequest after(String cursor, int limit) {
+    if (cursor == null || cursor.isBlank()) {
+      return first(limit);
+    }
+    try {
+      String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      int separator = decoded.lastIndexOf('|');
+      if (separator < 0) {
+        throw new IllegalArgumentException("Invalid cursor");
+      }
+      return new PageRequest(
+          LocalDateTime.parse(decoded.substring(0, separator)),
+          Long.parseLong(decoded.substring(separator + 1)),
+          limit);
+    } catch (DateTimeParseException | NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid cursor", e);
+    }
+  }
+
+  /**
+   * Encodes the position of a row as an opaque cursor.
+   *
+   * @param createdAt the row's {@code created_at}
+   * @param id the row's {@code id}
+   * @return the cursor
+   */
+  static String cursorOf(LocalDateTime createdAt, Long id) {
+    String position = createdAt + "|" + id;
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(position.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -6,19 +6,25 @@ import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
 /**
  * Service for managing user profiles.
  *
  * <p>This service handles profile creation, retrieval, and updates. User profiles are versioned,
- * with each update creating a new revision. The latest revision is always retrieved using ORDER BY
- * created_at DESC LIMIT 1, without relying on a cached pointer field.
+ * with each update creating a new revision and pointing the user's current-profile row at it. The
+ * latest revision is read through that pointer and kept in {@link LatestProfileCache}, which every
+ * write here updates.
  */
 @ApplicationScoped
 public class ProfileService {
 
   @Inject UserProfileMapper userProfileMapper;
+  @Inject LatestProfileCache latestProfileCache;
 
   /**
    * Finds the latest profile for a user.
@@ -27,7 +33,20 @@ public class ProfileService {
    * @return an Optional containing the profile if found
    */
   public Optional<UserProfile> findLatestByUserId(Long userId) {
-    return userProfileMapper.findLatestByUserId(userId);
+    return latestProfileCache.get(userId, userProfileMapper::findLatestByUserId);
+  }
+
+  /**
+   * Finds the latest profile of each of several users, with at most one query for those not cached.
+   *
+   * @param userIds the user IDs
+   * @return latest profile by user ID; users without a profile are absent
+   */
+  public Map<Long, UserProfile> findLatestByUserIds(Collection<Long> userIds) {
+    if (userIds.isEmpty()) {
+      return Map.of();
+    }
+    return latestProfileCache.getAll(userIds, this::loadLatestByUserIds);
   }
 
   /**
@@ -44,12 +63,36 @@ public class ProfileService {
     newProfile.setUserId(userId);
     newProfile.setProfileData(profileData);
     newProfile.setRevisionMeta(revisionMeta);
-    LocalDateTime now = LocalDateTime.now();
+    // PostgreSQL keeps microseconds; truncate so the cached copy matches the stored row exactly
+    LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
     newProfile.setCreatedAt(now);
     newProfile.setUpdatedAt(now);
 
     userProfileMapper.insert(newProfile);
+    userProfileMapper.setCurrent(userId, newProfile.getId());
+    latestProfileCache.putAfterCommit(newProfile);
 
     return newProfile;
   }
+
+  /**
+   * Saves the usermeta and sysmeta of a user's latest profile revision.
+   *
+   * @param profile the latest revision, with its new metadata
+   */
+  @Transactional
+  public void updateRevisionMeta(UserProfile profile) {
+    profile.setUpdatedAt(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+    userProfileMapper.updateRevisionMeta(profile);
+    latestProfileCache.putAfterCommit(profile);
+  }
+
+  private Map<Long, UserProfile> loadLatestByUserIds(Collection<Long> userIds) {
+    Map<Long, UserProfile> profiles = new HashMap<>();
+    for (UserProfile profile :
+        userProfileMapper.findLatestByUserIds(userIds.toArray(Long[]::new))) {
+      profiles.put(profile.getUserId(), profile);
+    }
+    return profiles;
+  }
 }
@@ -0,0 +1,94 @@
+package app.aoki.quarkuscrud.service;
+
+import app.aoki.quarkuscrud.mapper.EventUserDataMapper;
+import app.aoki.quarkuscrud.mapper.UserProfileMapper;
+import app.aoki.quarkuscrud.metrics.RevisionMetrics;
+import app.aoki.quarkuscrud.metrics.RevisionMetrics.RevisionTable;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Deletes old revisions of event user data and user profiles.
+ *
+ * <p>A revision is kept while it is among the {@code app.revision-retention.keep-last} newest of
+ * its history or is younger than {@code app.revision-retention.keep-newer-than}; anything else is
+ * removed. History is per event and user for event user data and per user for profiles, and the
+ * latest revision always survives.
+ *
+ * <p>Each pass walks the table in ID ranges of {@code app.revision-retention.batch-size}, deleting
+ * every range in its own short transaction. Rows that a writer holds locked are skipped and picked
+ * up by a later pass.
+ */
+@ApplicationScoped
+public class RevisionCompactor {
+
+  private static final Logger LOG = Logger.getLogger(RevisionCompactor.class);
+
+  @Inject EventUserDataMapper eventUserDataMapper;
+  @Inject UserProfileMapper userProfileMapper;
+  @Inject RevisionMetrics revisionMetrics;
+
+  @ConfigProperty(name = "app.revision-retention.enabled", defaultValue = "true")
+  boolean enabled;
+
+  @ConfigProperty(name = "app.revision-retention.keep-last", defaultValue = "20")
+  int keepLast;
+
+  @ConfigProperty(name = "app.revision-retention.keep-newer-than", defaultValue = "7d")
+  Duration keepNewerThan;
+
+  @ConfigProperty(name = "app.revision-retention.batch-size", defaultValue = "1000")
+  int batchSize;
+
+  /** Runs one compaction pass over both revision tables. */
+  @Scheduled(
+      every = "${app.revision-retention.interval:1h}",
+      delayed = "${app.revision-retention.interval:1h}",
+      concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+  void compact() {
+    if (!enabled) {
+      return;
+    }
+
+    LocalDateTime cutoff = LocalDateTime.now().minus(keepNewerThan);
+    int keep = Math.max(keepLast, 1);
+    compact(RevisionTable.EVENT_USER_DATA, cutoff, keep);
+    compact(RevisionTable.USER_PROFILES, cutoff, keep);
+  }
+
+  private void compact(RevisionTable table, LocalDateTime cutoff, int keep) {
+    Timer.Sample sample = revisionMetrics.startTimer();
+    long maxId =
+        table == RevisionTable.EVENT_USER_DATA
+            ? eventUserDataMapper.findMaxId()
+            : userProfileMapper.findMaxId();
+    int deleted = 0;
+    for (long afterId = 0; afterId < maxId; afterId += batchSize) {
+      long from = afterId;
+      long upTo = Math.min(afterId + batchSize, maxId);
+      int count =
+          QuarkusTransaction.requiringNew()
+              .call(
+                  () ->
+                      table == RevisionTable.EVENT_USER_DATA
+                          ? eventUserDataMapper.deleteExpiredRevisions(from, upTo, cutoff, keep)
+                          : userProfileMapper.deleteExpiredRevisions(from, upTo, cutoff, keep));
+      if (count > 0) {
+        revisionMetrics.recordCompacted(table, count);
+        deleted += count;
+      }
+    }
+
+    sample.stop(revisionMetrics.compactionTime(table));
+    if (deleted > 0) {
+      LOG.infof("Compacted %d %s revisions", deleted, table.name().toLowerCase());
+    }
+  }
+}
@@ -6,8 +6,7 @@ import app.aoki.quarkuscrud.entity.AuthnProvider;
 import app.aoki.quarkuscrud.entity.User;
 import app.aoki.quarkuscrud.mapper.AuthnProviderMapper;
 import app.aoki.quarkuscrud.mapper.UserMapper;
-import io.micrometer.core.instrument.Counter;
-import io.micrometer.core.instrument.MeterRegistry;
+import app.aoki.quarkuscrud.metrics.UserMetrics;
 import io.micrometer.core.instrument.Timer;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -30,7 +29,9 @@ public class UserService {
 
   @Inject UserMapper userMapper;
   @Inject AuthnProviderMapper authnProviderMapper;
-  @Inject MeterRegistry meterRegistry;
+  @Inject AuthenticatedUserCache authenticatedUserCache;
+  @Inject LatestProfileCache latestProfileCache;
+  @Inject UserMetrics userMetrics;
 
   /**
    * Creates a new user with anonymous authentication.
@@ -42,39 +43,71 @@ public class UserService {
    */
   @Transactional
   public User createAnonymousUser() {
+    return createAnonymousAccount().user();
+  }
+
+  /**
+   * Creates a new anonymous user and returns it together with its authentication provider.
+   *
+   * <p>Callers that need to sign a token right away can use the returned provider instead of
+   * reading it back from the database.
+   *
+   * @return the created user and its anonymous authentication provider
+   */
+  @Transactional
+  public AnonymousAccount createAnonymousAccount() {
     LOG.infof("Creating new anonymous user");
-    Timer.Sample sample = Timer.start(meterRegistry);
+    Timer.Sample sample = userMetrics.startTimer();
 
     try {
-      // Create user entity
-      User user = new User();
-      user.setAccountLifecycle(AccountLifecycle.CREATED);
-      user.setUsermeta(null);
-      user.setSysmeta(null);
-      user.setCreatedAt(LocalDateTime.now());
-      user.setUpdatedAt(LocalDateTime.now());
-      userMapper.insert(user);
-
-      // Create authentication provider
-      AuthnProvider authnProvider = new AuthnProvider();
-      authnProvider.setUserId(user.getId());
-      authnProvider.setAuthMethod(AuthMethod.ANONYMOUS);
-      authnProvider.setAuthIdentifier(UUID.randomUUID().toString());
-      authnProvider.setExternalSubject(null);
-      authnProvider.setCreatedAt(LocalDateTime.now());
-      authnProvider.setUpdatedAt(LocalDateTime.now());
-      authnProviderMapper.insert(authnProvider);
+      AnonymousAccount account = insertAnonymousAccount();
 
       // Record metrics
-      meterRegistry.counter("users.created", "auth_method", "anonymous").increment();
+      userMetrics.recordCreated(AuthMethod.ANONYMOUS);
 
-      LOG.infof("Successfully created anonymous user with ID: %d", user.getId());
-      return user;
+      LOG.infof("Successfully created anonymous user with ID: %d", account.user().getId());
+      return account;
     } finally {
-      sample.stop(meterRegistry.timer("users.creation.time", "auth_method", "anonymous"));
+      sample.stop(userMetrics.anonymousCreationTime());
     }
   }
 
+  /**
+   * Pre-provisions an anonymous user for the guest pool.
+   *
+   * <p>Unlike {@link #createAnonymousAccount()} this does not record the user as created; that
+   * happens when the pooled user is claimed.
+   *
+   * @return the provisioned user and its anonymous authentication provider
+   */
+  @Transactional
+  public AnonymousAccount provisionAnonymousAccount() {
+    return insertAnonymousAccount();
+  }
+
+  private AnonymousAccount insertAnonymousAccount() {
+    // Create user entity
+    User user = new User();
+    user.setAccountLifecycle(AccountLifecycle.CREATED);
+    user.setUsermeta(null);
+    user.setSysmeta(null);
+    user.setCreatedAt(LocalDateTime.now());
+    user.setUpdatedAt(LocalDateTime.now());
+    userMapper.insert(user);
+
+    // Create authentication provider
+    AuthnProvider authnProvider = new AuthnProvider();
+    authnProvider.setUserId(user.getId());
+    authnProvider.setAuthMethod(AuthMethod.ANONYMOUS);
+    authnProvider.setAuthIdentifier(UUID.randomUUID().toString());
+    authnProvider.setExternalSubject(null);
+    authnProvider.setCreatedAt(LocalDateTime.now());
+    authnProvider.setUpdatedAt(LocalDateTime.now());
+    authnProviderMapper.insert(authnProvider);
+
+    return new AnonymousAccount(user, authnProvider);
+  }
+
   /**
    * Creates or retrieves a user from an external authentication provider.
    *
@@ -94,22 +127,17 @@ public class UserService {
     LOG.infof(
         "Getting or creating external user with method: %s, subject: %s",
         authMethod, externalSubject);
-    Timer.Sample sample = Timer.start(meterRegistry);
+    Timer.Sample sample = userMetrics.startTimer();
 
     try {
-      // Check if authentication provider already exists
-      Optional<AuthnProvider> existingAuthnProvider =
-          authnProviderMapper.findByMethodAndExternalSubject(authMethod, externalSubject);
-      if (existingAuthnProvider.isPresent()) {
+      // Check if a user is already linked to this provider and subject
+      Optional<User> existingUser =
+          userMapper.findByMethodAndExternalSubject(authMethod, externalSubject);
+      if (existingUser.isPresent()) {
         // Return the associated user
         LOG.infof("Found existing user for method: %s, subject: %s", authMethod, externalSubject);
-        Counter.builder("users.lookup")
-            .description("Number of user lookups")
-            .tag("auth_method", authMethod.name().toLowerCase())
-            .tag("result", "existing")
-            .register(meterRegistry)
-            .increment();
-        return userMapper.findById(existingAuthnProvider.get().getUserId()).orElseThrow();
+        userMetrics.recordExistingExternalUser(authMethod);
+        return existingUser.get();
       }
 
       // Create new user
@@ -133,22 +161,14 @@ public class UserService {
       authnProviderMapper.insert(authnProvider);
 
       // Record metrics
-      Counter.builder("users.created")
-          .description("Number of users created")
-          .tag("auth_method", authMethod.name().toLowerCase())
-          .register(meterRegistry)
-          .increment();
+      userMetrics.recordCreated(authMethod);
 
       LOG.infof(
           "Successfully created external user with ID: %d for method: %s",
           user.getId(), authMethod);
       return user;
     } finally {
-      sample.stop(
-          Timer.builder("users.getorcreate.time")
-              .description("Time taken to get or create a user")
-              .tag("auth_method", authMethod.name().toLowerCase())
-              .register(meterRegistry));
+      sample.stop(userMetrics.getOrCreateTime(authMethod));
     }
   }
 
@@ -160,60 +180,43 @@ public class UserService {
    */
   public Optional<User> findById(Long id) {
     LOG.debugf("Finding user by ID: %d", id);
-    Timer.Sample sample = Timer.start(meterRegistry);
+    Timer.Sample sample = userMetrics.startTimer();
 
     try {
       Optional<User> result = userMapper.findById(id);
-      Counter.builder("users.lookup")
-          .description("Number of user lookups")
-          .tag("method", "by_id")
-          .tag("result", result.isPresent() ? "found" : "not_found")
-          .register(meterRegistry)
-          .increment();
+      userMetrics.recordLookup(UserMetrics.Lookup.BY_ID, result.isPresent());
       return result;
     } finally {
-      sample.stop(meterRegistry.timer("users.lookup.time", "method", "by_id"));
+      sample.stop(userMetrics.lookupTime(UserMetrics.Lookup.BY_ID));
     }
   }
 
   /**
    * Finds a user by their internal authentication identifier.
    *
+   * <p>Resolves the user with a single joined query against authn_providers and users.
+   *
    * @param authIdentifier the authentication identifier
    * @return an Optional containing the user if found
    */
   public Optional<User> findByAuthIdentifier(String authIdentifier) {
     LOG.debugf("Finding user by auth identifier: %s", authIdentifier);
-    Timer.Sample sample = Timer.start(meterRegistry);
+    Timer.Sample sample = userMetrics.startTimer();
 
     try {
-      Optional<AuthnProvider> authnProvider =
-          authnProviderMapper.findByAuthIdentifier(authIdentifier);
-      if (authnProvider.isPresent()) {
-        Optional<User> result = userMapper.findById(authnProvider.get().getUserId());
-        Counter.builder("users.lookup")
-            .description("Number of user lookups")
-            .tag("method", "by_auth_identifier")
-            .tag("result", result.isPresent() ? "found" : "not_found")
-            .register(meterRegistry)
-            .increment();
-        return result;
-      }
-      Counter.builder("users.lookup")
-          .description("Number of user lookups")
-          .tag("method", "by_auth_identifier")
-          .tag("result", "not_found")
-          .register(meterRegistry)
-          .increment();
-      return Optional.empty();
+      Optional<User> result = userMapper.findByAuthIdentifier(authIdentifier);
+      userMetrics.recordLookup(UserMetrics.Lookup.BY_AUTH_IDENTIFIER, result.isPresent());
+      return result;
     } finally {
-      sample.stop(meterRegistry.timer("users.lookup.time", "method", "by_auth_identifier"));
+      sample.stop(userMetrics.lookupTime(UserMetrics.Lookup.BY_AUTH_IDENTIFIER));
     }
   }
 
   /**
    * Finds a user by their external provider and subject.
    *
+   * <p>Resolves the user with a single joined query against authn_providers and users.
+   *
    * @param authMethod the authentication method
    * @param externalSubject the external subject identifier
    * @return an Optional containing the user if found
@@ -221,33 +224,32 @@ public class UserService {
   public Optional<User> findByMethodAndExternalSubject(
       AuthMethod authMethod, String externalSubject) {
     LOG.debugf("Finding user by method: %s and external subject: %s", authMethod, externalSubject);
-    Optional<AuthnProvider> authnProvider =
-        authnProviderMapper.findByMethodAndExternalSubject(authMethod, externalSubject);
-    if (authnProvider.isPresent()) {
-      return userMapper.findById(authnProvider.get().getUserId());
-    }
-    return Optional.empty();
+    return userMapper.findByMethodAndExternalSubject(authMethod, externalSubject);
   }
 
   /**
    * Updates an existing user.
    *
+   * <p>Cached authentication lookups for the user are invalidated so subsequent requests see the
+   * new state.
+   *
    * @param user the user to update
    */
   @Transactional
   public void updateUser(User user) {
     LOG.infof("Updating user with ID: %d", user.getId());
-    Timer.Sample sample = Timer.start(meterRegistry);
+    Timer.Sample sample = userMetrics.startTimer();
 
     try {
       user.setUpdatedAt(LocalDateTime.now());
       userMapper.update(user);
+      authenticatedUserCache.invalidateUserAfterCommit(user.getId());
 
-      meterRegistry.counter("users.updated").increment();
+      userMetrics.recordUpdated();
 
       LOG.infof("Successfully updated user with ID: %d", user.getId());
     } finally {
-      sample.stop(meterRegistry.timer("users.update.time"));
+      sample.stop(userMetrics.updateTime());
     }
   }
 
@@ -262,16 +264,19 @@ public class UserService {
   @Transactional
   public void deleteUser(Long id) {
     LOG.infof("Deleting user with ID: %d", id);
-    Timer.Sample sample = Timer.start(meterRegistry);
+    Timer.Sample sample = userMetrics.startTimer();
 
     try {
+      // Providers cascade with the user, so resolve the cache keys while they still exist
+      authenticatedUserCache.invalidateUserAfterCommit(id);
       userMapper.deleteById(id);
+      latestProfileCache.invalidateAfterCommit(id);
 
-      meterRegistry.counter("users.deleted").increment();
+      userMetrics.recordDeleted();
 
       LOG.infof("Successfully deleted user with ID: %d", id);
     } finally {
-      sample.stop(meterRegistry.timer("users.delete.time"));
+      sample.stop(userMetrics.deleteTime());
     }
   }
 }
@@ -0,0 +1,54 @@
+package app.aoki.quarkuscrud.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.function.Supplier;
+
+/**
+ * A read result tagged with the version of the rows it was built from.
+ *
+ * <p>The body is only built when {@link #get()} is called, so a caller that finds the client
+ * already holds this version can answer without mapping or serializing anything.
+ *
+ * @param version opaque version string, equal for equal representations
+ * @param body builds the representation
+ */
+public record Versioned<T>(String version, Supplier<T> body) {
+
+  /**
+   * Versions a representation of one row by its kind, ID and last update time.
+   *
+   * @param kind distinguishes representations of different tables or audiences
+   * @param id the row ID
+   * @param updatedAt the row's {@code updated_at}, or null if it was never updated
+   * @param body builds the representation
+   * @return the versioned result
+   */
+  public static <T> Versioned<T> of(
+      String kind, Long id, LocalDateTime updatedAt, Supplier<T> body) {
+    long micros =
+        updatedAt == null
+            ? 0
+            : updatedAt.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + updatedAt.getNano() / 1_000;
+    return new Versioned<>(kind + "-" + id + "-" + Long.toHexString(micros), body);
+  }
+
+  /**
+   * Folds a counter that changes without bumping {@code updated_at} into the version.
+   *
+   * @param counter the counter's current value
+   * @return the versioned result with the extended version
+   */
+  public Versioned<T> withCounter(long counter) {
+    return new Versioned<>(version + "-" + Long.toHexString(counter), body);
+  }
+
+  /**
+   * Builds the representation.
+   *
+   * @return the representation
+   */
+  public T get() {
+    return body.get();
+  }
+}
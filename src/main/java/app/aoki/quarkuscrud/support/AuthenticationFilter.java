@@ -9,6 +9,7 @@ import jakarta.ws.rs.container.ContainerRequestContext;
 import jakarta.ws.rs.container.ContainerRequestFilter;
 import jakarta.ws.rs.container.ResourceInfo;
 import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.ext.Provider;
 import java.util.Optional;
@@ -45,6 +46,7 @@ public class AuthenticationFilter implements ContainerRequestFilter {
     if (!authenticationService.hasBearerToken(authHeader)) {
       requestContext.abortWith(
           Response.status(Response.Status.UNAUTHORIZED)
+              .type(MediaType.APPLICATION_JSON)
               .entity(new ErrorResponse("No JWT token found"))
               .build());
       return;
@@ -57,6 +59,7 @@ public class AuthenticationFilter implements ContainerRequestFilter {
     if (user.isEmpty()) {
       requestContext.abortWith(
           Response.status(Response.Status.UNAUTHORIZED)
+              .type(MediaType.APPLICATION_JSON)
               .entity(new ErrorResponse("Invalid JWT token"))
               .build());
       return;
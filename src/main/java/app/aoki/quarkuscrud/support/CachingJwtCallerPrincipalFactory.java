@@ -0,0 +1,79 @@
+package app.aoki.quarkuscrud.support;
+
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.quarkus.cache.CaffeineCache;
+import io.smallrye.jwt.auth.principal.DefaultJWTCallerPrincipalFactory;
+import io.smallrye.jwt.auth.principal.JWTAuthContextInfo;
+import io.smallrye.jwt.auth.principal.JWTCallerPrincipal;
+import io.smallrye.jwt.auth.principal.JWTCallerPrincipalFactory;
+import io.smallrye.jwt.auth.principal.ParseException;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Alternative;
+import jakarta.inject.Inject;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * JWT principal factory that caches successfully verified tokens.
+ *
+ * <p>Anonymous tokens live for a year and the same token arrives on every request from a client,
+ * so SmallRye JWT would otherwise repeat the ES256 signature check each time. This factory keys
+ * verified principals by the SHA-256 hash of the raw token and returns the cached principal while
+ * the token is still within its {@code exp}. Failed verifications are never cached.
+ *
+ * <p>The cache is bounded by {@code quarkus.cache.caffeine."verified-jwts".*}; Quarkus exports its
+ * hit and miss counts to Micrometer.
+ */
+@ApplicationScoped
+@Alternative
+@Priority(1)
+public class CachingJwtCallerPrincipalFactory extends JWTCallerPrincipalFactory {
+
+  public static final String CACHE_NAME = "verified-jwts";
+
+  private final JWTCallerPrincipalFactory delegate = new DefaultJWTCallerPrincipalFactory();
+
+  @Inject
+  @CacheName(CACHE_NAME)
+  Cache cache;
+
+  @Override
+  public JWTCallerPrincipal parse(String token, JWTAuthContextInfo authContextInfo)
+      throws ParseException {
+    String key = hash(token);
+    CaffeineCache verified = cache.as(CaffeineCache.class);
+
+    CompletableFuture<JWTCallerPrincipal> cached = verified.getIfPresent(key);
+    if (cached != null) {
+      JWTCallerPrincipal principal = cached.join();
+      if (!isExpired(principal)) {
+        return principal;
+      }
+      cache.invalidate(key).await().indefinitely();
+    }
+
+    // Full verification; throws ParseException for invalid or expired tokens
+    JWTCallerPrincipal principal = delegate.parse(token, authContextInfo);
+    verified.put(key, CompletableFuture.completedFuture(principal));
+    return principal;
+  }
+
+  private static boolean isExpired(JWTCallerPrincipal principal) {
+    return principal.getExpirationTime() <= System.currentTimeMillis() / 1000;
+  }
+
+  private static String hash(String token) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return Base64.getEncoder()
+          .encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+}
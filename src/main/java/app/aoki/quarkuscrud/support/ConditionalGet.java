@@ -0,0 +1,47 @@
+package app.aoki.quarkuscrud.support;
+
+import app.aoki.quarkuscrud.service.Versioned;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Answers GET requests for {@link Versioned} results with a strong ETag, and with 304 Not Modified
+ * when the request's {@code If-None-Match} already names that tag.
+ *
+ * <p>Responses are marked {@code private, no-cache}: clients may keep them but must revalidate,
+ * which is a cheap conditional request once they hold the tag.
+ */
+@ApplicationScoped
+public class ConditionalGet {
+
+  private static final CacheControl REVALIDATE = revalidate();
+
+  @Inject Request request;
+
+  /**
+   * Builds a 200 response carrying the body and its ETag, or a bodiless 304 if the client already
+   * has this version. The body is not built for a 304.
+   *
+   * @param resource the versioned result
+   * @return the response
+   */
+  public Response ok(Versioned<?> resource) {
+    EntityTag tag = new EntityTag(resource.version());
+    Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+    if (notModified != null) {
+      return notModified.tag(tag).cacheControl(REVALIDATE).build();
+    }
+    return Response.ok(resource.get()).tag(tag).cacheControl(REVALIDATE).build();
+  }
+
+  private static CacheControl revalidate() {
+    CacheControl cacheControl = new CacheControl();
+    cacheControl.setPrivate(true);
+    cacheControl.setNoCache(true);
+    return cacheControl;
+  }
+}
@@ -0,0 +1,61 @@
+package app.aoki.quarkuscrud.support;
+
+import app.aoki.quarkuscrud.service.Page;
+import app.aoki.quarkuscrud.service.PageRequest;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Translates the {@code cursor} and {@code limit} query parameters of list endpoints into a {@link
+ * PageRequest}, and pages back into responses.
+ *
+ * <p>The response body stays a plain JSON array; the cursor for the next page, if any, is returned
+ * in the {@value #NEXT_CURSOR_HEADER} header.
+ */
+@ApplicationScoped
+public class Pagination {
+
+  public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+  @ConfigProperty(name = "app.pagination.default-page-size", defaultValue = "50")
+  int defaultPageSize;
+
+  @ConfigProperty(name = "app.pagination.max-page-size", defaultValue = "200")
+  int maxPageSize;
+
+  /**
+   * Builds a page request, clamping the limit to the configured maximum.
+   *
+   * @param cursor the {@code cursor} query parameter, or null for the first page
+   * @param limit the {@code limit} query parameter, or null for the default page size
+   * @return the page request
+   * @throws BadRequestException if the limit is not positive or the cursor is malformed
+   */
+  public PageRequest request(String cursor, Integer limit) {
+    if (limit != null && limit < 1) {
+      throw new BadRequestException("limit must be at least 1");
+    }
+    int pageSize = limit == null ? defaultPageSize : Math.min(limit, maxPageSize);
+    try {
+      return PageRequest.after(cursor, pageSize);
+    } catch (IllegalArgumentException e) {
+      throw new BadRequestException("Invalid cursor");
+    }
+  }
+
+  /**
+   * Builds a 200 response carrying the page items and, if there is one, the next cursor.
+   *
+   * @param page the page
+   * @return the response
+   */
+  public Response ok(Page<?> page) {
+    Response.ResponseBuilder response = Response.ok(page.items());
+    if (page.nextCursor() != null) {
+      response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+    }
+    return response.build();
+  }
+}
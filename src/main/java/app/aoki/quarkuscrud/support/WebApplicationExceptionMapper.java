@@ -1,6 +1,7 @@
 package app.aoki.quarkuscrud.support;
 
 import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.ext.ExceptionMapper;
 import jakarta.ws.rs.ext.Provider;
@@ -10,6 +11,9 @@ import jakarta.ws.rs.ext.Provider;
  * application preserve the existing error JSON format: {"error": "message"}. This mapper only
  * handles cases where the response entity is a plain string, converting it to the proper JSON
  * format.
+ *
+ * <p>The content type is set explicitly so that errors raised by endpoints producing other media
+ * types, such as the live event stream, are still written as JSON.
  */
 @Provider
 public class WebApplicationExceptionMapper implements ExceptionMapper<WebApplicationException> {
@@ -27,12 +31,14 @@ public class WebApplicationExceptionMapper implements ExceptionMapper<WebApplica
       }
       // If it's a plain string, wrap it in an error object
       return Response.status(originalResponse.getStatus())
+          .type(MediaType.APPLICATION_JSON)
           .entity(new ErrorResponse(errorString))
           .build();
     }
 
     // For responses without entities, use the exception message
     return Response.status(originalResponse.getStatus())
+        .type(MediaType.APPLICATION_JSON)
         .entity(new ErrorResponse(exception.getMessage()))
         .build();
   }
@@ -2,14 +2,23 @@ package app.aoki.quarkuscrud.usecase;
 
 import app.aoki.quarkuscrud.entity.Event;
 import app.aoki.quarkuscrud.entity.EventAttendee;
+import app.aoki.quarkuscrud.entity.EventJoinResult;
 import app.aoki.quarkuscrud.entity.EventUserData;
+import app.aoki.quarkuscrud.entity.UserProfile;
 import app.aoki.quarkuscrud.generated.model.EventCreateRequest;
 import app.aoki.quarkuscrud.generated.model.EventJoinByCodeRequest;
 import app.aoki.quarkuscrud.generated.model.EventUserDataUpdateRequest;
+import app.aoki.quarkuscrud.service.EventLiveBroadcaster;
+import app.aoki.quarkuscrud.service.EventLiveUpdate;
 import app.aoki.quarkuscrud.service.EventService;
+import app.aoki.quarkuscrud.service.Page;
+import app.aoki.quarkuscrud.service.PageRequest;
+import app.aoki.quarkuscrud.service.ProfileService;
 import app.aoki.quarkuscrud.service.UserService;
+import app.aoki.quarkuscrud.service.Versioned;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.smallrye.mutiny.Multi;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
@@ -19,6 +28,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import org.jboss.logging.Logger;
 
@@ -35,6 +45,9 @@ public class EventUseCase {
 
   @Inject EventService eventService;
   @Inject UserService userService;
+  @Inject ProfileService profileService;
+  @Inject ProfileUseCase profileUseCase;
+  @Inject EventLiveBroadcaster eventLiveBroadcaster;
   @Inject ObjectMapper objectMapper;
 
   /**
@@ -66,20 +79,29 @@ public class EventUseCase {
    *
    * @param eventId the event ID
    * @param requestingUserId the ID of the user making the request
-   * @return an Optional containing the event DTO if found
+   * @return an Optional containing the versioned event DTO if found
    */
-  public Optional<app.aoki.quarkuscrud.generated.model.Event> getEventById(
+  public Optional<Versioned<app.aoki.quarkuscrud.generated.model.Event>> getEventById(
       Long eventId, Long requestingUserId) {
     return eventService
         .findById(eventId)
         .map(
             event -> {
-              // Only include invitation code if the requesting user is the event owner
-              String invitationCode = null;
-              if (requestingUserId != null && requestingUserId.equals(event.getInitiatorId())) {
-                invitationCode = eventService.getInvitationCode(eventId).orElse(null);
+              // Only include invitation code if the requesting user is the event owner. The owner
+              // sees a different representation, so it gets its own version. Joins do not touch
+              // updated_at, so the attendee count is part of the version too
+              if (isOwner(event, requestingUserId)) {
+                return Versioned.of(
+                        "event-owner",
+                        eventId,
+                        event.getUpdatedAt(),
+                        () ->
+                            toEventDto(event, eventService.getInvitationCode(eventId).orElse(null)))
+                    .withCounter(event.getAttendeeCount());
               }
-              return toEventDto(event, invitationCode);
+              return Versioned.of(
+                      "event", eventId, event.getUpdatedAt(), () -> toEventDto(event, null))
+                  .withCounter(event.getAttendeeCount());
             });
   }
 
@@ -183,18 +205,15 @@ public class EventUseCase {
       throw new IllegalArgumentException("invitationCode is required to join an event");
     }
 
-    Event event =
-        eventService
-            .findActiveEventByInvitationCode(code)
-            .orElseThrow(
-                () -> new IllegalArgumentException("No active event matches the invitation code"));
-
-    if (eventService.isUserAttendee(event.getId(), userId)) {
+    EventJoinResult result = eventService.joinByInvitationCode(code, userId);
+    if (result.getOutcome() == EventJoinResult.Outcome.NO_ACTIVE_EVENT) {
+      throw new IllegalArgumentException("No active event matches the invitation code");
+    }
+    if (result.getOutcome() == EventJoinResult.Outcome.ALREADY_JOINED) {
       throw new IllegalStateException("User already joined the event");
     }
 
-    EventAttendee attendee = eventService.addAttendee(event.getId(), userId, null);
-    return toAttendeeDto(attendee);
+    return toAttendeeDto(result.getAttendee());
   }
 
   /**
@@ -205,12 +224,13 @@ public class EventUseCase {
    *
    * @param eventId the event ID
    * @param requestingUserId the ID of the user making the request
-   * @return list of attendee DTOs
+   * @param page the page to fetch
+   * @return page of attendee DTOs
    * @throws IllegalArgumentException if event not found
    * @throws SecurityException if user is not authorized to view attendees
    */
-  public List<app.aoki.quarkuscrud.generated.model.EventAttendee> listEventAttendees(
-      Long eventId, Long requestingUserId) {
+  public Page<app.aoki.quarkuscrud.generated.model.EventAttendee> listEventAttendees(
+      Long eventId, Long requestingUserId, PageRequest page) {
     Event event =
         eventService
             .findById(eventId)
@@ -227,9 +247,67 @@ public class EventUseCase {
       }
     }
 
-    return eventService.listAttendees(eventId).stream()
-        .map(this::toAttendeeDto)
-        .collect(Collectors.toList());
+    return eventService.listAttendees(eventId, page).map(this::toAttendeeDto);
+  }
+
+  /**
+   * Gets everything an event screen shows: the event, one page of attendees, and each listed
+   * attendee's latest profile and event user data.
+   *
+   * <p>The snapshot costs the same fixed number of queries whatever the page size: attendees,
+   * profiles and user data are each loaded for the whole page at once.
+   *
+   * @param eventId the event ID
+   * @param requestingUserId the ID of the user making the request
+   * @param page the page of attendees to include
+   * @return the snapshot DTO
+   * @throws IllegalArgumentException if event not found
+   * @throws SecurityException if user is neither the owner nor an attendee
+   */
+  public app.aoki.quarkuscrud.generated.model.EventSnapshot getEventSnapshot(
+      Long eventId, Long requestingUserId, PageRequest page) {
+    Event event =
+        eventService
+            .findById(eventId)
+            .orElseThrow(() -> new IllegalArgumentException("Event not found"));
+    boolean isOwner = isOwner(event, requestingUserId);
+    if (!isOwner
+        && (requestingUserId == null || !eventService.isUserAttendee(eventId, requestingUserId))) {
+      throw new SecurityException("Not authorized to view this event");
+    }
+
+    String invitationCode = isOwner ? eventService.getInvitationCode(eventId).orElse(null) : null;
+    Page<EventAttendee> attendees = eventService.listAttendees(eventId, page);
+    List<Long> userIds =
+        attendees.items().stream()
+            .map(EventAttendee::getAttendeeUserId)
+            .collect(Collectors.toList());
+    Map<Long, UserProfile> profiles = profileService.findLatestByUserIds(userIds);
+    Map<Long, EventUserData> userData = eventService.findLatestUserData(eventId, userIds);
+
+    app.aoki.quarkuscrud.generated.model.EventSnapshot response =
+        new app.aoki.quarkuscrud.generated.model.EventSnapshot();
+    response.setEvent(toEventDto(event, invitationCode));
+    response.setAttendees(
+        attendees.items().stream()
+            .map(
+                attendee -> {
+                  app.aoki.quarkuscrud.generated.model.EventSnapshotAttendee entry =
+                      new app.aoki.quarkuscrud.generated.model.EventSnapshotAttendee();
+                  entry.setAttendee(toAttendeeDto(attendee));
+                  UserProfile profile = profiles.get(attendee.getAttendeeUserId());
+                  if (profile != null) {
+                    entry.setProfile(profileUseCase.toProfileDto(profile));
+                  }
+                  EventUserData data = userData.get(attendee.getAttendeeUserId());
+                  if (data != null) {
+                    entry.setUserData(toUserDataDto(data));
+                  }
+                  return entry;
+                })
+            .collect(Collectors.toList()));
+    response.setNextCursor(attendees.nextCursor());
+    return response;
   }
 
   /**
@@ -241,26 +319,17 @@ public class EventUseCase {
    *
    * @param userId the user ID whose events to list
    * @param requestingUserId the ID of the user making the request
-   * @return list of event DTOs
+   * @param page the page to fetch
+   * @return page of event DTOs
    * @throws IllegalArgumentException if user not found
    */
-  public List<app.aoki.quarkuscrud.generated.model.Event> listEventsByUser(
-      Long userId, Long requestingUserId) {
+  public Page<app.aoki.quarkuscrud.generated.model.Event> listEventsByUser(
+      Long userId, Long requestingUserId, PageRequest page) {
     if (userService.findById(userId).isEmpty()) {
       throw new IllegalArgumentException("User not found");
     }
 
-    return eventService.findByInitiatorId(userId).stream()
-        .map(
-            event -> {
-              // Only include invitation code if the requesting user is the event owner
-              String invitationCode = null;
-              if (requestingUserId != null && requestingUserId.equals(event.getInitiatorId())) {
-                invitationCode = eventService.getInvitationCode(event.getId()).orElse(null);
-              }
-              return toEventDto(event, invitationCode);
-            })
-        .collect(Collectors.toList());
+    return toEventDtos(eventService.findByInitiatorId(userId, page), requestingUserId);
   }
 
   /**
@@ -272,26 +341,43 @@ public class EventUseCase {
    *
    * @param userId the user ID whose attended events to list
    * @param requestingUserId the ID of the user making the request
-   * @return list of event DTOs
+   * @param page the page to fetch
+   * @return page of event DTOs
    * @throws IllegalArgumentException if user not found
    */
-  public List<app.aoki.quarkuscrud.generated.model.Event> listAttendedEventsByUser(
-      Long userId, Long requestingUserId) {
+  public Page<app.aoki.quarkuscrud.generated.model.Event> listAttendedEventsByUser(
+      Long userId, Long requestingUserId, PageRequest page) {
     if (userService.findById(userId).isEmpty()) {
       throw new IllegalArgumentException("User not found");
     }
 
-    return eventService.findAttendedEventsByUserId(userId).stream()
-        .map(
-            event -> {
-              // Only include invitation code if the requesting user is the event owner
-              String invitationCode = null;
-              if (requestingUserId != null && requestingUserId.equals(event.getInitiatorId())) {
-                invitationCode = eventService.getInvitationCode(event.getId()).orElse(null);
-              }
-              return toEventDto(event, invitationCode);
-            })
-        .collect(Collectors.toList());
+    return toEventDtos(eventService.findAttendedEventsByUserId(userId, page), requestingUserId);
+  }
+
+  /**
+   * Opens the live stream of attendee changes for an event.
+   *
+   * <p>Only the event initiator and attendees may subscribe.
+   *
+   * @param eventId the event ID
+   * @param requestingUserId the ID of the user making the request
+   * @return the stream of live events
+   * @throws IllegalArgumentException if event not found
+   * @throws SecurityException if user is neither the initiator nor an attendee
+   */
+  public Multi<app.aoki.quarkuscrud.generated.model.EventLiveEvent> streamEventLive(
+      Long eventId, Long requestingUserId) {
+    Event event =
+        eventService
+            .findById(eventId)
+            .orElseThrow(() -> new IllegalArgumentException("Event not found"));
+
+    if (!requestingUserId.equals(event.getInitiatorId())
+        && !eventService.isUserAttendee(eventId, requestingUserId)) {
+      throw new SecurityException("Only the initiator and attendees can follow the event");
+    }
+
+    return eventLiveBroadcaster.subscribe(eventId).map(this::toLiveEventDto);
   }
 
   /**
@@ -320,11 +406,30 @@ public class EventUseCase {
    *
    * @param eventId the event ID
    * @param userId the user ID
-   * @return an Optional containing the user data DTO if found
+   * @return an Optional containing the versioned user data DTO if found
    */
-  public Optional<app.aoki.quarkuscrud.generated.model.EventUserData> getEventUserData(
+  public Optional<Versioned<app.aoki.quarkuscrud.generated.model.EventUserData>> getEventUserData(
       Long eventId, Long userId) {
-    return eventService.findLatestUserData(eventId, userId).map(this::toUserDataDto);
+    return eventService
+        .findLatestUserData(eventId, userId)
+        .map(
+            data ->
+                Versioned.of(
+                    "event-user-data",
+                    data.getId(),
+                    data.getUpdatedAt(),
+                    () -> toUserDataDto(data)));
+  }
+
+  /**
+   * Streams the latest user data of every user in an event.
+   *
+   * @param eventId the event ID
+   * @param consumer receives each user's latest data DTO, ordered by user ID
+   */
+  public void streamLatestEventUserData(
+      Long eventId, Consumer<app.aoki.quarkuscrud.generated.model.EventUserData> consumer) {
+    eventService.forEachLatestUserData(eventId, data -> consumer.accept(toUserDataDto(data)));
   }
 
   /**
@@ -349,6 +454,26 @@ public class EventUseCase {
     return toUserDataDto(newData);
   }
 
+  /**
+   * Converts events to DTOs, loading the invitation codes of the requester's own events in a
+   * single query.
+   */
+  private Page<app.aoki.quarkuscrud.generated.model.Event> toEventDtos(
+      Page<Event> events, Long requestingUserId) {
+    // Only include invitation codes for events the requesting user owns
+    List<Long> ownedEventIds =
+        events.items().stream()
+            .filter(event -> isOwner(event, requestingUserId))
+            .map(Event::getId)
+            .collect(Collectors.toList());
+    Map<Long, String> invitationCodes = eventService.getInvitationCodes(ownedEventIds);
+    return events.map(event -> toEventDto(event, invitationCodes.get(event.getId())));
+  }
+
+  private static boolean isOwner(Event event, Long requestingUserId) {
+    return requestingUserId != null && requestingUserId.equals(event.getInitiatorId());
+  }
+
   private app.aoki.quarkuscrud.generated.model.Event toEventDto(
       Event event, String invitationCode) {
     app.aoki.quarkuscrud.generated.model.Event response =
@@ -362,6 +487,7 @@ public class EventUseCase {
     if (invitationCode != null) {
       response.setInvitationCode(invitationCode);
     }
+    response.setAttendeeCount(event.getAttendeeCount());
     if (event.getExpiresAt() != null) {
       response.setExpiresAt(event.getExpiresAt().atOffset(ZoneOffset.UTC));
     }
@@ -385,6 +511,19 @@ public class EventUseCase {
     return response;
   }
 
+  private app.aoki.quarkuscrud.generated.model.EventLiveEvent toLiveEventDto(
+      EventLiveUpdate update) {
+    app.aoki.quarkuscrud.generated.model.EventLiveEvent response =
+        new app.aoki.quarkuscrud.generated.model.EventLiveEvent();
+    response.setEventType(
+        app.aoki.quarkuscrud.generated.model.EventLiveEvent.EventTypeEnum.fromValue(
+            update.type().name()));
+    response.setEventId(update.eventId());
+    response.setAttendeeUserId(update.attendeeUserId());
+    response.setTimestamp(update.timestamp().atOffset(ZoneOffset.UTC));
+    return response;
+  }
+
   private app.aoki.quarkuscrud.generated.model.EventAttendee toAttendeeDto(EventAttendee attendee) {
     app.aoki.quarkuscrud.generated.model.EventAttendee response =
         new app.aoki.quarkuscrud.generated.model.EventAttendee();
@@ -2,18 +2,19 @@ package app.aoki.quarkuscrud.usecase;
 
 import app.aoki.quarkuscrud.entity.Friendship;
 import app.aoki.quarkuscrud.mapper.FriendshipMapper;
+import app.aoki.quarkuscrud.service.FriendGraph;
 import app.aoki.quarkuscrud.service.FriendshipService;
-import app.aoki.quarkuscrud.service.UserService;
+import app.aoki.quarkuscrud.service.Page;
+import app.aoki.quarkuscrud.service.PageRequest;
+import app.aoki.quarkuscrud.service.Versioned;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
-import jakarta.transaction.Transactional;
 import java.time.ZoneOffset;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.stream.Collectors;
 
 /**
  * Use case for friendship-related business flows.
@@ -24,8 +25,12 @@ import java.util.stream.Collectors;
 @ApplicationScoped
 public class FriendshipUseCase {
 
+  // Suggestions returned when the client does not ask for a number, and the most it may ask for
+  private static final int DEFAULT_SUGGESTIONS = 20;
+  private static final int MAX_SUGGESTIONS = 100;
+
   @Inject FriendshipService friendshipService;
-  @Inject UserService userService;
+  @Inject FriendGraph friendGraph;
   @Inject FriendshipMapper friendshipMapper;
   @Inject ProfileUseCase profileUseCase;
   @Inject ObjectMapper objectMapper;
@@ -33,8 +38,7 @@ public class FriendshipUseCase {
   /**
    * Gets a friendship between the authenticated user and another user.
    *
-   * <p>This method searches for a friendship record between the current user and the specified
-   * other user, checking both possible orderings (currentUser→otherUser or otherUser→currentUser).
+   * <p>Friendships are stored in both directions, so this returns the currentUser→otherUser record.
    *
    * @param currentUserId the ID of the currently authenticated user
    * @param otherUserId the ID of the other user
@@ -52,65 +56,104 @@ public class FriendshipUseCase {
   }
 
   /**
-   * Lists received friendships for a user.
+   * Lists one page of received friendships for a user, newest first.
    *
    * @param userId the recipient user ID
-   * @return list of friendship DTOs
+   * @param page the page to fetch
+   * @return page of friendship DTOs
+   */
+  public Page<app.aoki.quarkuscrud.generated.model.Friendship> listReceivedFriendships(
+      Long userId, PageRequest page) {
+    List<Friendship> rows =
+        friendshipMapper.findPageByRecipientId(
+            userId, page.afterCreatedAt(), page.afterId(), page.limit() + 1);
+    Page<Friendship> friendships = Page.of(rows, page, Friendship::getCreatedAt, Friendship::getId);
+    // All sender profiles of the page in one query instead of one query per friendship
+    Map<Long, app.aoki.quarkuscrud.generated.model.UserProfile> senderProfiles =
+        profileUseCase.getLatestProfiles(
+            friendships.items().stream().map(Friendship::getSenderId).toList());
+    return friendships.map(
+        friendship -> toFriendshipDto(friendship, senderProfiles.get(friendship.getSenderId())));
+  }
+
+  /**
+   * Lists the users who are friends of both the current user and another user.
+   *
+   * @param currentUserId the ID of the currently authenticated user
+   * @param otherUserId the ID of the other user
+   * @return the mutual friends DTO
    */
-  public List<app.aoki.quarkuscrud.generated.model.Friendship> listReceivedFriendships(
-      Long userId) {
-    return friendshipMapper.findByRecipientId(userId).stream()
-        .map(this::toFriendshipDto)
-        .collect(Collectors.toList());
+  public app.aoki.quarkuscrud.generated.model.MutualFriends listMutualFriends(
+      Long currentUserId, Long otherUserId) {
+    app.aoki.quarkuscrud.generated.model.MutualFriends response =
+        new app.aoki.quarkuscrud.generated.model.MutualFriends();
+    response.setUserIds(
+        Arrays.stream(friendGraph.mutualFriends(currentUserId, otherUserId)).boxed().toList());
+    return response;
+  }
+
+  /**
+   * Suggests people the user may know: friends of their friends, most mutual friends first.
+   *
+   * @param userId the user ID
+   * @param limit the requested number of suggestions, or null for the default
+   * @return the suggestion DTOs
+   * @throws IllegalArgumentException if the limit is not positive
+   */
+  public List<app.aoki.quarkuscrud.generated.model.FriendSuggestion> listFriendSuggestions(
+      Long userId, Integer limit) {
+    if (limit != null && limit < 1) {
+      throw new IllegalArgumentException("limit must be at least 1");
+    }
+    int count = limit == null ? DEFAULT_SUGGESTIONS : Math.min(limit, MAX_SUGGESTIONS);
+    return friendGraph.suggestions(userId, count).stream()
+        .map(
+            suggestion -> {
+              app.aoki.quarkuscrud.generated.model.FriendSuggestion response =
+                  new app.aoki.quarkuscrud.generated.model.FriendSuggestion();
+              response.setUserId(suggestion.userId());
+              response.setMutualFriendCount(suggestion.mutualFriendCount());
+              return response;
+            })
+        .toList();
   }
 
   /**
    * Creates a mutual friendship between sender and recipient, or updates meta if it already exists.
    * This operation is idempotent - if the friendship already exists, it updates the meta and
-   * returns the existing friendship instead of throwing an error.
+   * returns the existing friendship instead of throwing an error. Both directions are written by a
+   * single upsert, so there is no window between checking for the friendship and creating it.
    *
    * @param senderId the sender user ID
    * @param recipientId the recipient user ID
    * @param meta optional metadata for the friendship
    * @return the created or updated friendship as DTO
    * @throws IllegalArgumentException if recipient user not found
+   * @throws IllegalStateException if sender and recipient are the same user
    */
-  @Transactional
   public app.aoki.quarkuscrud.generated.model.Friendship createOrUpdateFriendship(
       Long senderId, Long recipientId, java.util.Map<String, Object> meta) {
-    if (userService.findById(recipientId).isEmpty()) {
-      throw new IllegalArgumentException("User not found");
-    }
-
-    // Check if friendship already exists in either direction
-    Optional<Friendship> existingFriendship =
-        friendshipService.findByParticipants(senderId, recipientId);
-
-    if (existingFriendship.isPresent()) {
-      // Friendship exists - update meta if provided
-      Friendship friendship = existingFriendship.get();
-      if (meta != null && !meta.isEmpty()) {
-        // Update both directions
-        friendshipService.updateMeta(friendship.getId(), meta);
-
-        // Find and update the reverse friendship
-        Optional<Friendship> reverseFriendship =
-            friendshipMapper.findBySenderAndRecipient(
-                friendship.getRecipientId(), friendship.getSenderId());
-        reverseFriendship.ifPresent(rf -> friendshipService.updateMeta(rf.getId(), meta));
-
-        // Reload the updated friendship
-        friendship = friendshipMapper.findById(friendship.getId()).orElseThrow();
-      }
-      return toFriendshipDto(friendship);
+    if (senderId.equals(recipientId)) {
+      throw new IllegalStateException("Cannot exchange profile cards with yourself");
     }
-
-    // Create new friendship
-    Friendship friendship = friendshipService.createFriendship(senderId, recipientId, meta);
+    Friendship friendship =
+        friendshipService
+            .upsertFriendship(senderId, recipientId, meta)
+            .orElseThrow(() -> new IllegalArgumentException("User not found"));
     return toFriendshipDto(friendship);
   }
 
   private app.aoki.quarkuscrud.generated.model.Friendship toFriendshipDto(Friendship friendship) {
+    return toFriendshipDto(
+        friendship,
+        profileUseCase
+            .getLatestProfile(friendship.getSenderId())
+            .map(Versioned::get)
+            .orElse(null));
+  }
+
+  private app.aoki.quarkuscrud.generated.model.Friendship toFriendshipDto(
+      Friendship friendship, app.aoki.quarkuscrud.generated.model.UserProfile senderProfile) {
     app.aoki.quarkuscrud.generated.model.Friendship response =
         new app.aoki.quarkuscrud.generated.model.Friendship();
     response.setId(friendship.getId());
@@ -125,7 +168,9 @@ public class FriendshipUseCase {
     }
 
     // Populate senderProfile if available
-    profileUseCase.getLatestProfile(friendship.getSenderId()).ifPresent(response::setSenderProfile);
+    if (senderProfile != null) {
+      response.setSenderProfile(senderProfile);
+    }
 
     return response;
   }
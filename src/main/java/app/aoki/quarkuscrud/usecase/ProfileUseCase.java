@@ -3,13 +3,16 @@ package app.aoki.quarkuscrud.usecase;
 import app.aoki.quarkuscrud.entity.UserProfile;
 import app.aoki.quarkuscrud.generated.model.UserProfileUpdateRequest;
 import app.aoki.quarkuscrud.service.ProfileService;
+import app.aoki.quarkuscrud.service.Versioned;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import java.time.ZoneOffset;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Optional;
 
@@ -26,13 +29,38 @@ public class ProfileUseCase {
   @Inject ObjectMapper objectMapper;
 
   /**
-   * Gets the latest profile for a user.
+   * Gets the latest profile for a user, versioned by the profile revision.
    *
    * @param userId the user ID
-   * @return an Optional containing the profile DTO if found
+   * @return an Optional containing the versioned profile DTO if found
    */
-  public Optional<app.aoki.quarkuscrud.generated.model.UserProfile> getLatestProfile(Long userId) {
-    return profileService.findLatestByUserId(userId).map(this::toProfileDto);
+  public Optional<Versioned<app.aoki.quarkuscrud.generated.model.UserProfile>> getLatestProfile(
+      Long userId) {
+    return profileService
+        .findLatestByUserId(userId)
+        .map(
+            profile ->
+                Versioned.of(
+                    "profile",
+                    profile.getId(),
+                    profile.getUpdatedAt(),
+                    () -> toProfileDto(profile)));
+  }
+
+  /**
+   * Gets the latest profile of each of several users with one query. Repeated IDs are loaded and
+   * mapped once.
+   *
+   * @param userIds the user IDs, possibly with repeats
+   * @return profile DTO by user ID; users without a profile are absent
+   */
+  public Map<Long, app.aoki.quarkuscrud.generated.model.UserProfile> getLatestProfiles(
+      Collection<Long> userIds) {
+    Map<Long, app.aoki.quarkuscrud.generated.model.UserProfile> profiles = new HashMap<>();
+    profileService
+        .findLatestByUserIds(new HashSet<>(userIds))
+        .forEach((userId, profile) -> profiles.put(userId, toProfileDto(profile)));
+    return profiles;
   }
 
   /**
@@ -51,7 +79,7 @@ public class ProfileUseCase {
     return toProfileDto(newProfile);
   }
 
-  private app.aoki.quarkuscrud.generated.model.UserProfile toProfileDto(UserProfile profile) {
+  app.aoki.quarkuscrud.generated.model.UserProfile toProfileDto(UserProfile profile) {
     app.aoki.quarkuscrud.generated.model.UserProfile response =
         new app.aoki.quarkuscrud.generated.model.UserProfile();
     response.setId(profile.getId());
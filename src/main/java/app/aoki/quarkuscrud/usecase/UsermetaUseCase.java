@@ -15,7 +15,9 @@ import app.aoki.quarkuscrud.mapper.EventMapper;
 import app.aoki.quarkuscrud.mapper.EventUserDataMapper;
 import app.aoki.quarkuscrud.mapper.FriendshipMapper;
 import app.aoki.quarkuscrud.mapper.UserMapper;
-import app.aoki.quarkuscrud.mapper.UserProfileMapper;
+import app.aoki.quarkuscrud.service.ProfileService;
+import app.aoki.quarkuscrud.service.UserService;
+import app.aoki.quarkuscrud.service.Versioned;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -47,15 +49,16 @@ public class UsermetaUseCase {
   @Inject EventMapper eventMapper;
   @Inject EventAttendeeMapper eventAttendeeMapper;
   @Inject FriendshipMapper friendshipMapper;
-  @Inject UserProfileMapper userProfileMapper;
   @Inject EventUserDataMapper eventUserDataMapper;
   @Inject AuthnProviderMapper authnProviderMapper;
   @Inject EventInvitationCodeMapper eventInvitationCodeMapper;
+  @Inject UserService userService;
+  @Inject ProfileService profileService;
   @Inject ObjectMapper objectMapper;
 
   // ==================== User Meta ====================
 
-  public UserMeta getUserMeta(Long userId, Long requestingUserId) {
+  public Versioned<UserMeta> getUserMeta(Long userId, Long requestingUserId) {
     if (!userId.equals(requestingUserId)) {
       throw new SecurityException("You can only access your own metadata");
     }
@@ -64,7 +67,7 @@ public class UsermetaUseCase {
         userMapper
             .findById(userId)
             .orElseThrow(() -> new IllegalArgumentException("User not found"));
-    return parseMetaData(user.getUsermeta());
+    return versioned("user-meta", user.getId(), user.getUpdatedAt(), user.getUsermeta());
   }
 
   @Transactional
@@ -78,14 +81,13 @@ public class UsermetaUseCase {
             .findById(userId)
             .orElseThrow(() -> new IllegalArgumentException("User not found"));
     user.setUsermeta(serializeMetaData(metaData));
-    user.setUpdatedAt(LocalDateTime.now());
-    userMapper.update(user);
+    userService.updateUser(user);
     return metaData;
   }
 
   // ==================== Event Meta ====================
 
-  public UserMeta getEventMeta(Long eventId, Long requestingUserId) {
+  public Versioned<UserMeta> getEventMeta(Long eventId, Long requestingUserId) {
     Event event =
         eventMapper
             .findById(eventId)
@@ -95,7 +97,7 @@ public class UsermetaUseCase {
       throw new SecurityException("Only event attendees can access event metadata");
     }
 
-    return parseMetaData(event.getUsermeta());
+    return versioned("event-meta", event.getId(), event.getUpdatedAt(), event.getUsermeta());
   }
 
   @Transactional
@@ -117,13 +119,17 @@ public class UsermetaUseCase {
 
   // ==================== Friendship Meta ====================
 
-  public UserMeta getFriendshipMeta(Long requestingUserId, Long otherUserId) {
+  public Versioned<UserMeta> getFriendshipMeta(Long requestingUserId, Long otherUserId) {
     Friendship friendship =
         friendshipMapper
             .findBySenderAndRecipient(requestingUserId, otherUserId)
             .orElseThrow(() -> new IllegalArgumentException("Friendship not found"));
 
-    return parseMetaData(friendship.getUsermeta());
+    return versioned(
+        "friendship-meta",
+        friendship.getId(),
+        friendship.getUpdatedAt(),
+        friendship.getUsermeta());
   }
 
   @Transactional
@@ -141,16 +147,17 @@ public class UsermetaUseCase {
 
   // ==================== User Profile Meta ====================
 
-  public UserMeta getUserProfileMeta(Long userId, Long requestingUserId) {
+  public Versioned<UserMeta> getUserProfileMeta(Long userId, Long requestingUserId) {
     if (!userId.equals(requestingUserId)) {
       throw new SecurityException("You can only access your own profile metadata");
     }
 
     UserProfile profile =
-        userProfileMapper
+        profileService
             .findLatestByUserId(userId)
             .orElseThrow(() -> new IllegalArgumentException("User profile not found"));
-    return parseMetaData(profile.getUsermeta());
+    return versioned(
+        "profile-meta", profile.getId(), profile.getUpdatedAt(), profile.getUsermeta());
   }
 
   @Transactional
@@ -160,18 +167,18 @@ public class UsermetaUseCase {
     }
 
     UserProfile profile =
-        userProfileMapper
+        profileService
             .findLatestByUserId(userId)
             .orElseThrow(() -> new IllegalArgumentException("User profile not found"));
     profile.setUsermeta(serializeMetaData(metaData));
-    profile.setUpdatedAt(LocalDateTime.now());
-    userProfileMapper.updateRevisionMeta(profile);
+    profileService.updateRevisionMeta(profile);
     return metaData;
   }
 
   // ==================== Event User Data Meta ====================
 
-  public UserMeta getEventUserDataMeta(Long eventId, Long userId, Long requestingUserId) {
+  public Versioned<UserMeta> getEventUserDataMeta(
+      Long eventId, Long userId, Long requestingUserId) {
     Event event =
         eventMapper
             .findById(eventId)
@@ -185,7 +192,11 @@ public class UsermetaUseCase {
         eventUserDataMapper
             .findLatestByEventIdAndUserId(eventId, userId)
             .orElseThrow(() -> new IllegalArgumentException("Event user data not found"));
-    return parseMetaData(eventUserData.getUsermeta());
+    return versioned(
+        "event-user-data-meta",
+        eventUserData.getId(),
+        eventUserData.getUpdatedAt(),
+        eventUserData.getUsermeta());
   }
 
   @Transactional
@@ -207,7 +218,8 @@ public class UsermetaUseCase {
 
   // ==================== Event Attendee Meta ====================
 
-  public UserMeta getEventAttendeeMeta(Long eventId, Long attendeeUserId, Long requestingUserId) {
+  public Versioned<UserMeta> getEventAttendeeMeta(
+      Long eventId, Long attendeeUserId, Long requestingUserId) {
     if (!isEventAttendee(eventId, requestingUserId)) {
       throw new SecurityException("Only event attendees can access attendee metadata");
     }
@@ -216,7 +228,8 @@ public class UsermetaUseCase {
         eventAttendeeMapper
             .findByEventAndAttendee(eventId, attendeeUserId)
             .orElseThrow(() -> new IllegalArgumentException("Event attendee not found"));
-    return parseMetaData(attendee.getUsermeta());
+    return versioned(
+        "event-attendee-meta", attendee.getId(), attendee.getUpdatedAt(), attendee.getUsermeta());
   }
 
   @Transactional
@@ -317,6 +330,11 @@ public class UsermetaUseCase {
 
   // ==================== Helper Methods ====================
 
+  private Versioned<UserMeta> versioned(
+      String kind, Long id, LocalDateTime updatedAt, String usermeta) {
+    return Versioned.of(kind, id, updatedAt, () -> parseMetaData(usermeta));
+  }
+
   private boolean isEventAttendee(Long eventId, Long userId) {
     // Check if user is the event initiator
     Event event = eventMapper.findById(eventId).orElse(null);
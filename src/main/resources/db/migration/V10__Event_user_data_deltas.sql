@@ -0,0 +1,38 @@
+-- Delta-encoded event user data revisions
+-- A revision either stores its whole document (base_id IS NULL, a snapshot) or an RFC 7386 merge
+-- patch against the snapshot named by base_id. delta_seq counts the revisions since that snapshot,
+-- so writers know when to start a new one. Reads materialize deltas with jsonb_merge_patch.
+-- Existing rows are all snapshots.
+
+ALTER TABLE event_user_data ADD COLUMN base_id BIGINT;
+ALTER TABLE event_user_data ADD COLUMN delta_seq INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE event_user_data ADD CONSTRAINT fk_event_user_data_base FOREIGN KEY (base_id) REFERENCES event_user_data(id);
+
+COMMENT ON COLUMN event_user_data.user_data IS 'Full user data for a snapshot, or a merge patch against base_id for a delta (immutable)';
+COMMENT ON COLUMN event_user_data.base_id IS 'Snapshot revision this delta applies to; NULL for snapshots';
+COMMENT ON COLUMN event_user_data.delta_seq IS 'Number of revisions since the snapshot; 0 for snapshots';
+
+-- Lets compaction check cheaply whether a snapshot is still referenced
+CREATE INDEX idx_event_user_data_base_id ON event_user_data(base_id) WHERE base_id IS NOT NULL;
+
+-- RFC 7386 JSON Merge Patch
+CREATE FUNCTION jsonb_merge_patch(target JSONB, patch JSONB) RETURNS JSONB
+LANGUAGE plpgsql IMMUTABLE STRICT AS $$
+DECLARE
+    result JSONB;
+    entry RECORD;
+BEGIN
+    IF jsonb_typeof(patch) <> 'object' THEN
+        RETURN patch;
+    END IF;
+    result := CASE WHEN jsonb_typeof(target) = 'object' THEN target ELSE '{}'::jsonb END;
+    FOR entry IN SELECT key, value FROM jsonb_each(patch) LOOP
+        IF jsonb_typeof(entry.value) = 'null' THEN
+            result := result - entry.key;
+        ELSE
+            result := result || jsonb_build_object(entry.key, jsonb_merge_patch(COALESCE(result -> entry.key, 'null'::jsonb), entry.value));
+        END IF;
+    END LOOP;
+    RETURN result;
+END;
+$$;
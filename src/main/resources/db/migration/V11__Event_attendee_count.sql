@@ -0,0 +1,12 @@
+-- Denormalized attendee count on events
+-- Kept in step with event_attendees by the statements that add attendees, in the same
+-- transaction, so list and summary views can show it without scanning event_attendees. A
+-- scheduled repair job resets any row that has drifted.
+
+ALTER TABLE events ADD COLUMN attendee_count INTEGER NOT NULL DEFAULT 0;
+
+COMMENT ON COLUMN events.attendee_count IS 'Number of event_attendees rows for this event (denormalized)';
+
+UPDATE events e SET attendee_count = a.attendee_count
+FROM (SELECT event_id, COUNT(*) AS attendee_count FROM event_attendees GROUP BY event_id) a
+WHERE e.id = a.event_id;
@@ -0,0 +1,12 @@
+-- Store both directions of every friendship
+-- Friendship lookups probe the unique pair index for a single direction, which relies on each
+-- friendship being stored as sender->recipient and recipient->sender. New friendships always are;
+-- this adds the reverse row for any older one that only has a single direction.
+
+INSERT INTO friendships (sender_id, recipient_id, usermeta, sysmeta, created_at, updated_at)
+SELECT f.recipient_id, f.sender_id, f.usermeta, f.sysmeta, f.created_at, f.updated_at
+FROM friendships f
+WHERE NOT EXISTS (
+    SELECT 1 FROM friendships r WHERE r.sender_id = f.recipient_id AND r.recipient_id = f.sender_id
+)
+ON CONFLICT (sender_id, recipient_id) DO NOTHING;
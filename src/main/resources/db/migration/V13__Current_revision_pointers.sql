@@ -0,0 +1,38 @@
+-- Pointers to the current profile and event user data revisions
+-- Latest-revision reads used to walk each history newest first (ORDER BY created_at DESC LIMIT 1).
+-- Writers now record the revision they insert here in the same transaction, so reading the current
+-- revision is a primary key lookup followed by a join on the revision's primary key.
+-- A pointer goes away with the revision it names; revision compaction never deletes a revision
+-- that is still pointed to.
+
+CREATE TABLE user_profile_current (
+    user_id BIGINT PRIMARY KEY,
+    profile_id BIGINT NOT NULL,
+    CONSTRAINT fk_user_profile_current_profile FOREIGN KEY (profile_id) REFERENCES user_profiles(id) ON DELETE CASCADE
+);
+
+CREATE TABLE event_user_data_current (
+    event_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    user_data_id BIGINT NOT NULL,
+    PRIMARY KEY (event_id, user_id),
+    CONSTRAINT fk_event_user_data_current_revision FOREIGN KEY (user_data_id) REFERENCES event_user_data(id) ON DELETE CASCADE
+);
+
+COMMENT ON TABLE user_profile_current IS 'Current profile revision of each user';
+COMMENT ON TABLE event_user_data_current IS 'Current user data revision of each user in each event';
+
+-- Used by the cascades above and by compaction to check whether a revision is current
+CREATE UNIQUE INDEX idx_user_profile_current_profile ON user_profile_current(profile_id);
+CREATE UNIQUE INDEX idx_event_user_data_current_revision ON event_user_data_current(user_data_id);
+
+-- Backfill from the existing histories
+INSERT INTO user_profile_current (user_id, profile_id)
+SELECT DISTINCT ON (user_id) user_id, id
+FROM user_profiles
+ORDER BY user_id, created_at DESC, id DESC;
+
+INSERT INTO event_user_data_current (event_id, user_id, user_data_id)
+SELECT DISTINCT ON (event_id, user_id) event_id, user_id, id
+FROM event_user_data
+ORDER BY event_id, user_id, created_at DESC, id DESC;
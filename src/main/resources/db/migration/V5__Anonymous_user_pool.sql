@@ -0,0 +1,17 @@
+-- Pool of pre-provisioned anonymous users
+-- Guest sign-up claims a row from this pool instead of creating the user and its
+-- authentication provider on the request thread. A background job keeps the pool
+-- between its low and high watermarks.
+
+-- ============================================================================
+-- Anonymous User Pool Table
+-- ============================================================================
+CREATE TABLE anonymous_user_pool (
+    user_id BIGINT PRIMARY KEY,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_anonymous_user_pool_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+-- Comments for documentation
+COMMENT ON TABLE anonymous_user_pool IS 'Unclaimed pre-provisioned anonymous users; a row is deleted when the user is handed out';
+COMMENT ON COLUMN anonymous_user_pool.user_id IS 'Pre-provisioned user that already has an anonymous authentication provider';
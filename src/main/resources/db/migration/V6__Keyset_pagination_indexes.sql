@@ -0,0 +1,29 @@
+-- Indexes for keyset pagination of list endpoints
+-- List endpoints page with WHERE (created_at, id) < (?, ?) ORDER BY created_at DESC, id DESC.
+-- These composite indexes serve each page as a single range scan. They also cover the
+-- plain equality lookups on their leading column, so the single-column indexes they
+-- replace are dropped.
+
+-- ============================================================================
+-- Events by initiator
+-- ============================================================================
+CREATE INDEX idx_events_initiator_created ON events(initiator_id, created_at DESC, id DESC);
+DROP INDEX IF EXISTS idx_events_initiator;
+
+-- ============================================================================
+-- Attendees by event
+-- ============================================================================
+CREATE INDEX idx_event_attendees_event_created ON event_attendees(event_id, created_at DESC, id DESC);
+DROP INDEX IF EXISTS idx_event_attendees_event;
+
+-- ============================================================================
+-- Attendances by user (attended events page on the attendance row)
+-- ============================================================================
+CREATE INDEX idx_event_attendees_user_created ON event_attendees(attendee_user_id, created_at DESC, id DESC);
+DROP INDEX IF EXISTS idx_event_attendees_user;
+
+-- ============================================================================
+-- Friendships by recipient
+-- ============================================================================
+CREATE INDEX idx_friendships_recipient_created ON friendships(recipient_id, created_at DESC, id DESC);
+DROP INDEX IF EXISTS idx_friendships_recipient;
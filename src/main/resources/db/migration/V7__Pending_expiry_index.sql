@@ -0,0 +1,9 @@
+-- Partial index for the event expiry sweeper
+-- The sweeper looks for events past expires_at that are not yet expired or deleted. Once swept,
+-- an event no longer matches the predicate and drops out of this index, so each sweep scans only
+-- the overdue backlog instead of every event that ever expired. It replaces the plain
+-- expires_at index, which nothing else reads.
+
+CREATE INDEX idx_events_expires_at_pending ON events(expires_at)
+    WHERE LOWER(status) NOT IN ('expired', 'deleted');
+DROP INDEX IF EXISTS idx_events_expires_at;
@@ -0,0 +1,9 @@
+-- Index for reading the latest event user data revisions
+-- Both the single-user lookup (ORDER BY created_at DESC LIMIT 1) and the per-event listing
+-- (DISTINCT ON (user_id) ... ORDER BY user_id, created_at DESC) read revisions in this order,
+-- so each is served by walking this index without a sort. It also covers lookups by event_id and
+-- by (event_id, user_id), so the indexes for those are dropped.
+
+CREATE INDEX idx_event_user_data_event_user_created ON event_user_data(event_id, user_id, created_at DESC);
+DROP INDEX IF EXISTS idx_event_user_data_event_user;
+DROP INDEX IF EXISTS idx_event_user_data_event_id;
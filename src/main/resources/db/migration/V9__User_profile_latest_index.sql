@@ -0,0 +1,7 @@
+-- Index for walking a user's profile revisions newest first
+-- The latest-profile lookup (ORDER BY created_at DESC LIMIT 1) and revision compaction, which
+-- counts the revisions newer than each candidate, both read a user's history in this order.
+-- It also covers lookups by user_id, so the index for that is dropped.
+
+CREATE INDEX idx_user_profiles_user_created ON user_profiles(user_id, created_at DESC);
+DROP INDEX IF EXISTS idx_user_profiles_user_id;
@@ -4,6 +4,7 @@ import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 import io.quarkus.test.junit.QuarkusTest;
@@ -277,6 +278,62 @@ public class EventCrudIntegrationTest {
         .body("[0].id", equalTo(((Long) createdEventId).intValue()));
   }
 
+  @Test
+  @Order(12)
+  public void testGetEventSnapshot() {
+    Response response =
+        given()
+            .header("Authorization", "Bearer " + jwtToken)
+            .queryParam("limit", 1)
+            .when()
+            .get("/api/events/" + eventId + "/snapshot")
+            .then()
+            .statusCode(200)
+            .body("event.id", equalTo(eventId.intValue()))
+            .body("event.invitationCode", notNullValue())
+            .body("attendees.size()", equalTo(1))
+            .body("attendees[0].attendee.eventId", equalTo(eventId.intValue()))
+            .body("nextCursor", notNullValue())
+            .extract()
+            .response();
+    int initiatorId = response.jsonPath().getInt("event.initiatorId");
+
+    // Later joiners come first, so the initiator and their initial user data are on a later page
+    given()
+        .header("Authorization", "Bearer " + jwtToken)
+        .queryParam("limit", 200)
+        .queryParam("cursor", response.jsonPath().getString("nextCursor"))
+        .when()
+        .get("/api/events/" + eventId + "/snapshot")
+        .then()
+        .statusCode(200)
+        .body("attendees.size()", greaterThanOrEqualTo(1))
+        .body("attendees[-1].userData.userId", equalTo(initiatorId))
+        .body("nextCursor", nullValue());
+  }
+
+  @Test
+  @Order(13)
+  public void testGetEventSnapshotByNonAttendee() {
+    Response otherUserResponse = given().contentType(ContentType.JSON).post("/api/auth/guest");
+    String otherUserToken = otherUserResponse.getHeader("Authorization").substring(7);
+
+    given()
+        .header("Authorization", "Bearer " + otherUserToken)
+        .when()
+        .get("/api/events/" + eventId + "/snapshot")
+        .then()
+        .statusCode(403);
+
+    given()
+        .header("Authorization", "Bearer " + jwtToken)
+        .when()
+        .get("/api/events/999999/snapshot")
+        .then()
+        .statusCode(404)
+        .body("error", equalTo("Event not found"));
+  }
+
   @Test
   @Order(15)
   public void testDeleteEventWithoutAuthentication() {
@@ -3,6 +3,7 @@ package app.aoki.quarkuscrud;
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.anyOf;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -285,4 +286,40 @@ public class EventUserDataIntegrationTest {
         .body("userData.nickname", equalTo("テストユーザー"))
         .body("userData.bio", equalTo("Bio with émojis 🎉"));
   }
+
+  @Test
+  @Order(13)
+  public void testListLatestUserDataForAllUsers() {
+    // One entry per user with data, each holding that user's latest revision
+    Long firstUserId = Math.min(initiatorUserId, attendeeUserId);
+    Long secondUserId = Math.max(initiatorUserId, attendeeUserId);
+    Response response =
+        given()
+            .header("Authorization", "Bearer " + attendeeToken)
+            .when()
+            .get("/api/events/" + eventId + "/users");
+    response.then().statusCode(200).body("$", hasSize(2));
+    response
+        .then()
+        .body("[0].userId", equalTo(firstUserId.intValue()))
+        .body("[1].userId", equalTo(secondUserId.intValue()));
+
+    int attendeeIndex = attendeeUserId.equals(firstUserId) ? 0 : 1;
+    response
+        .then()
+        .body("[" + attendeeIndex + "].userData.nickname", equalTo("テストユーザー"))
+        .body("[" + (1 - attendeeIndex) + "].userData.score", equalTo(200));
+  }
+
+  @Test
+  @Order(14)
+  public void testListUserDataAsNonAttendee() {
+    given()
+        .header("Authorization", "Bearer " + nonAttendeeToken)
+        .when()
+        .get("/api/events/" + eventId + "/users")
+        .then()
+        .statusCode(403)
+        .body("error", equalTo("Access denied. You are not an attendee of this event."));
+  }
 }
@@ -6,6 +6,8 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 import io.quarkus.test.junit.QuarkusTest;
 import io.restassured.http.ContentType;
@@ -413,4 +415,113 @@ public class FriendshipIntegrationTest {
             "find { it.senderUserId == " + userXId.intValue() + " }.meta.notes",
             equalTo("Follow-up"));
   }
+
+  @Test
+  @Order(13)
+  public void testReceivedFriendshipsArePaginated() {
+    Response recipient = given().contentType(ContentType.JSON).post("/api/auth/guest");
+    String recipientToken = recipient.getHeader("Authorization").substring(7);
+    Long recipientId = recipient.jsonPath().getLong("id");
+
+    for (int i = 0; i < 3; i++) {
+      Response sender = given().contentType(ContentType.JSON).post("/api/auth/guest");
+      given()
+          .header("Authorization", sender.getHeader("Authorization"))
+          .contentType(ContentType.JSON)
+          .body("{}")
+          .post("/api/users/" + recipientId + "/friendship")
+          .then()
+          .statusCode(200);
+    }
+
+    Response firstPage =
+        given()
+            .header("Authorization", "Bearer " + recipientToken)
+            .queryParam("limit", 2)
+            .when()
+            .get("/api/me/friendships/received");
+    firstPage.then().statusCode(200).body("size()", equalTo(2));
+    String cursor = firstPage.getHeader("X-Next-Cursor");
+    assertNotNull(cursor);
+
+    given()
+        .header("Authorization", "Bearer " + recipientToken)
+        .queryParam("limit", 2)
+        .queryParam("cursor", cursor)
+        .when()
+        .get("/api/me/friendships/received")
+        .then()
+        .statusCode(200)
+        .body("size()", equalTo(1))
+        .header("X-Next-Cursor", nullValue());
+  }
+
+  @Test
+  @Order(14)
+  public void testInvalidCursorIsRejected() {
+    given()
+        .header("Authorization", "Bearer " + user1Token)
+        .queryParam("cursor", "not-a-cursor")
+        .when()
+        .get("/api/me/friendships/received")
+        .then()
+        .statusCode(400)
+        .body("error", notNullValue());
+  }
+
+  @Test
+  @Order(15)
+  public void testMutualFriendsAndSuggestions() {
+    // hub is friends with a and b; a is also friends with c
+    Response hub = given().contentType(ContentType.JSON).post("/api/auth/guest");
+    Response a = given().contentType(ContentType.JSON).post("/api/auth/guest");
+    Response b = given().contentType(ContentType.JSON).post("/api/auth/guest");
+    Response c = given().contentType(ContentType.JSON).post("/api/auth/guest");
+    Long hubId = hub.jsonPath().getLong("id");
+    Long bId = b.jsonPath().getLong("id");
+    Long cId = c.jsonPath().getLong("id");
+    for (Long recipientId : new Long[] {hubId, cId}) {
+      given()
+          .header("Authorization", a.getHeader("Authorization"))
+          .contentType(ContentType.JSON)
+          .body("{}")
+          .post("/api/users/" + recipientId + "/friendship")
+          .then()
+          .statusCode(200);
+    }
+    given()
+        .header("Authorization", b.getHeader("Authorization"))
+        .contentType(ContentType.JSON)
+        .body("{}")
+        .post("/api/users/" + hubId + "/friendship")
+        .then()
+        .statusCode(200);
+
+    given()
+        .header("Authorization", a.getHeader("Authorization"))
+        .when()
+        .get("/api/friendships/" + bId + "/mutual")
+        .then()
+        .statusCode(200)
+        .body("userIds.size()", equalTo(1))
+        .body("userIds[0]", equalTo(hubId.intValue()));
+
+    given()
+        .header("Authorization", hub.getHeader("Authorization"))
+        .when()
+        .get("/api/me/friendships/suggestions")
+        .then()
+        .statusCode(200)
+        .body("size()", equalTo(1))
+        .body("[0].userId", equalTo(cId.intValue()))
+        .body("[0].mutualFriendCount", equalTo(1));
+
+    given()
+        .header("Authorization", hub.getHeader("Authorization"))
+        .queryParam("limit", 0)
+        .when()
+        .get("/api/me/friendships/suggestions")
+        .then()
+        .statusCode(400);
+  }
 }
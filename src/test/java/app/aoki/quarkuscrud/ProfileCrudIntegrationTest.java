@@ -2,6 +2,8 @@ package app.aoki.quarkuscrud;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
 
 import io.quarkus.test.junit.QuarkusTest;
@@ -147,4 +149,48 @@ public class ProfileCrudIntegrationTest {
         .then()
         .statusCode(401);
   }
+
+  @Test
+  @Order(9)
+  public void testConditionalGetOfMyProfile() {
+    String etag =
+        given()
+            .header("Authorization", "Bearer " + jwtToken)
+            .when()
+            .get("/api/me/profile")
+            .then()
+            .statusCode(200)
+            .header("ETag", notNullValue())
+            .extract()
+            .header("ETag");
+
+    given()
+        .header("Authorization", "Bearer " + jwtToken)
+        .header("If-None-Match", etag)
+        .when()
+        .get("/api/me/profile")
+        .then()
+        .statusCode(304)
+        .header("ETag", equalTo(etag));
+
+    given()
+        .header("Authorization", "Bearer " + jwtToken)
+        .contentType(ContentType.JSON)
+        .body("{\"profileData\":{\"displayName\":\"Revalidated\"}}")
+        .when()
+        .put("/api/me/profile")
+        .then()
+        .statusCode(200);
+
+    // A new revision gets a new tag, so the old one no longer matches
+    given()
+        .header("Authorization", "Bearer " + jwtToken)
+        .header("If-None-Match", etag)
+        .when()
+        .get("/api/me/profile")
+        .then()
+        .statusCode(200)
+        .header("ETag", not(equalTo(etag)))
+        .body("profileData.displayName", equalTo("Revalidated"));
+  }
 }
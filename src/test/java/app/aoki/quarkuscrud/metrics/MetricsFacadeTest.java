@@ -0,0 +1,100 @@
+package app.aoki.quarkuscrud.metrics;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import app.aoki.quarkuscrud.entity.AuthMethod;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the typed metrics facades.
+ *
+ * <p>Meters must exist as soon as the application starts, and recording must reuse them instead
+ * of registering new ones. Meters sharing a name must also share tag keys, or the Prometheus
+ * registry drops all but the first, so exports are checked on the scrape endpoint itself.
+ */
+@QuarkusTest
+public class MetricsFacadeTest {
+
+  @Inject MeterRegistry meterRegistry;
+  @Inject AuthMetrics authMetrics;
+  @Inject UserMetrics userMetrics;
+  @Inject EventMetrics eventMetrics;
+
+  @Test
+  public void testMetersAreRegisteredAtStartup() {
+    assertNotNull(
+        meterRegistry
+            .find("authentication.attempts")
+            .tags("auth_method", "anonymous", "result", "success")
+            .counter());
+    assertNotNull(meterRegistry.find("authentication.time").tag("auth_method", "oidc").timer());
+    assertNotNull(meterRegistry.find("users.lookup.time").tag("method", "by_id").timer());
+    assertNotNull(meterRegistry.find("events.join").tag("result", "conflict").counter());
+    assertNotNull(meterRegistry.find("events.errors").tag("operation", "delete").counter());
+    assertNotNull(meterRegistry.find("api.llm.fake_names.duration").timer());
+    assertNotNull(meterRegistry.find("guests.pool.depth").gauge());
+    assertNotNull(
+        meterRegistry.find("revisions.compacted").tag("table", "user_profiles").counter());
+  }
+
+  @Test
+  public void testRecordingReusesPreRegisteredMeters() {
+    int metersBefore = meterRegistry.getMeters().size();
+    double successesBefore =
+        meterRegistry
+            .get("authentication.attempts")
+            .tags("auth_method", "anonymous", "result", "success")
+            .counter()
+            .count();
+
+    for (int i = 0; i < 1000; i++) {
+      authMetrics.recordAttempt(AuthMethod.ANONYMOUS, true);
+      userMetrics.recordLookup(UserMetrics.Lookup.BY_ID, i % 2 == 0);
+      eventMetrics.recordJoin(EventMetrics.JoinResult.SUCCESS);
+      eventMetrics.startTimer().stop(eventMetrics.readTime());
+    }
+
+    assertEquals(metersBefore, meterRegistry.getMeters().size());
+    assertEquals(
+        successesBefore + 1000,
+        meterRegistry
+            .get("authentication.attempts")
+            .tags("auth_method", "anonymous", "result", "success")
+            .counter()
+            .count());
+  }
+
+  @Test
+  public void testMetersSharingANameAreAllScraped() {
+    String scrape = given().when().get("/q/metrics").then().statusCode(200).extract().asString();
+
+    assertScraped(scrape, "users_lookup_total", "method=\"by_id\"", "result=\"found\"");
+    assertScraped(
+        scrape, "users_lookup_total", "method=\"by_auth_identifier\"", "result=\"not_found\"");
+    assertScraped(
+        scrape, "users_lookup_total", "auth_method=\"anonymous\"", "result=\"existing\"");
+    assertScraped(
+        scrape, "authentication_attempts_total", "auth_method=\"anonymous\"", "result=\"success\"");
+    assertScraped(
+        scrape, "authentication_attempts_total", "auth_method=\"oidc\"", "result=\"failed\"");
+    assertScraped(scrape, "authentication_attempts_total", "reason=\"invalid_jwt\"");
+    assertScraped(scrape, "authentication_attempts_total", "reason=\"empty_subject\"");
+  }
+
+  private static void assertScraped(String scrape, String name, String... labels) {
+    boolean found =
+        scrape
+            .lines()
+            .anyMatch(
+                line ->
+                    line.startsWith(name + "{") && Arrays.stream(labels).allMatch(line::contains));
+    assertTrue(found, name + " with " + String.join(", ", labels) + " is missing from the scrape");
+  }
+}
@@ -0,0 +1,61 @@
+package app.aoki.quarkuscrud.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import app.aoki.quarkuscrud.entity.AccountLifecycle;
+import app.aoki.quarkuscrud.entity.AuthMethod;
+import app.aoki.quarkuscrud.entity.User;
+import app.aoki.quarkuscrud.mapper.AnonymousUserPoolMapper;
+import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.jwt.auth.principal.JWTParser;
+import jakarta.inject.Inject;
+import java.util.Optional;
+import org.eclipse.microprofile.jwt.JsonWebToken;
+import org.junit.jupiter.api.Test;
+
+/** Tests for the pre-provisioned anonymous user pool behind guest sign-up. */
+@QuarkusTest
+public class AnonymousUserPoolServiceTest {
+
+  @Inject AnonymousUserPoolService anonymousUserPoolService;
+  @Inject AnonymousUserPoolMapper anonymousUserPoolMapper;
+  @Inject AuthenticationService authenticationService;
+  @Inject JwtService jwtService;
+  @Inject JWTParser jwtParser;
+
+  @Test
+  public void testRefillReachesLowWatermark() {
+    anonymousUserPoolService.refill();
+
+    assertTrue(anonymousUserPoolMapper.countAvailable() >= 3);
+  }
+
+  @Test
+  public void testClaimedUserCanAuthenticate() throws Exception {
+    anonymousUserPoolService.refill();
+
+    AnonymousAccount account = anonymousUserPoolService.claim().orElseThrow();
+    assertEquals(AccountLifecycle.CREATED, account.user().getAccountLifecycle());
+    assertEquals(AuthMethod.ANONYMOUS, account.authnProvider().getAuthMethod());
+    assertEquals(account.user().getId(), account.authnProvider().getUserId());
+
+    JsonWebToken jwt = jwtParser.parse(jwtService.generateToken(account.authnProvider()));
+    Optional<User> authenticated = authenticationService.authenticateFromJwt(jwt);
+    assertTrue(authenticated.isPresent());
+    assertEquals(account.user().getId(), authenticated.get().getId());
+  }
+
+  @Test
+  public void testClaimsHandOutDistinctUsers() {
+    anonymousUserPoolService.refill();
+
+    AnonymousAccount first = anonymousUserPoolService.claim().orElseThrow();
+    AnonymousAccount second = anonymousUserPoolService.claim().orElseThrow();
+
+    assertNotEquals(first.user().getId(), second.user().getId());
+    assertNotEquals(
+        first.authnProvider().getAuthIdentifier(), second.authnProvider().getAuthIdentifier());
+  }
+}
@@ -0,0 +1,118 @@
+package app.aoki.quarkuscrud.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import app.aoki.quarkuscrud.entity.Event;
+import app.aoki.quarkuscrud.entity.EventAttendee;
+import app.aoki.quarkuscrud.entity.EventJoinResult;
+import app.aoki.quarkuscrud.mapper.EventAttendeeMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+/** Tests for the denormalized attendee count and the job that repairs it. */
+@QuarkusTest
+public class AttendeeCountRepairerTest {
+
+  @Inject AttendeeCountRepairer attendeeCountRepairer;
+  @Inject EventService eventService;
+  @Inject UserService userService;
+  @Inject EventAttendeeMapper eventAttendeeMapper;
+  @Inject MeterRegistry meterRegistry;
+
+  @Test
+  public void testCountFollowsJoins() {
+    Event event = createEvent();
+    assertEquals(1, event.getAttendeeCount());
+
+    eventService.addAttendee(event.getId(), userService.createAnonymousUser().getId(), null);
+    String code = eventService.getInvitationCode(event.getId()).orElseThrow();
+    Long joinerId = userService.createAnonymousUser().getId();
+    assertEquals(
+        EventJoinResult.Outcome.JOINED,
+        eventService.joinByInvitationCode(code, joinerId).getOutcome());
+    // A repeated join inserts nothing, so it must not be counted
+    assertEquals(
+        EventJoinResult.Outcome.ALREADY_JOINED,
+        eventService.joinByInvitationCode(code, joinerId).getOutcome());
+
+    assertEquals(3, attendeeCount(event));
+  }
+
+  @Test
+  public void testDriftedCountIsRepaired() {
+    Event event = createEvent();
+    // Written around EventService, so the count is not bumped
+    EventAttendee attendee = new EventAttendee();
+    attendee.setEventId(event.getId());
+    attendee.setAttendeeUserId(userService.createAnonymousUser().getId());
+    attendee.setCreatedAt(LocalDateTime.now());
+    attendee.setUpdatedAt(LocalDateTime.now());
+    eventAttendeeMapper.insert(attendee);
+    assertEquals(1, attendeeCount(event));
+    double repairedBefore = meterRegistry.counter("events.attendee_count.repaired").count();
+
+    attendeeCountRepairer.repair();
+
+    assertEquals(2, attendeeCount(event));
+    assertTrue(
+        meterRegistry.counter("events.attendee_count.repaired").count() >= repairedBefore + 1);
+  }
+
+  @Test
+  public void testRepairDoesNotUndoConcurrentJoin() throws Exception {
+    Event event = createEvent();
+    String code = eventService.getInvitationCode(event.getId()).orElseThrow();
+    Long joinerId = userService.createAnonymousUser().getId();
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      CountDownLatch joined = new CountDownLatch(1);
+      Future<?> join =
+          executor.submit(
+              () ->
+                  QuarkusTransaction.requiringNew()
+                      .run(
+                          () -> {
+                            eventService.joinByInvitationCode(code, joinerId);
+                            joined.countDown();
+                            // Commit only once the repair has had time to start its recount
+                            sleep(500);
+                          }));
+      joined.await();
+      Future<?> repair = executor.submit(attendeeCountRepairer::repair);
+      join.get();
+      repair.get();
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(2, eventAttendeeMapper.findByEventId(event.getId()).size());
+    assertEquals(2, attendeeCount(event));
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private Event createEvent() {
+    Long userId = userService.createAnonymousUser().getId();
+    return eventService.createEvent(userId, null, null);
+  }
+
+  private int attendeeCount(Event event) {
+    return eventService.findById(event.getId()).orElseThrow().getAttendeeCount();
+  }
+}
@@ -0,0 +1,206 @@
+package app.aoki.quarkuscrud.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import app.aoki.quarkuscrud.entity.AuthMethod;
+import app.aoki.quarkuscrud.entity.AuthnProvider;
+import app.aoki.quarkuscrud.entity.User;
+import app.aoki.quarkuscrud.mapper.AuthnProviderMapper;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/** Tests for AuthenticatedUserCache read-through and invalidation behavior. */
+@QuarkusTest
+public class AuthenticatedUserCacheTest {
+
+  @Inject AuthenticatedUserCache authenticatedUserCache;
+  @Inject UserService userService;
+  @Inject AuthnProviderMapper authnProviderMapper;
+
+  @Test
+  public void testRepeatedLookupIsServedFromCache() {
+    User user = userService.createAnonymousUser();
+    String subject = anonymousSubjectOf(user);
+    AtomicInteger loads = new AtomicInteger();
+
+    for (int i = 0; i < 3; i++) {
+      Optional<User> result =
+          authenticatedUserCache.get(
+              AuthMethod.ANONYMOUS,
+              subject,
+              () -> {
+                loads.incrementAndGet();
+                return userService.findByAuthIdentifier(subject);
+              });
+      assertTrue(result.isPresent());
+      assertEquals(user.getId(), result.get().getId());
+    }
+
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  public void testMissingUserIsNotCached() {
+    String subject = UUID.randomUUID().toString();
+    AtomicInteger loads = new AtomicInteger();
+
+    for (int i = 0; i < 2; i++) {
+      Optional<User> result =
+          authenticatedUserCache.get(
+              AuthMethod.ANONYMOUS,
+              subject,
+              () -> {
+                loads.incrementAndGet();
+                return Optional.empty();
+              });
+      assertFalse(result.isPresent());
+    }
+
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  public void testUpdateUserInvalidatesEntry() {
+    User user = userService.createAnonymousUser();
+    String subject = anonymousSubjectOf(user);
+
+    authenticatedUserCache.get(
+        AuthMethod.ANONYMOUS, subject, () -> userService.findByAuthIdentifier(subject));
+
+    user.setUsermeta("{\"nickname\":\"updated\"}");
+    userService.updateUser(user);
+
+    Optional<User> result =
+        authenticatedUserCache.get(
+            AuthMethod.ANONYMOUS, subject, () -> userService.findByAuthIdentifier(subject));
+    assertTrue(result.isPresent());
+    assertTrue(result.get().getUsermeta().contains("updated"));
+  }
+
+  @Test
+  public void testDeleteUserInvalidatesEntry() {
+    User user = userService.createAnonymousUser();
+    String subject = anonymousSubjectOf(user);
+
+    authenticatedUserCache.get(
+        AuthMethod.ANONYMOUS, subject, () -> userService.findByAuthIdentifier(subject));
+
+    userService.deleteUser(user.getId());
+
+    Optional<User> result =
+        authenticatedUserCache.get(
+            AuthMethod.ANONYMOUS, subject, () -> userService.findByAuthIdentifier(subject));
+    assertFalse(result.isPresent());
+  }
+
+  @Test
+  public void testEntryCachedBeforeCommitIsDropped() {
+    User user = userService.createAnonymousUser();
+    String subject = anonymousSubjectOf(user);
+    User stale = userService.findByAuthIdentifier(subject).orElseThrow();
+
+    QuarkusTransaction.requiringNew()
+        .run(
+            () -> {
+              User updated = userService.findByAuthIdentifier(subject).orElseThrow();
+              updated.setUsermeta("{\"nickname\":\"committed\"}");
+              userService.updateUser(updated);
+              // A concurrent request that still sees the old row caches it
+              authenticatedUserCache.get(AuthMethod.ANONYMOUS, subject, () -> Optional.of(stale));
+            });
+
+    Optional<User> result =
+        authenticatedUserCache.get(
+            AuthMethod.ANONYMOUS, subject, () -> userService.findByAuthIdentifier(subject));
+    assertTrue(result.isPresent());
+    assertTrue(result.get().getUsermeta().contains("committed"));
+  }
+
+  @Test
+  public void testLoadOverlappingDeleteIsNotCached() {
+    User user = userService.createAnonymousUser();
+    String subject = anonymousSubjectOf(user);
+
+    Optional<User> overlapping =
+        authenticatedUserCache.get(
+            AuthMethod.ANONYMOUS,
+            subject,
+            () -> {
+              // The request reads the row, then the user is deleted before it caches it
+              Optional<User> stale = userService.findByAuthIdentifier(subject);
+              userService.deleteUser(user.getId());
+              return stale;
+            });
+    assertTrue(overlapping.isPresent());
+
+    Optional<User> result =
+        authenticatedUserCache.get(
+            AuthMethod.ANONYMOUS, subject, () -> userService.findByAuthIdentifier(subject));
+    assertFalse(result.isPresent());
+  }
+
+  @Test
+  public void testRolledBackDeleteKeepsEntry() {
+    User user = userService.createAnonymousUser();
+    String subject = anonymousSubjectOf(user);
+    AtomicInteger loads = new AtomicInteger();
+    authenticatedUserCache.get(
+        AuthMethod.ANONYMOUS,
+        subject,
+        () -> {
+          loads.incrementAndGet();
+          return userService.findByAuthIdentifier(subject);
+        });
+
+    QuarkusTransaction.requiringNew()
+        .run(
+            () -> {
+              userService.deleteUser(user.getId());
+              QuarkusTransaction.setRollbackOnly();
+            });
+
+    Optional<User> result =
+        authenticatedUserCache.get(
+            AuthMethod.ANONYMOUS,
+            subject,
+            () -> {
+              loads.incrementAndGet();
+              return userService.findByAuthIdentifier(subject);
+            });
+    assertTrue(result.isPresent());
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  public void testCachedUserIsReturnedAsCopy() {
+    User user = userService.createAnonymousUser();
+    String subject = anonymousSubjectOf(user);
+
+    User first =
+        authenticatedUserCache
+            .get(AuthMethod.ANONYMOUS, subject, () -> userService.findByAuthIdentifier(subject))
+            .orElseThrow();
+    first.setUsermeta("{\"mutated\":true}");
+
+    User second =
+        authenticatedUserCache
+            .get(AuthMethod.ANONYMOUS, subject, () -> userService.findByAuthIdentifier(subject))
+            .orElseThrow();
+    assertNotSame(first, second);
+    assertNull(second.getUsermeta());
+  }
+
+  private String anonymousSubjectOf(User user) {
+    AuthnProvider provider = authnProviderMapper.findByUserId(user.getId()).get(0);
+    return provider.getAuthIdentifier();
+  }
+}
@@ -0,0 +1,78 @@
+package app.aoki.quarkuscrud.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import app.aoki.quarkuscrud.entity.AuthMethod;
+import app.aoki.quarkuscrud.entity.User;
+import app.aoki.quarkuscrud.support.QueryCounter;
+import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.jwt.auth.principal.JWTParser;
+import jakarta.inject.Inject;
+import java.util.Optional;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.eclipse.microprofile.jwt.JsonWebToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for AuthenticationService focusing on the database round trips of the auth path.
+ *
+ * <p>Resolving a user from a token must cost at most one query, and none once the user is cached.
+ */
+@QuarkusTest
+public class AuthenticationServiceTest {
+
+  @Inject AuthenticationService authenticationService;
+  @Inject UserService userService;
+  @Inject JwtService jwtService;
+  @Inject JWTParser jwtParser;
+  @Inject SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  public void setup() {
+    QueryCounter.install(sqlSessionFactory);
+  }
+
+  @Test
+  public void testAuthenticateFromJwtIssuesSingleQueryThenHitsCache() throws Exception {
+    User user = userService.createAnonymousUser();
+    JsonWebToken jwt = jwtParser.parse(jwtService.generateAnonymousToken(user));
+
+    QueryCounter.Counted<Optional<User>> first =
+        QueryCounter.count(() -> authenticationService.authenticateFromJwt(jwt));
+    assertTrue(first.result().isPresent());
+    assertEquals(user.getId(), first.result().get().getId());
+    assertEquals(1, first.queries(), "Cold authentication should resolve the user in one query");
+
+    QueryCounter.Counted<Optional<User>> second =
+        QueryCounter.count(() -> authenticationService.authenticateFromJwt(jwt));
+    assertTrue(second.result().isPresent());
+    assertEquals(0, second.queries(), "Warm authentication should be served from the cache");
+  }
+
+  @Test
+  public void testFindByAuthIdentifierIssuesSingleQuery() throws Exception {
+    User user = userService.createAnonymousUser();
+    String subject = jwtParser.parse(jwtService.generateAnonymousToken(user)).getSubject();
+
+    QueryCounter.Counted<Optional<User>> counted =
+        QueryCounter.count(() -> userService.findByAuthIdentifier(subject));
+    assertTrue(counted.result().isPresent());
+    assertEquals(1, counted.queries());
+  }
+
+  @Test
+  public void testFindByMethodAndExternalSubjectIssuesSingleQuery() {
+    User user = userService.getOrCreateExternalUser(AuthMethod.OIDC, "query-count-subject");
+
+    QueryCounter.Counted<Optional<User>> counted =
+        QueryCounter.count(
+            () ->
+                userService.findByMethodAndExternalSubject(
+                    AuthMethod.OIDC, "query-count-subject"));
+    assertTrue(counted.result().isPresent());
+    assertEquals(user.getId(), counted.result().get().getId());
+    assertEquals(1, counted.queries());
+  }
+}
@@ -0,0 +1,62 @@
+package app.aoki.quarkuscrud.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import app.aoki.quarkuscrud.entity.Event;
+import app.aoki.quarkuscrud.entity.EventStatus;
+import app.aoki.quarkuscrud.mapper.EventInvitationCodeMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/** Tests for the background sweeper that expires overdue events. */
+@QuarkusTest
+public class EventExpirySweeperTest {
+
+  @Inject EventExpirySweeper eventExpirySweeper;
+  @Inject EventService eventService;
+  @Inject UserService userService;
+  @Inject EventInvitationCodeMapper eventInvitationCodeMapper;
+  @Inject MeterRegistry meterRegistry;
+
+  @Test
+  public void testOverdueEventsAreExpiredAcrossBatches() {
+    Long userId = userService.createAnonymousUser().getId();
+    LocalDateTime past = LocalDateTime.now().minusMinutes(5);
+    List<Event> overdue = new ArrayList<>();
+    // More than one batch (app.event-expiry.batch-size=2 in tests)
+    for (int i = 0; i < 5; i++) {
+      overdue.add(eventService.createEvent(userId, null, past));
+    }
+    double sweptBefore = meterRegistry.counter("events.expiry.swept").count();
+
+    eventExpirySweeper.sweep();
+
+    List<String> activeCodes = eventInvitationCodeMapper.findActiveInvitationCodes();
+    for (Event event : overdue) {
+      assertEquals(EventStatus.EXPIRED, eventService.findById(event.getId()).get().getStatus());
+      String code = eventService.getInvitationCode(event.getId()).orElseThrow();
+      assertFalse(activeCodes.contains(code), "Code of an expired event must be freed");
+      assertFalse(eventService.findActiveInvitation(code).isPresent());
+    }
+    assertTrue(meterRegistry.counter("events.expiry.swept").count() >= sweptBefore + 5);
+  }
+
+  @Test
+  public void testEventsNotYetDueAreLeftAlone() {
+    Long userId = userService.createAnonymousUser().getId();
+    Event future = eventService.createEvent(userId, null, LocalDateTime.now().plusHours(1));
+    Event open = eventService.createEvent(userId, null, null);
+
+    eventExpirySweeper.sweep();
+
+    assertEquals(EventStatus.CREATED, eventService.findById(future.getId()).get().getStatus());
+    assertEquals(EventStatus.CREATED, eventService.findById(open.getId()).get().getStatus());
+  }
+}
@@ -0,0 +1,75 @@
+package app.aoki.quarkuscrud.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import app.aoki.quarkuscrud.entity.Event;
+import app.aoki.quarkuscrud.metrics.EventMetrics;
+import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.mutiny.helpers.test.AssertSubscriber;
+import io.smallrye.mutiny.subscription.BackPressureFailure;
+import jakarta.inject.Inject;
+import java.time.LocalDateTime;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.junit.jupiter.api.Test;
+
+/** Tests for the in-process fan-out behind the live event stream. */
+@QuarkusTest
+public class EventLiveBroadcasterTest {
+
+  @Inject EventLiveBroadcaster eventLiveBroadcaster;
+  @Inject EventService eventService;
+  @Inject UserService userService;
+  @Inject EventMetrics eventMetrics;
+
+  @ConfigProperty(name = "app.live.buffer-size")
+  int bufferSize;
+
+  @Test
+  public void testCommittedJoinReachesSubscriber() {
+    Event event = createEvent();
+    Long attendeeId = userService.createAnonymousUser().getId();
+    long subscribersBefore = eventMetrics.liveSubscribers().get();
+
+    AssertSubscriber<EventLiveUpdate> subscriber = subscribe(event.getId(), 10);
+    assertEquals(1, eventLiveBroadcaster.subscriberCount(event.getId()));
+    assertEquals(subscribersBefore + 1, eventMetrics.liveSubscribers().get());
+
+    eventService.addAttendee(event.getId(), attendeeId, null);
+
+    EventLiveUpdate update = subscriber.awaitItems(1).getItems().get(0);
+    assertEquals(EventLiveUpdate.Type.ATTENDEE_JOINED, update.type());
+    assertEquals(event.getId(), update.eventId());
+    assertEquals(attendeeId, update.attendeeUserId());
+
+    subscriber.cancel();
+    assertEquals(0, eventLiveBroadcaster.subscriberCount(event.getId()));
+    assertEquals(subscribersBefore, eventMetrics.liveSubscribers().get());
+  }
+
+  @Test
+  public void testSlowSubscriberIsClosed() {
+    Event event = createEvent();
+    AssertSubscriber<EventLiveUpdate> subscriber = subscribe(event.getId(), 0);
+
+    for (long i = 0; i <= bufferSize; i++) {
+      eventLiveBroadcaster.publish(
+          new EventLiveUpdate(
+              EventLiveUpdate.Type.ATTENDEE_JOINED, event.getId(), i, LocalDateTime.now()));
+    }
+
+    subscriber.awaitFailure().assertFailedWith(BackPressureFailure.class);
+    assertEquals(0, eventLiveBroadcaster.subscriberCount(event.getId()));
+  }
+
+  private AssertSubscriber<EventLiveUpdate> subscribe(Long eventId, long requested) {
+    return eventLiveBroadcaster
+        .subscribe(eventId)
+        .subscribe()
+        .withSubscriber(AssertSubscriber.create(requested));
+  }
+
+  private Event createEvent() {
+    Long userId = userService.createAnonymousUser().getId();
+    return eventService.createEvent(userId, null, null);
+  }
+}
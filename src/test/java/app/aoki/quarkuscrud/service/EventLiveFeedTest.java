@@ -0,0 +1,88 @@
+package app.aoki.quarkuscrud.service;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import app.aoki.quarkuscrud.entity.Event;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.mutiny.helpers.test.AssertSubscriber;
+import jakarta.inject.Inject;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/** Tests for the LISTEN/NOTIFY feed that relays live updates between replicas. */
+@QuarkusTest
+public class EventLiveFeedTest {
+
+  @Inject EventLiveBroadcaster eventLiveBroadcaster;
+  @Inject EventService eventService;
+  @Inject UserService userService;
+
+  @Test
+  public void testPayloadRoundTrip() {
+    EventLiveUpdate update =
+        new EventLiveUpdate(
+            EventLiveUpdate.Type.USER_DATA_UPDATED, 12L, 34L, LocalDateTime.of(2025, 1, 2, 3, 4));
+    assertEquals(update, EventLiveUpdate.fromPayload(update.toPayload()));
+    assertThrows(IllegalArgumentException.class, () -> EventLiveUpdate.fromPayload("JOINED,1"));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> EventLiveUpdate.fromPayload("UNKNOWN,1,2,2025-01-02T03:04"));
+  }
+
+  @Test
+  public void testUserDataRevisionReachesSubscriber() {
+    Event event = createEvent();
+    Long userId = event.getInitiatorId();
+    AssertSubscriber<EventLiveUpdate> subscriber = subscribe(event.getId());
+
+    eventService.createUserDataRevision(event.getId(), userId, "{\"score\":1}", null);
+
+    EventLiveUpdate update = subscriber.awaitItems(1).getItems().get(0);
+    assertEquals(EventLiveUpdate.Type.USER_DATA_UPDATED, update.type());
+    assertEquals(userId, update.attendeeUserId());
+    subscriber.cancel();
+  }
+
+  @Test
+  public void testRolledBackJoinIsNotPublished() {
+    Event event = createEvent();
+    Long rolledBackId = userService.createAnonymousUser().getId();
+    Long committedId = userService.createAnonymousUser().getId();
+    AssertSubscriber<EventLiveUpdate> subscriber = subscribe(event.getId());
+
+    QuarkusTransaction.requiringNew()
+        .run(
+            () -> {
+              eventService.addAttendee(event.getId(), rolledBackId, null);
+              QuarkusTransaction.setRollbackOnly();
+            });
+    // Notifications arrive in commit order, so once this one is seen the other would have been too
+    eventService.addAttendee(event.getId(), committedId, null);
+
+    List<EventLiveUpdate> updates = subscriber.awaitItems(1).getItems();
+    assertEquals(1, updates.size());
+    assertEquals(committedId, updates.get(0).attendeeUserId());
+    subscriber.cancel();
+  }
+
+  @Test
+  public void testStopWithoutStartDoesNotFail() {
+    assertDoesNotThrow(() -> new EventLiveFeed().onStop(null));
+  }
+
+  private AssertSubscriber<EventLiveUpdate> subscribe(Long eventId) {
+    return eventLiveBroadcaster
+        .subscribe(eventId)
+        .subscribe()
+        .withSubscriber(AssertSubscriber.create(10));
+  }
+
+  private Event createEvent() {
+    Long userId = userService.createAnonymousUser().getId();
+    return eventService.createEvent(userId, null, null);
+  }
+}
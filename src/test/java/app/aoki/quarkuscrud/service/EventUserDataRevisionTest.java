@@ -0,0 +1,195 @@
+package app.aoki.quarkuscrud.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import app.aoki.quarkuscrud.entity.EventUserData;
+import app.aoki.quarkuscrud.mapper.EventUserDataMapper;
+import app.aoki.quarkuscrud.support.QueryPlan;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.Test;
+
+/** Tests for delta-encoded storage of event user data revisions. */
+@QuarkusTest
+public class EventUserDataRevisionTest {
+
+  @Inject EventService eventService;
+  @Inject UserService userService;
+  @Inject RevisionCompactor revisionCompactor;
+  @Inject EventUserDataMapper eventUserDataMapper;
+  @Inject ObjectMapper objectMapper;
+  @Inject SqlSessionFactory sqlSessionFactory;
+
+  @Test
+  public void testSmallChangesAreStoredAsDeltas() throws Exception {
+    Long userId = userService.createAnonymousUser().getId();
+    Long eventId = eventService.createEvent(userId, null, null).getId();
+    EventUserData snapshot =
+        eventService.createUserDataRevision(eventId, userId, quizState(0), null);
+    assertNull(snapshot.getBaseId());
+
+    EventUserData delta = eventService.createUserDataRevision(eventId, userId, quizState(1), null);
+
+    assertEquals(snapshot.getId(), delta.getBaseId());
+    assertEquals(1, delta.getDeltaSeq());
+    assertJsonEquals(quizState(1), delta.getUserData());
+    assertJsonEquals(
+        quizState(1), eventService.findLatestUserData(eventId, userId).get().getUserData());
+    assertJsonEquals(quizState(1), eventUserDataMapper.findById(delta.getId()).get().getUserData());
+  }
+
+  @Test
+  public void testSnapshotIsWrittenEveryInterval() throws Exception {
+    Long userId = userService.createAnonymousUser().getId();
+    Long eventId = eventService.createEvent(userId, null, null).getId();
+    List<EventUserData> revisions = new ArrayList<>();
+    // app.event-user-data.snapshot-interval=4 in tests
+    for (int i = 0; i < 6; i++) {
+      revisions.add(eventService.createUserDataRevision(eventId, userId, quizState(i), null));
+    }
+
+    Long firstSnapshot = revisions.get(0).getId();
+    assertNull(revisions.get(0).getBaseId());
+    assertEquals(firstSnapshot, revisions.get(1).getBaseId());
+    assertEquals(firstSnapshot, revisions.get(3).getBaseId());
+    assertNull(revisions.get(4).getBaseId());
+    assertEquals(revisions.get(4).getId(), revisions.get(5).getBaseId());
+
+    List<EventUserData> history = eventUserDataMapper.findByEventIdAndUserId(eventId, userId);
+    for (int i = 0; i < revisions.size(); i++) {
+      // History is newest first and ends with the initial empty document
+      assertJsonEquals(quizState(i), history.get(revisions.size() - 1 - i).getUserData());
+    }
+  }
+
+  @Test
+  public void testDocumentsThatCannotBePatchedAreStoredInFull() throws Exception {
+    Long userId = userService.createAnonymousUser().getId();
+    Long eventId = eventService.createEvent(userId, null, null).getId();
+    eventService.createUserDataRevision(eventId, userId, quizState(0), null);
+    ObjectNode withNull = (ObjectNode) objectMapper.readTree(quizState(0));
+    withNull.putNull("score");
+
+    EventUserData revision =
+        eventService.createUserDataRevision(
+            eventId, userId, objectMapper.writeValueAsString(withNull), null);
+
+    assertNull(revision.getBaseId());
+    assertEquals(
+        withNull,
+        objectMapper.readTree(
+            eventService.findLatestUserData(eventId, userId).get().getUserData()));
+  }
+
+  @Test
+  public void testListingMaterializesDeltas() throws Exception {
+    Long userId = userService.createAnonymousUser().getId();
+    Long eventId = eventService.createEvent(userId, null, null).getId();
+    Long attendeeId = userService.createAnonymousUser().getId();
+    eventService.addAttendee(eventId, attendeeId, null);
+    for (int i = 0; i < 3; i++) {
+      eventService.createUserDataRevision(eventId, userId, quizState(i), null);
+      eventService.createUserDataRevision(eventId, attendeeId, quizState(i + 10), null);
+    }
+
+    List<EventUserData> latest = new ArrayList<>();
+    eventService.forEachLatestUserData(eventId, latest::add);
+
+    assertEquals(2, latest.size());
+    assertNotNull(latest.get(0).getBaseId());
+    assertJsonEquals(quizState(2), latest.get(0).getUserData());
+    assertJsonEquals(quizState(12), latest.get(1).getUserData());
+  }
+
+  @Test
+  public void testCompactionKeepsSnapshotsOfRetainedDeltas() throws Exception {
+    Long userId = userService.createAnonymousUser().getId();
+    Long eventId = eventService.createEvent(userId, null, null).getId();
+    EventUserData snapshot =
+        eventService.createUserDataRevision(eventId, userId, quizState(0), null);
+    for (int i = 1; i < 4; i++) {
+      eventService.createUserDataRevision(eventId, userId, quizState(i), null);
+    }
+
+    // app.revision-retention.keep-last=2 in tests
+    revisionCompactor.compact();
+
+    List<EventUserData> remaining = eventUserDataMapper.findByEventIdAndUserId(eventId, userId);
+    assertEquals(3, remaining.size());
+    assertEquals(snapshot.getId(), remaining.get(2).getId());
+    assertJsonEquals(quizState(3), remaining.get(0).getUserData());
+    assertJsonEquals(quizState(2), remaining.get(1).getUserData());
+  }
+
+  @Test
+  public void testLatestLookupsFollowCurrentRevisionPointer() {
+    Long userId = userService.createAnonymousUser().getId();
+    Long eventId = eventService.createEvent(userId, null, null).getId();
+    EventUserData latest = null;
+    for (int i = 0; i < 5; i++) {
+      latest = eventService.createUserDataRevision(eventId, userId, quizState(i), null);
+    }
+    assertEquals(latest.getId(), eventService.findLatestUserData(eventId, userId).get().getId());
+
+    String findPlan =
+        QueryPlan.explain(
+            sqlSessionFactory,
+            EventUserDataMapper.class,
+            "findLatestByEventIdAndUserId",
+            Map.of("eventId", eventId, "userId", userId));
+    String streamPlan =
+        QueryPlan.explain(
+            sqlSessionFactory,
+            EventUserDataMapper.class,
+            "streamLatestByEventId",
+            Map.of("eventId", eventId));
+
+    for (String plan : List.of(findPlan, streamPlan)) {
+      assertTrue(plan.contains("event_user_data_current_pkey"), plan);
+      assertFalse(plan.contains("Sort"), plan);
+    }
+  }
+
+  @Test
+  public void testMergePatchRoundTrip() throws Exception {
+    JsonNode source =
+        objectMapper.readTree("{\"a\":1,\"b\":{\"c\":[1,2],\"d\":\"x\"},\"e\":true}");
+    JsonNode target = objectMapper.readTree("{\"a\":1,\"b\":{\"c\":[2,null],\"f\":{}},\"g\":0}");
+
+    JsonNode patch = JsonMergePatch.diff(source, target).orElseThrow();
+
+    assertEquals(
+        objectMapper.readTree("{\"b\":{\"c\":[2,null],\"d\":null,\"f\":{}},\"e\":null,\"g\":0}"),
+        patch);
+    assertEquals(target, JsonMergePatch.apply(source, patch));
+    assertTrue(JsonMergePatch.diff(source, objectMapper.readTree("[1]")).isEmpty());
+    assertTrue(JsonMergePatch.diff(source, objectMapper.readTree("{\"a\":null}")).isEmpty());
+  }
+
+  /** A quiz client's state where step {@code n} has answered one more question. */
+  private String quizState(int step) throws Exception {
+    ObjectNode state = objectMapper.createObjectNode();
+    state.put("nickname", "player");
+    state.put("score", step);
+    ObjectNode answers = state.putObject("answers");
+    for (int i = 0; i < 20; i++) {
+      answers.put("question-" + i, i < step ? "answered" : "pending");
+    }
+    return objectMapper.writeValueAsString(state);
+  }
+
+  private void assertJsonEquals(String expected, String actual) throws Exception {
+    assertEquals(objectMapper.readTree(expected), objectMapper.readTree(actual));
+  }
+}
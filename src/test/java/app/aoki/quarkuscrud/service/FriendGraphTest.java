@@ -0,0 +1,72 @@
+package app.aoki.quarkuscrud.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/** Tests for the in-memory friend graph. */
+@QuarkusTest
+public class FriendGraphTest {
+
+  @Inject FriendGraph friendGraph;
+  @Inject FriendshipService friendshipService;
+  @Inject UserService userService;
+  @Inject MeterRegistry meterRegistry;
+
+  @Test
+  public void testQueriesMatchBeforeAndAfterRebuild() {
+    // a-b, a-c, b-c, c-d, d-e
+    long a = newUser();
+    long b = newUser();
+    long c = newUser();
+    long d = newUser();
+    long e = newUser();
+    friendshipService.createFriendship(a, b, null);
+    friendshipService.createFriendship(a, c, null);
+    friendshipService.createFriendship(c, b, null);
+    friendshipService.createFriendship(c, d, null);
+    friendshipService.createFriendship(e, d, null);
+
+    // Answered from the pending set first, then from the rebuilt arrays
+    for (int pass = 0; pass < 2; pass++) {
+      assertArrayEquals(new long[] {b, c}, friendGraph.friendsOf(a));
+      assertArrayEquals(new long[] {c}, friendGraph.mutualFriends(a, b));
+      assertArrayEquals(new long[0], friendGraph.mutualFriends(a, e));
+      assertEquals(List.of(new FriendGraph.Suggestion(d, 1)), friendGraph.suggestions(a, 10));
+      // a and b share one friend each with d; ties go to the lower ID
+      assertEquals(List.of(new FriendGraph.Suggestion(a, 1)), friendGraph.suggestions(d, 1));
+      friendGraph.rebuild();
+    }
+
+    assertTrue(meterRegistry.get("friends.graph.edges").gauge().value() >= 10);
+    assertTrue(meterRegistry.get("friends.graph.memory").gauge().value() > 0);
+    assertTrue(meterRegistry.get("friends.graph.rebuild.time").timer().count() > 0);
+  }
+
+  @Test
+  public void testRolledBackFriendshipIsNotRecorded() {
+    long a = newUser();
+    long b = newUser();
+
+    QuarkusTransaction.requiringNew()
+        .run(
+            () -> {
+              friendshipService.createFriendship(a, b, null);
+              QuarkusTransaction.setRollbackOnly();
+            });
+
+    assertArrayEquals(new long[0], friendGraph.friendsOf(a));
+    assertArrayEquals(new long[0], friendGraph.friendsOf(b));
+  }
+
+  private long newUser() {
+    return userService.createAnonymousUser().getId();
+  }
+}
@@ -8,11 +8,14 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import app.aoki.quarkuscrud.entity.Friendship;
 import app.aoki.quarkuscrud.entity.User;
 import app.aoki.quarkuscrud.mapper.FriendshipMapper;
+import app.aoki.quarkuscrud.support.QueryPlan;
 import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import org.apache.ibatis.session.SqlSessionFactory;
 import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
@@ -32,6 +35,7 @@ public class FriendshipServiceTest {
   @Inject FriendshipService friendshipService;
   @Inject FriendshipMapper friendshipMapper;
   @Inject UserService userService;
+  @Inject SqlSessionFactory sqlSessionFactory;
 
   private static Long testUser1Id;
   private static Long testUser2Id;
@@ -137,4 +141,36 @@ public class FriendshipServiceTest {
     assertTrue(friendshipMapper.findBySenderAndRecipient(user4Id, user5Id).isPresent());
     assertTrue(friendshipMapper.findBySenderAndRecipient(user5Id, user4Id).isPresent());
   }
+
+  @Test
+  @Order(9)
+  public void testFindByParticipantsEitherWay() {
+    Friendship forward = friendshipService.findByParticipants(testUser1Id, testUser2Id).get();
+    Friendship reverse = friendshipService.findByParticipants(testUser2Id, testUser1Id).get();
+
+    assertEquals(testUser1Id, forward.getSenderId());
+    assertEquals(testUser2Id, reverse.getSenderId());
+    assertTrue(friendshipMapper.existsBetweenUsers(testUser2Id, testUser1Id));
+    assertFalse(friendshipService.findByParticipants(testUser1Id, testUser1Id).isPresent());
+  }
+
+  @Test
+  @Order(10)
+  public void testParticipantLookupsProbeUniquePairIndex() {
+    Map<String, Object> pair = Map.of("senderId", testUser1Id, "recipientId", testUser2Id);
+    String findPlan =
+        QueryPlan.explain(
+            sqlSessionFactory, FriendshipMapper.class, "findBySenderAndRecipient", pair);
+    String existsPlan =
+        QueryPlan.explain(
+            sqlSessionFactory,
+            FriendshipMapper.class,
+            "existsBetweenUsers",
+            Map.of("userId1", testUser1Id, "userId2", testUser2Id));
+
+    for (String plan : List.of(findPlan, existsPlan)) {
+      assertTrue(plan.contains("idx_friendships_unique_pair"), plan);
+      assertFalse(plan.contains("BitmapOr"), plan);
+    }
+  }
 }
@@ -0,0 +1,83 @@
+package app.aoki.quarkuscrud.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import app.aoki.quarkuscrud.entity.Event;
+import app.aoki.quarkuscrud.mapper.EventInvitationCodeMapper;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/** Tests for the bitmap-backed invitation code allocator. */
+@QuarkusTest
+public class InvitationCodeAllocatorTest {
+
+  @Inject InvitationCodeAllocator invitationCodeAllocator;
+  @Inject EventService eventService;
+  @Inject UserService userService;
+  @Inject EventInvitationCodeMapper eventInvitationCodeMapper;
+
+  @Test
+  public void testEncodeDecodeRoundTrip() {
+    assertEquals(35 * 35 * 35, InvitationCodeAllocator.CAPACITY);
+    for (int index : new int[] {0, 1, 34, 35, 1234, InvitationCodeAllocator.CAPACITY - 1}) {
+      String code = InvitationCodeAllocator.decode(index);
+      assertEquals(InvitationCodeAllocator.INVITATION_CODE_LENGTH, code.length());
+      assertEquals(index, InvitationCodeAllocator.encode(code));
+    }
+    assertEquals(-1, InvitationCodeAllocator.encode("abc"));
+    assertEquals(-1, InvitationCodeAllocator.encode("ああ"));
+    assertEquals(-1, InvitationCodeAllocator.encode(null));
+  }
+
+  @Test
+  public void testAllocatedCodesAreDistinct() {
+    Set<String> codes = new HashSet<>();
+    try {
+      for (int i = 0; i < 100; i++) {
+        String code = invitationCodeAllocator.allocate();
+        assertTrue(InvitationCodeAllocator.encode(code) >= 0, "Allocated code must be valid");
+        assertTrue(codes.add(code), "Allocator must not hand out a reserved code twice");
+      }
+    } finally {
+      codes.forEach(invitationCodeAllocator::release);
+    }
+  }
+
+  @Test
+  public void testCreatedEventCodeSurvivesResync() {
+    Long userId = userService.createAnonymousUser().getId();
+    Event event = eventService.createEvent(userId, null, null);
+    String code = eventService.getInvitationCode(event.getId()).orElseThrow();
+
+    invitationCodeAllocator.resync();
+
+    Set<String> allocated = new HashSet<>();
+    try {
+      for (int i = 0; i < 200; i++) {
+        String next = invitationCodeAllocator.allocate();
+        allocated.add(next);
+        assertNotEquals(code, next, "Code of an active event must stay occupied");
+      }
+    } finally {
+      allocated.forEach(invitationCodeAllocator::release);
+    }
+  }
+
+  @Test
+  public void testDeletedEventCodeLeavesActiveSet() {
+    Long userId = userService.createAnonymousUser().getId();
+    Event event = eventService.createEvent(userId, null, null);
+    String code = eventService.getInvitationCode(event.getId()).orElseThrow();
+    assertTrue(eventInvitationCodeMapper.findActiveInvitationCodes().contains(code));
+
+    eventService.deleteEvent(event.getId());
+
+    assertFalse(eventInvitationCodeMapper.findActiveInvitationCodes().contains(code));
+  }
+}
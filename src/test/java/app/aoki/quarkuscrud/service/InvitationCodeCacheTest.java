@@ -0,0 +1,183 @@
+package app.aoki.quarkuscrud.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import app.aoki.quarkuscrud.entity.Event;
+import app.aoki.quarkuscrud.entity.EventJoinResult;
+import app.aoki.quarkuscrud.entity.EventStatus;
+import app.aoki.quarkuscrud.support.QueryCounter;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Tests for the invitation code to active event cache used by join-by-code. */
+@QuarkusTest
+public class InvitationCodeCacheTest {
+
+  @Inject EventService eventService;
+  @Inject UserService userService;
+  @Inject InvitationCodeCache invitationCodeCache;
+  @Inject SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  public void setup() {
+    QueryCounter.install(sqlSessionFactory);
+  }
+
+  @Test
+  public void testCreatedEventIsResolvedWithoutQueries() {
+    Event event = createEvent(LocalDateTime.now().plusHours(1));
+    String code = eventService.getInvitationCode(event.getId()).orElseThrow();
+
+    QueryCounter.Counted<Optional<ActiveInvitation>> counted =
+        QueryCounter.count(() -> eventService.findActiveInvitation(code));
+    assertTrue(counted.result().isPresent());
+    assertEquals(event.getId(), counted.result().get().eventId());
+    assertEquals(0, counted.queries(), "Code of a freshly created event should be cached");
+  }
+
+  @Test
+  public void testColdLookupLoadsOnceThenHitsCache() {
+    Event event = createEvent(null);
+    String code = eventService.getInvitationCode(event.getId()).orElseThrow();
+    invitationCodeCache.invalidate(code);
+
+    QueryCounter.Counted<Optional<ActiveInvitation>> cold =
+        QueryCounter.count(() -> eventService.findActiveInvitation(code));
+    assertTrue(cold.result().isPresent());
+    assertEquals(1, cold.queries());
+
+    QueryCounter.Counted<Optional<ActiveInvitation>> warm =
+        QueryCounter.count(() -> eventService.findActiveInvitation(code));
+    assertTrue(warm.result().isPresent());
+    assertEquals(0, warm.queries());
+  }
+
+  @Test
+  public void testDeletedEventIsEvicted() {
+    Event event = createEvent(null);
+    String code = eventService.getInvitationCode(event.getId()).orElseThrow();
+    assertTrue(eventService.findActiveInvitation(code).isPresent());
+
+    eventService.deleteEvent(event.getId());
+
+    assertFalse(eventService.findActiveInvitation(code).isPresent());
+  }
+
+  @Test
+  public void testExpiredStatusIsEvicted() {
+    Event event = createEvent(null);
+    String code = eventService.getInvitationCode(event.getId()).orElseThrow();
+    assertTrue(eventService.findActiveInvitation(code).isPresent());
+
+    eventService.updateEvent(event.getId(), EventStatus.EXPIRED, null, null);
+
+    assertFalse(eventService.findActiveInvitation(code).isPresent());
+  }
+
+  @Test
+  public void testCachedEntryPastExpiryIsIgnored() {
+    Event event = createEvent(null);
+    String code = eventService.getInvitationCode(event.getId()).orElseThrow();
+    LocalDateTime past = LocalDateTime.now().minusMinutes(1);
+    eventService.updateEvent(event.getId(), null, null, past);
+    invitationCodeCache.put(code, new ActiveInvitation(event.getId(), EventStatus.CREATED, past));
+
+    assertFalse(eventService.findActiveInvitation(code).isPresent());
+  }
+
+  @Test
+  public void testJoinResolvesCodeThroughCache() {
+    Event event = createEvent(null);
+    String code = eventService.getInvitationCode(event.getId()).orElseThrow();
+    Long joinerId = userService.createAnonymousUser().getId();
+
+    QueryCounter.Counted<EventJoinResult> counted =
+        QueryCounter.count(() -> eventService.joinByInvitationCode(code, joinerId));
+    assertEquals(EventJoinResult.Outcome.JOINED, counted.result().getOutcome());
+    // The join statement and the live update notification; no code lookup
+    assertEquals(2, counted.queries());
+  }
+
+  @Test
+  public void testJoinThroughStaleEntryIsRejectedAndEvicts() {
+    Event event = createEvent(null);
+    String code = eventService.getInvitationCode(event.getId()).orElseThrow();
+    eventService.updateEvent(event.getId(), EventStatus.EXPIRED, null, null);
+    // As left behind on this replica when another one expires the event
+    invitationCodeCache.put(code, new ActiveInvitation(event.getId(), EventStatus.CREATED, null));
+    Long joinerId = userService.createAnonymousUser().getId();
+
+    assertEquals(
+        EventJoinResult.Outcome.NO_ACTIVE_EVENT,
+        eventService.joinByInvitationCode(code, joinerId).getOutcome());
+
+    QueryCounter.Counted<Optional<ActiveInvitation>> reloaded =
+        QueryCounter.count(() -> eventService.findActiveInvitation(code));
+    assertFalse(reloaded.result().isPresent());
+    assertEquals(1, reloaded.queries(), "Stale entry should have been dropped");
+  }
+
+  @Test
+  public void testJoinThroughReusedCodeRetriesAgainstDatabase() {
+    Event expired = createEvent(null);
+    eventService.updateEvent(expired.getId(), EventStatus.EXPIRED, null, null);
+    Event current = createEvent(null);
+    String code = eventService.getInvitationCode(current.getId()).orElseThrow();
+    // As left behind on this replica when another one frees the code and gives it to a new event
+    invitationCodeCache.put(code, new ActiveInvitation(expired.getId(), EventStatus.CREATED, null));
+    Long joinerId = userService.createAnonymousUser().getId();
+
+    EventJoinResult result = eventService.joinByInvitationCode(code, joinerId);
+
+    assertEquals(EventJoinResult.Outcome.JOINED, result.getOutcome());
+    assertEquals(current.getId(), result.getAttendee().getEventId());
+    assertEquals(current.getId(), eventService.findActiveInvitation(code).orElseThrow().eventId());
+  }
+
+  @Test
+  public void testEntryCachedBeforeUpdateCommitsIsDropped() {
+    Event event = createEvent(null);
+    String code = eventService.getInvitationCode(event.getId()).orElseThrow();
+    LocalDateTime expiresAt = LocalDateTime.now().plusHours(2).withNano(0);
+
+    QuarkusTransaction.requiringNew()
+        .run(
+            () -> {
+              eventService.updateEvent(event.getId(), null, null, expiresAt);
+              // A concurrent lookup that still sees the old row caches it
+              invitationCodeCache.put(
+                  code, new ActiveInvitation(event.getId(), EventStatus.CREATED, null));
+            });
+
+    assertEquals(expiresAt, eventService.findActiveInvitation(code).orElseThrow().expiresAt());
+  }
+
+  @Test
+  public void testActiveEventLookupRechecksStaleEntry() {
+    Event event = createEvent(null);
+    String code = eventService.getInvitationCode(event.getId()).orElseThrow();
+    eventService.updateEvent(event.getId(), EventStatus.DELETED, null, null);
+    // As left behind on this replica when another one deletes the event
+    invitationCodeCache.put(code, new ActiveInvitation(event.getId(), EventStatus.CREATED, null));
+
+    assertFalse(eventService.findActiveEventByInvitationCode(code).isPresent());
+
+    QueryCounter.Counted<Optional<ActiveInvitation>> reloaded =
+        QueryCounter.count(() -> eventService.findActiveInvitation(code));
+    assertFalse(reloaded.result().isPresent());
+    assertEquals(1, reloaded.queries(), "Stale entry should have been dropped");
+  }
+
+  private Event createEvent(LocalDateTime expiresAt) {
+    Long userId = userService.createAnonymousUser().getId();
+    return eventService.createEvent(userId, null, expiresAt);
+  }
+}
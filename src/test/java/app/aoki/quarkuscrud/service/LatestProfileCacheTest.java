@@ -0,0 +1,146 @@
+package app.aoki.quarkuscrud.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import app.aoki.quarkuscrud.entity.UserProfile;
+import app.aoki.quarkuscrud.mapper.UserProfileMapper;
+import app.aoki.quarkuscrud.support.QueryCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Tests for the write-through cache of latest profile revisions. */
+@QuarkusTest
+public class LatestProfileCacheTest {
+
+  @Inject ProfileService profileService;
+  @Inject UserService userService;
+  @Inject UserProfileMapper userProfileMapper;
+  @Inject SqlSessionFactory sqlSessionFactory;
+  @Inject MeterRegistry meterRegistry;
+
+  @BeforeEach
+  public void setup() {
+    QueryCounter.install(sqlSessionFactory);
+  }
+
+  @Test
+  public void testNewRevisionIsServedWithoutQueries() {
+    Long userId = userService.createAnonymousUser().getId();
+    profileService.createProfileRevision(userId, "{\"name\":\"first\"}", null);
+    UserProfile second =
+        profileService.createProfileRevision(userId, "{\"name\":\"second\"}", null);
+
+    QueryCounter.Counted<Optional<UserProfile>> counted =
+        QueryCounter.count(() -> profileService.findLatestByUserId(userId));
+    assertEquals(0, counted.queries(), "Latest revision should be written through");
+    assertEquals(second.getId(), counted.result().orElseThrow().getId());
+  }
+
+  @Test
+  public void testBatchLookupLoadsOnlyMisses() {
+    Long withProfile = userService.createAnonymousUser().getId();
+    Long withoutProfile = userService.createAnonymousUser().getId();
+    profileService.createProfileRevision(withProfile, "{\"name\":\"cached\"}", null);
+
+    QueryCounter.Counted<Map<Long, UserProfile>> cold =
+        QueryCounter.count(
+            () -> profileService.findLatestByUserIds(List.of(withProfile, withoutProfile)));
+    assertEquals(1, cold.queries());
+    assertEquals(1, cold.result().size());
+
+    // Users without a profile are cached as absent
+    QueryCounter.Counted<Map<Long, UserProfile>> warm =
+        QueryCounter.count(
+            () -> profileService.findLatestByUserIds(List.of(withProfile, withoutProfile)));
+    assertEquals(0, warm.queries());
+    assertEquals(cold.result().keySet(), warm.result().keySet());
+  }
+
+  @Test
+  public void testRolledBackRevisionIsNotCached() {
+    Long userId = userService.createAnonymousUser().getId();
+    UserProfile committed =
+        profileService.createProfileRevision(userId, "{\"name\":\"committed\"}", null);
+
+    QuarkusTransaction.requiringNew()
+        .run(
+            () -> {
+              UserProfile uncommitted =
+                  profileService.createProfileRevision(userId, "{\"name\":\"rolled\"}", null);
+              // The writing transaction sees its own revision
+              assertEquals(
+                  uncommitted.getId(), profileService.findLatestByUserId(userId).get().getId());
+              QuarkusTransaction.setRollbackOnly();
+            });
+
+    assertEquals(committed.getId(), profileService.findLatestByUserId(userId).get().getId());
+  }
+
+  @Test
+  public void testWrittenThroughTimestampsMatchStoredRow() {
+    Long userId = userService.createAnonymousUser().getId();
+    profileService.createProfileRevision(userId, "{\"name\":\"precise\"}", null);
+    assertTimestampsMatchStoredRow(userId);
+
+    UserProfile latest = profileService.findLatestByUserId(userId).get();
+    latest.setUsermeta("{\"note\":\"updated\"}");
+    profileService.updateRevisionMeta(latest);
+    assertTimestampsMatchStoredRow(userId);
+  }
+
+  @Test
+  public void testReturnedProfileIsDetached() {
+    Long userId = userService.createAnonymousUser().getId();
+    profileService.createProfileRevision(userId, "{\"name\":\"original\"}", null);
+
+    profileService.findLatestByUserId(userId).get().setProfileData("{\"name\":\"mutated\"}");
+
+    assertNotEquals(
+        "{\"name\":\"mutated\"}", profileService.findLatestByUserId(userId).get().getProfileData());
+  }
+
+  @Test
+  public void testHitsAndSizeAreExported() {
+    Long userId = userService.createAnonymousUser().getId();
+    profileService.createProfileRevision(userId, "{\"name\":\"metrics\"}", null);
+    double hitsBefore = cacheGets("hit");
+
+    profileService.findLatestByUserId(userId);
+
+    assertTrue(cacheGets("hit") > hitsBefore);
+    assertTrue(
+        meterRegistry
+                .get("cache.size")
+                .tag("cache", LatestProfileCache.CACHE_NAME)
+                .gauge()
+                .value()
+            > 0);
+  }
+
+  private void assertTimestampsMatchStoredRow(Long userId) {
+    UserProfile cached = profileService.findLatestByUserId(userId).get();
+    UserProfile stored = userProfileMapper.findLatestByUserId(userId).get();
+    assertEquals(stored.getId(), cached.getId());
+    assertEquals(stored.getCreatedAt(), cached.getCreatedAt());
+    assertEquals(stored.getUpdatedAt(), cached.getUpdatedAt());
+  }
+
+  private double cacheGets(String result) {
+    return meterRegistry
+        .get("cache.gets")
+        .tag("cache", LatestProfileCache.CACHE_NAME)
+        .tag("result", result)
+        .functionCounter()
+        .count();
+  }
+}
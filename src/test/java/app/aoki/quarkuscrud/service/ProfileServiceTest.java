@@ -1,6 +1,7 @@
 package app.aoki.quarkuscrud.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
@@ -8,10 +9,14 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import app.aoki.quarkuscrud.entity.User;
 import app.aoki.quarkuscrud.entity.UserProfile;
+import app.aoki.quarkuscrud.mapper.UserProfileMapper;
+import app.aoki.quarkuscrud.support.QueryPlan;
 import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
+import java.util.Map;
 import java.util.Optional;
+import org.apache.ibatis.session.SqlSessionFactory;
 import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
@@ -30,6 +35,7 @@ public class ProfileServiceTest {
 
   @Inject ProfileService profileService;
   @Inject UserService userService;
+  @Inject SqlSessionFactory sqlSessionFactory;
 
   private static Long testUserId;
   private static Long firstProfileId;
@@ -110,4 +116,19 @@ public class ProfileServiceTest {
     assertTrue(latestProfile.isPresent());
     assertTrue(latestProfile.get().getProfileData().contains("User 2"));
   }
+
+  @Test
+  @Order(6)
+  public void testLatestLookupFollowsCurrentRevisionPointer() {
+    String plan =
+        QueryPlan.explain(
+            sqlSessionFactory,
+            UserProfileMapper.class,
+            "findLatestByUserId",
+            Map.of("userId", testUserId));
+
+    assertTrue(plan.contains("user_profile_current_pkey"), plan);
+    assertTrue(plan.contains("user_profiles_pkey"), plan);
+    assertFalse(plan.contains("Sort"), plan);
+  }
 }
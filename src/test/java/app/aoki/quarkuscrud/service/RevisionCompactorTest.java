@@ -0,0 +1,86 @@
+package app.aoki.quarkuscrud.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import app.aoki.quarkuscrud.entity.EventUserData;
+import app.aoki.quarkuscrud.entity.UserProfile;
+import app.aoki.quarkuscrud.mapper.EventUserDataMapper;
+import app.aoki.quarkuscrud.mapper.UserProfileMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/** Tests for the background job that enforces the revision retention policy. */
+@QuarkusTest
+public class RevisionCompactorTest {
+
+  @Inject RevisionCompactor revisionCompactor;
+  @Inject EventService eventService;
+  @Inject ProfileService profileService;
+  @Inject UserService userService;
+  @Inject EventUserDataMapper eventUserDataMapper;
+  @Inject UserProfileMapper userProfileMapper;
+  @Inject MeterRegistry meterRegistry;
+
+  @Test
+  public void testEventUserDataIsCompactedToLatestRevisions() {
+    Long userId = userService.createAnonymousUser().getId();
+    Long eventId = eventService.createEvent(userId, null, null).getId();
+    List<EventUserData> revisions = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      revisions.add(
+          eventService.createUserDataRevision(eventId, userId, "{\"step\":" + i + "}", null));
+    }
+    double compactedBefore = compactedCount("event_user_data");
+
+    // app.revision-retention.keep-last=2 and keep-newer-than=0s in tests
+    revisionCompactor.compact();
+
+    List<EventUserData> remaining = eventUserDataMapper.findByEventIdAndUserId(eventId, userId);
+    assertEquals(2, remaining.size());
+    assertEquals(revisions.get(4).getId(), remaining.get(0).getId());
+    assertEquals(revisions.get(3).getId(), remaining.get(1).getId());
+    assertTrue(compactedCount("event_user_data") >= compactedBefore + 3);
+  }
+
+  @Test
+  public void testShortHistoriesAreLeftAlone() {
+    Long userId = userService.createAnonymousUser().getId();
+    Long eventId = eventService.createEvent(userId, null, null).getId();
+    eventService.createUserDataRevision(eventId, userId, "{\"step\":0}", null);
+    eventService.createUserDataRevision(eventId, userId, "{\"step\":1}", null);
+    Long otherUserId = userService.createAnonymousUser().getId();
+    eventService.createUserDataRevision(eventId, otherUserId, "{\"step\":0}", null);
+
+    revisionCompactor.compact();
+
+    assertEquals(2, eventUserDataMapper.findByEventIdAndUserId(eventId, userId).size());
+    assertEquals(1, eventUserDataMapper.findByEventIdAndUserId(eventId, otherUserId).size());
+  }
+
+  @Test
+  public void testUserProfilesAreCompactedPerUser() {
+    Long userId = userService.createAnonymousUser().getId();
+    List<UserProfile> revisions = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      revisions.add(profileService.createProfileRevision(userId, "{\"step\":" + i + "}", null));
+    }
+    double compactedBefore = compactedCount("user_profiles");
+
+    revisionCompactor.compact();
+
+    List<UserProfile> remaining = userProfileMapper.findByUserId(userId);
+    assertEquals(2, remaining.size());
+    assertEquals(revisions.get(3).getId(), remaining.get(0).getId());
+    assertEquals(revisions.get(3).getId(), profileService.findLatestByUserId(userId).get().getId());
+    assertTrue(compactedCount("user_profiles") >= compactedBefore + 2);
+  }
+
+  private double compactedCount(String table) {
+    return meterRegistry.get("revisions.compacted").tag("table", table).counter().count();
+  }
+}
@@ -0,0 +1,70 @@
+package app.aoki.quarkuscrud.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import app.aoki.quarkuscrud.entity.User;
+import app.aoki.quarkuscrud.service.JwtService;
+import app.aoki.quarkuscrud.service.UserService;
+import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.jwt.algorithm.SignatureAlgorithm;
+import io.smallrye.jwt.auth.principal.JWTAuthContextInfo;
+import io.smallrye.jwt.auth.principal.JWTCallerPrincipal;
+import io.smallrye.jwt.auth.principal.ParseException;
+import io.smallrye.jwt.build.Jwt;
+import jakarta.inject.Inject;
+import java.time.Instant;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.junit.jupiter.api.Test;
+
+/** Tests for the verified-JWT cache in front of SmallRye JWT signature verification. */
+@QuarkusTest
+public class CachingJwtCallerPrincipalFactoryTest {
+
+  @Inject CachingJwtCallerPrincipalFactory factory;
+  @Inject JWTAuthContextInfo authContextInfo;
+  @Inject UserService userService;
+  @Inject JwtService jwtService;
+
+  @ConfigProperty(name = "smallrye.jwt.new-token.issuer")
+  String issuer;
+
+  @Test
+  public void testRepeatedTokenIsServedFromCache() throws Exception {
+    User user = userService.createAnonymousUser();
+    String token = jwtService.generateAnonymousToken(user);
+
+    JWTCallerPrincipal first = factory.parse(token, authContextInfo);
+    JWTCallerPrincipal second = factory.parse(token, authContextInfo);
+
+    assertSame(first, second);
+    assertEquals(first.getSubject(), second.getSubject());
+  }
+
+  @Test
+  public void testExpiredTokenIsRejected() {
+    String token =
+        Jwt.issuer(issuer)
+            .subject("expired-subject")
+            .groups("anonymous")
+            .issuedAt(Instant.now().minusSeconds(7200))
+            .expiresAt(Instant.now().minusSeconds(3600))
+            .jws()
+            .algorithm(SignatureAlgorithm.ES256)
+            .sign();
+
+    assertThrows(ParseException.class, () -> factory.parse(token, authContextInfo));
+  }
+
+  @Test
+  public void testTamperedTokenIsRejected() throws Exception {
+    User user = userService.createAnonymousUser();
+    String token = jwtService.generateAnonymousToken(user);
+    factory.parse(token, authContextInfo);
+
+    String tampered = token.substring(0, token.length() - 4) + "AAAA";
+
+    assertThrows(ParseException.class, () -> factory.parse(tampered, authContextInfo));
+  }
+}
@@ -0,0 +1,81 @@
+package app.aoki.quarkuscrud.support;
+
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSessionFactory;
+
+/**
+ * MyBatis interceptor that counts the SQL statements prepared on the current thread.
+ *
+ * <p>Used by regression tests that pin the number of database round trips a code path issues.
+ * Counting is thread-local, so background jobs running concurrently do not skew the result.
+ *
+ * <pre>{@code
+ * QueryCounter.install(sqlSessionFactory);
+ * QueryCounter.Counted<Optional<User>> counted = QueryCounter.count(() -> service.lookup(...));
+ * assertEquals(1, counted.queries());
+ * }</pre>
+ */
+@Intercepts({
+  @Signature(
+      type = StatementHandler.class,
+      method = "prepare",
+      args = {Connection.class, Integer.class})
+})
+public class QueryCounter implements Interceptor {
+
+  private static final QueryCounter INSTANCE = new QueryCounter();
+  private static final ThreadLocal<AtomicInteger> ACTIVE = new ThreadLocal<>();
+  private static Configuration installedOn;
+
+  private QueryCounter() {}
+
+  /**
+   * Registers the interceptor with the MyBatis configuration. Safe to call from every test.
+   *
+   * @param sqlSessionFactory the application's session factory
+   */
+  public static synchronized void install(SqlSessionFactory sqlSessionFactory) {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    if (installedOn != configuration) {
+      configuration.addInterceptor(INSTANCE);
+      installedOn = configuration;
+    }
+  }
+
+  /**
+   * Runs the action and counts the statements it prepares on this thread.
+   *
+   * @param action the code under test
+   * @return the action's result together with the statement count
+   */
+  public static <T> Counted<T> count(Supplier<T> action) {
+    AtomicInteger counter = new AtomicInteger();
+    ACTIVE.set(counter);
+    try {
+      T result = action.get();
+      return new Counted<>(result, counter.get());
+    } finally {
+      ACTIVE.remove();
+    }
+  }
+
+  @Override
+  public Object intercept(Invocation invocation) throws Throwable {
+    AtomicInteger counter = ACTIVE.get();
+    if (counter != null) {
+      counter.incrementAndGet();
+    }
+    return invocation.proceed();
+  }
+
+  /** Result of a counted action. */
+  public record Counted<T>(T result, int queries) {}
+}
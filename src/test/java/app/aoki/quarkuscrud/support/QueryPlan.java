@@ -0,0 +1,67 @@
+package app.aoki.quarkuscrud.support;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.scripting.defaults.DefaultParameterHandler;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+
+/**
+ * Runs {@code EXPLAIN} on a mapper statement exactly as MyBatis would bind it.
+ *
+ * <p>Used by regression tests that pin which index a query uses. Sequential scans are disabled
+ * while planning, since the tables of a test database are too small for the planner to prefer any
+ * index on cost alone.
+ *
+ * <pre>{@code
+ * String plan = QueryPlan.explain(sqlSessionFactory, FriendshipMapper.class,
+ *     "findBySenderAndRecipient", Map.of("senderId", 1L, "recipientId", 2L));
+ * assertTrue(plan.contains("idx_friendships_unique_pair"));
+ * }</pre>
+ */
+public final class QueryPlan {
+
+  private QueryPlan() {}
+
+  /**
+   * Returns the text plan of a mapper statement.
+   *
+   * @param sqlSessionFactory the application's session factory
+   * @param mapper the mapper interface declaring the statement
+   * @param method the mapper method name
+   * @param parameter the statement parameters, keyed by their {@code @Param} names
+   * @return the plan, one line per plan node
+   */
+  public static String explain(
+      SqlSessionFactory sqlSessionFactory, Class<?> mapper, String method, Object parameter) {
+    MappedStatement statement =
+        sqlSessionFactory.getConfiguration().getMappedStatement(mapper.getName() + "." + method);
+    BoundSql boundSql = statement.getBoundSql(parameter);
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      Connection connection = session.getConnection();
+      try (Statement settings = connection.createStatement()) {
+        settings.execute("SET enable_seqscan = off");
+        try (PreparedStatement explain =
+            connection.prepareStatement("EXPLAIN " + boundSql.getSql())) {
+          new DefaultParameterHandler(statement, parameter, boundSql).setParameters(explain);
+          StringBuilder plan = new StringBuilder();
+          try (ResultSet rows = explain.executeQuery()) {
+            while (rows.next()) {
+              plan.append(rows.getString(1)).append('\n');
+            }
+          }
+          return plan.toString();
+        } finally {
+          settings.execute("RESET enable_seqscan");
+        }
+      }
+    } catch (SQLException e) {
+      throw new IllegalStateException("EXPLAIN failed for " + method, e);
+    }
+  }
+}
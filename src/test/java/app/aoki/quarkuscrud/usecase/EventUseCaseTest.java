@@ -0,0 +1,274 @@
+package app.aoki.quarkuscrud.usecase;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import app.aoki.quarkuscrud.entity.Event;
+import app.aoki.quarkuscrud.generated.model.EventJoinByCodeRequest;
+import app.aoki.quarkuscrud.service.EventService;
+import app.aoki.quarkuscrud.service.Page;
+import app.aoki.quarkuscrud.service.PageRequest;
+import app.aoki.quarkuscrud.service.ProfileService;
+import app.aoki.quarkuscrud.service.UserService;
+import app.aoki.quarkuscrud.support.QueryCounter;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for EventUseCase list and join operations.
+ *
+ * <p>Listing a user's events must cost a constant number of queries regardless of how many events
+ * the user has. Joining by code must take a single statement and turn duplicate joins into
+ * conflicts, including concurrent ones. An event snapshot, like the lists, must not cost more
+ * queries as attendees are added.
+ */
+@QuarkusTest
+public class EventUseCaseTest {
+
+  @Inject EventUseCase eventUseCase;
+  @Inject EventService eventService;
+  @Inject UserService userService;
+  @Inject ProfileService profileService;
+  @Inject SqlSessionFactory sqlSessionFactory;
+
+  private static final PageRequest FIRST_PAGE = PageRequest.first(100);
+
+  @BeforeEach
+  public void setup() {
+    QueryCounter.install(sqlSessionFactory);
+  }
+
+  @Test
+  public void testListEventsByUserQueryCountIsConstant() {
+    Long ownerId = userService.createAnonymousUser().getId();
+    eventService.createEvent(ownerId, null, null);
+    int queriesForOne = countListEventsByUser(ownerId);
+
+    for (int i = 0; i < 9; i++) {
+      eventService.createEvent(ownerId, null, null);
+    }
+    int queriesForTen = countListEventsByUser(ownerId);
+
+    assertEquals(queriesForOne, queriesForTen, "Query count must not grow with the event count");
+  }
+
+  @Test
+  public void testListAttendedEventsByUserQueryCountIsConstant() throws Exception {
+    Long attendeeId = userService.createAnonymousUser().getId();
+    joinNewEvent(attendeeId);
+    int queriesForOne = countListAttendedEventsByUser(attendeeId);
+
+    for (int i = 0; i < 9; i++) {
+      joinNewEvent(attendeeId);
+    }
+    int queriesForTen = countListAttendedEventsByUser(attendeeId);
+
+    assertEquals(queriesForOne, queriesForTen, "Query count must not grow with the event count");
+  }
+
+  @Test
+  public void testEventSnapshotQueryCountIsConstant() {
+    Long ownerId = userService.createAnonymousUser().getId();
+    Long eventId = eventService.createEvent(ownerId, null, null).getId();
+    int queriesForOne = countEventSnapshot(eventId, ownerId);
+
+    for (int i = 0; i < 9; i++) {
+      Long attendeeId = userService.createAnonymousUser().getId();
+      eventService.addAttendee(eventId, attendeeId, null);
+      profileService.createProfileRevision(attendeeId, "{\"name\":\"attendee-" + i + "\"}", null);
+      eventService.createUserDataRevision(eventId, attendeeId, "{\"score\":" + i + "}", null);
+    }
+    QueryCounter.Counted<app.aoki.quarkuscrud.generated.model.EventSnapshot> counted =
+        QueryCounter.count(() -> eventUseCase.getEventSnapshot(eventId, ownerId, FIRST_PAGE));
+
+    assertEquals(queriesForOne, counted.queries(), "Query count must not grow with attendees");
+    assertEquals(10, counted.result().getAttendees().size());
+    for (app.aoki.quarkuscrud.generated.model.EventSnapshotAttendee entry :
+        counted.result().getAttendees()) {
+      assertNotNull(entry.getUserData());
+      if (!entry.getAttendee().getAttendeeUserId().equals(ownerId)) {
+        assertEquals(entry.getAttendee().getAttendeeUserId(), entry.getProfile().getUserId());
+      }
+    }
+  }
+
+  @Test
+  public void testEventSnapshotRequiresAttendance() {
+    Long ownerId = userService.createAnonymousUser().getId();
+    Long eventId = eventService.createEvent(ownerId, null, null).getId();
+    Long strangerId = userService.createAnonymousUser().getId();
+
+    assertThrows(
+        SecurityException.class,
+        () -> eventUseCase.getEventSnapshot(eventId, strangerId, FIRST_PAGE));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> eventUseCase.getEventSnapshot(Long.MAX_VALUE, ownerId, FIRST_PAGE));
+  }
+
+  @Test
+  public void testInvitationCodesOnlyVisibleToOwner() throws Exception {
+    Long ownerId = userService.createAnonymousUser().getId();
+    Long otherId = userService.createAnonymousUser().getId();
+    Event event = eventService.createEvent(ownerId, null, null);
+    String code = eventService.getInvitationCode(event.getId()).orElseThrow();
+
+    List<app.aoki.quarkuscrud.generated.model.Event> asOwner =
+        eventUseCase.listEventsByUser(ownerId, ownerId, FIRST_PAGE).items();
+    assertEquals(1, asOwner.size());
+    assertEquals(code, asOwner.get(0).getInvitationCode());
+
+    List<app.aoki.quarkuscrud.generated.model.Event> asOther =
+        eventUseCase.listEventsByUser(ownerId, otherId, FIRST_PAGE).items();
+    assertEquals(1, asOther.size());
+    assertNull(asOther.get(0).getInvitationCode());
+  }
+
+  @Test
+  public void testListEventsByUserPagesNewestFirst() {
+    Long ownerId = userService.createAnonymousUser().getId();
+    List<Long> createdIds = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      createdIds.add(eventService.createEvent(ownerId, null, null).getId());
+    }
+    Collections.reverse(createdIds);
+
+    List<Long> pagedIds = new ArrayList<>();
+    Page<app.aoki.quarkuscrud.generated.model.Event> page =
+        eventUseCase.listEventsByUser(ownerId, ownerId, PageRequest.first(2));
+    pagedIds.addAll(page.items().stream().map(e -> e.getId()).toList());
+    while (page.nextCursor() != null) {
+      assertEquals(2, page.items().size());
+      page =
+          eventUseCase.listEventsByUser(ownerId, ownerId, PageRequest.after(page.nextCursor(), 2));
+      pagedIds.addAll(page.items().stream().map(e -> e.getId()).toList());
+    }
+
+    assertEquals(createdIds, pagedIds);
+  }
+
+  @Test
+  public void testJoinByCodeIsOneStatement() throws Exception {
+    Long ownerId = userService.createAnonymousUser().getId();
+    Long userId = userService.createAnonymousUser().getId();
+    Event event = eventService.createEvent(ownerId, null, null);
+    EventJoinByCodeRequest request = joinRequest(event);
+
+    QueryCounter.Counted<app.aoki.quarkuscrud.generated.model.EventAttendee> counted =
+        QueryCounter.count(
+            () -> {
+              try {
+                return eventUseCase.joinEventByCode(userId, request);
+              } catch (Exception e) {
+                throw new RuntimeException(e);
+              }
+            });
+    assertEquals(event.getId(), counted.result().getEventId());
+    assertEquals(userId, counted.result().getAttendeeUserId());
+    // The join itself plus the live update notification
+    assertEquals(2, counted.queries());
+  }
+
+  @Test
+  public void testJoinByCodeRejectsUnknownCodeAndRepeatJoin() throws Exception {
+    Long ownerId = userService.createAnonymousUser().getId();
+    Long userId = userService.createAnonymousUser().getId();
+    Event event = eventService.createEvent(ownerId, null, null);
+
+    EventJoinByCodeRequest unknown = new EventJoinByCodeRequest();
+    unknown.setInvitationCode("ZZZ");
+    assertThrows(
+        IllegalArgumentException.class, () -> eventUseCase.joinEventByCode(userId, unknown));
+
+    eventUseCase.joinEventByCode(userId, joinRequest(event));
+    assertThrows(
+        IllegalStateException.class,
+        () -> eventUseCase.joinEventByCode(userId, joinRequest(event)));
+  }
+
+  @Test
+  public void testConcurrentDoubleJoinYieldsOneConflict() throws Exception {
+    Long ownerId = userService.createAnonymousUser().getId();
+    Long userId = userService.createAnonymousUser().getId();
+    Event event = eventService.createEvent(ownerId, null, null);
+    EventJoinByCodeRequest request = joinRequest(event);
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<?>> joins = new ArrayList<>();
+      for (int i = 0; i < 2; i++) {
+        joins.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  return eventUseCase.joinEventByCode(userId, request);
+                }));
+      }
+      start.countDown();
+
+      int joined = 0;
+      int conflicts = 0;
+      for (Future<?> join : joins) {
+        try {
+          join.get();
+          joined++;
+        } catch (ExecutionException e) {
+          assertEquals(IllegalStateException.class, e.getCause().getClass());
+          conflicts++;
+        }
+      }
+      assertEquals(1, joined);
+      assertEquals(1, conflicts);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private int countListEventsByUser(Long userId) {
+    QueryCounter.Counted<Page<app.aoki.quarkuscrud.generated.model.Event>> counted =
+        QueryCounter.count(() -> eventUseCase.listEventsByUser(userId, userId, FIRST_PAGE));
+    assertNotNull(counted.result());
+    return counted.queries();
+  }
+
+  private int countEventSnapshot(Long eventId, Long userId) {
+    QueryCounter.Counted<app.aoki.quarkuscrud.generated.model.EventSnapshot> counted =
+        QueryCounter.count(() -> eventUseCase.getEventSnapshot(eventId, userId, FIRST_PAGE));
+    assertNotNull(counted.result());
+    return counted.queries();
+  }
+
+  private int countListAttendedEventsByUser(Long userId) {
+    QueryCounter.Counted<Page<app.aoki.quarkuscrud.generated.model.Event>> counted =
+        QueryCounter.count(
+            () -> eventUseCase.listAttendedEventsByUser(userId, userId, FIRST_PAGE));
+    assertNotNull(counted.result());
+    return counted.queries();
+  }
+
+  private void joinNewEvent(Long userId) throws Exception {
+    Long ownerId = userService.createAnonymousUser().getId();
+    Event event = eventService.createEvent(ownerId, null, null);
+    eventUseCase.joinEventByCode(userId, joinRequest(event));
+  }
+
+  private EventJoinByCodeRequest joinRequest(Event event) {
+    EventJoinByCodeRequest request = new EventJoinByCodeRequest();
+    request.setInvitationCode(eventService.getInvitationCode(event.getId()).orElseThrow());
+    return request;
+  }
+}
@@ -0,0 +1,133 @@
+package app.aoki.quarkuscrud.usecase;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import app.aoki.quarkuscrud.mapper.FriendshipMapper;
+import app.aoki.quarkuscrud.service.FriendshipService;
+import app.aoki.quarkuscrud.service.Page;
+import app.aoki.quarkuscrud.service.PageRequest;
+import app.aoki.quarkuscrud.service.ProfileService;
+import app.aoki.quarkuscrud.service.UserService;
+import app.aoki.quarkuscrud.support.QueryCounter;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import java.util.Map;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for FriendshipUseCase list operations.
+ *
+ * <p>Listing received friendships must load the sender profiles of a page together, so the query
+ * count does not grow with the number of friendships. Exchanging cards must write both directions
+ * with one statement, whether or not the friendship already exists.
+ */
+@QuarkusTest
+public class FriendshipUseCaseTest {
+
+  @Inject FriendshipUseCase friendshipUseCase;
+  @Inject FriendshipService friendshipService;
+  @Inject FriendshipMapper friendshipMapper;
+  @Inject ProfileService profileService;
+  @Inject UserService userService;
+  @Inject SqlSessionFactory sqlSessionFactory;
+
+  private static final PageRequest FIRST_PAGE = PageRequest.first(100);
+
+  @BeforeEach
+  public void setup() {
+    QueryCounter.install(sqlSessionFactory);
+  }
+
+  @Test
+  public void testListReceivedFriendshipsQueryCountIsConstant() {
+    Long recipientId = userService.createAnonymousUser().getId();
+    addSender(recipientId, 0);
+    int queriesForOne = countListReceivedFriendships(recipientId).queries();
+
+    for (int i = 1; i < 10; i++) {
+      addSender(recipientId, i);
+    }
+    QueryCounter.Counted<Page<app.aoki.quarkuscrud.generated.model.Friendship>> counted =
+        countListReceivedFriendships(recipientId);
+
+    assertEquals(queriesForOne, counted.queries(), "Query count must not grow with friendships");
+    assertEquals(10, counted.result().items().size());
+    for (app.aoki.quarkuscrud.generated.model.Friendship friendship : counted.result().items()) {
+      assertEquals(friendship.getSenderUserId(), friendship.getSenderProfile().getUserId());
+    }
+  }
+
+  @Test
+  public void testSenderWithoutProfileIsListedWithoutOne() {
+    Long recipientId = userService.createAnonymousUser().getId();
+    Long senderId = userService.createAnonymousUser().getId();
+    friendshipService.createFriendship(senderId, recipientId, null);
+
+    Page<app.aoki.quarkuscrud.generated.model.Friendship> page =
+        friendshipUseCase.listReceivedFriendships(recipientId, FIRST_PAGE);
+
+    assertEquals(1, page.items().size());
+    assertNull(page.items().get(0).getSenderProfile());
+  }
+
+  @Test
+  public void testCreateOrUpdateFriendshipIsOneStatement() {
+    Long senderId = userService.createAnonymousUser().getId();
+    Long recipientId = userService.createAnonymousUser().getId();
+
+    // One upsert plus the sender profile lookup for the response
+    QueryCounter.Counted<app.aoki.quarkuscrud.generated.model.Friendship> created =
+        QueryCounter.count(
+            () ->
+                friendshipUseCase.createOrUpdateFriendship(
+                    senderId, recipientId, Map.of("place", "Tokyo")));
+    assertEquals(2, created.queries());
+    assertEquals(senderId, created.result().getSenderUserId());
+    assertEquals("Tokyo", created.result().getMeta().get("place"));
+
+    // Empty meta leaves an existing friendship as it is
+    QueryCounter.Counted<app.aoki.quarkuscrud.generated.model.Friendship> repeated =
+        QueryCounter.count(
+            () -> friendshipUseCase.createOrUpdateFriendship(senderId, recipientId, Map.of()));
+    assertEquals(2, repeated.queries());
+    assertEquals(created.result().getId(), repeated.result().getId());
+    assertEquals("Tokyo", repeated.result().getMeta().get("place"));
+
+    // New meta from the other side reaches both directions
+    friendshipUseCase.createOrUpdateFriendship(recipientId, senderId, Map.of("place", "Osaka"));
+    assertEquals(
+        "{\"place\": \"Osaka\"}",
+        friendshipMapper.findBySenderAndRecipient(senderId, recipientId).get().getUsermeta());
+    assertEquals(
+        "{\"place\": \"Osaka\"}",
+        friendshipMapper.findBySenderAndRecipient(recipientId, senderId).get().getUsermeta());
+  }
+
+  @Test
+  public void testCreateOrUpdateFriendshipRejectsMissingRecipientAndSelf() {
+    Long senderId = userService.createAnonymousUser().getId();
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> friendshipUseCase.createOrUpdateFriendship(senderId, Long.MAX_VALUE, Map.of()));
+    assertThrows(
+        IllegalStateException.class,
+        () -> friendshipUseCase.createOrUpdateFriendship(senderId, senderId, Map.of()));
+  }
+
+  private void addSender(Long recipientId, int index) {
+    Long senderId = userService.createAnonymousUser().getId();
+    profileService.createProfileRevision(senderId, "{\"name\":\"sender-" + index + "\"}", null);
+    friendshipService.createFriendship(senderId, recipientId, null);
+  }
+
+  private QueryCounter.Counted<Page<app.aoki.quarkuscrud.generated.model.Friendship>>
+      countListReceivedFriendships(Long recipientId) {
+    return QueryCounter.count(
+        () -> friendshipUseCase.listReceivedFriendships(recipientId, FIRST_PAGE));
+  }
+}